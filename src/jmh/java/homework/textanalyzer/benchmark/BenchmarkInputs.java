@@ -0,0 +1,68 @@
+package homework.textanalyzer.benchmark;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic text generator shared by the benchmarks.
+ * The same charset and length always produce the same text, so results are comparable between runs.
+ */
+public final class BenchmarkInputs {
+
+    /**
+     * The character mixes the benchmarks are run against.
+     */
+    public enum InputCharset {
+        ASCII_ONLY("abcdefghijklmnopqrstuvwxyz"),
+        MIXED_CASE("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+        ACCENTED_UNICODE("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZéèêëàâäîïôöùûüçÉÈÀÂÄÎÔÖÙÛÜÇăâîșțĂÂÎȘȚßıİğşĞŞ");
+
+        private final String letters;
+
+        InputCharset(String letters) {
+            this.letters = letters;
+        }
+    }
+
+    private static final String SEPARATORS = "     ,.;!?\n";
+    private static final long SEED = 42L;
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Generates a text of words (1 to 10 letters) separated by spaces and punctuation.
+     * @param charset The letters the words are drawn from.
+     * @param length The exact number of chars to generate.
+     * @return The generated text.
+     */
+    static String text(InputCharset charset, int length) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            int wordLength = 1 + random.nextInt(10);
+            for (int i = 0; i < wordLength && builder.length() < length; i++) {
+                builder.append(charset.letters.charAt(random.nextInt(charset.letters.length())));
+            }
+            if (builder.length() < length) {
+                builder.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses a human-readable size such as "1KB", "1MB" or "100MB" into a number of chars.
+     * @param size The size label used as a benchmark parameter.
+     * @return The size in chars.
+     */
+    static int parseSize(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        }
+        if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        }
+        return Integer.parseInt(size);
+    }
+
+}
@@ -0,0 +1,58 @@
+package homework.textanalyzer.benchmark;
+
+import homework.textanalyzer.benchmark.BenchmarkInputs.InputCharset;
+import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a dashboard's three separate analyses (vowels, consonants, words) with one combined single-pass analysis.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MultiAnalysisBenchmark {
+
+    private static final Set<AnalysisType> ALL_TYPES = EnumSet.allOf(AnalysisType.class);
+
+    @Param({"ASCII_ONLY", "ACCENTED_UNICODE"})
+    public InputCharset charset;
+
+    @Param({"1KB", "1MB"})
+    public String size;
+
+    private TextAnalyzerService textAnalyzerService;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        textAnalyzerService = new TextAnalyzerService();
+        text = BenchmarkInputs.text(charset, BenchmarkInputs.parseSize(size));
+    }
+
+    @Benchmark
+    public void separate(Blackhole blackhole) {
+        blackhole.consume(textAnalyzerService.analyze(text, AnalysisType.VOWELS));
+        blackhole.consume(textAnalyzerService.analyze(text, AnalysisType.CONSONANTS));
+        blackhole.consume(textAnalyzerService.analyzeWords(text, 100));
+    }
+
+    @Benchmark
+    public Map<AnalysisType, Map<String, Integer>> combined() {
+        return textAnalyzerService.analyzeAll(text, ALL_TYPES, Alphabet.ENGLISH, 100);
+    }
+
+}
@@ -0,0 +1,65 @@
+package homework.textanalyzer.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import homework.textanalyzer.benchmark.BenchmarkInputs.InputCharset;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.AnalysisType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the REST side of TextAnalyzerController.analyzeText:
+ * the Character to String key remapping and the Jackson serialization of the AnalysisResponse.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResponseMappingBenchmark {
+
+    @Param({"VOWELS", "CONSONANTS"})
+    public AnalysisType type;
+
+    // 250 is the default GET limit (text.analyzer.max-length).
+    @Param({"250", "1KB"})
+    public String size;
+
+    // Built the same way Spring Boot builds the ObjectMapper used by the HTTP message converters.
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private String text;
+    private Map<Character, Integer> rawResult;
+    private AnalysisResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = BenchmarkInputs.text(InputCharset.MIXED_CASE, BenchmarkInputs.parseSize(size));
+        rawResult = new TextAnalyzerService().analyze(text, type);
+        response = AnalysisResponse.of(rawResult, text, type);
+    }
+
+    @Benchmark
+    public AnalysisResponse remapKeys() {
+        return AnalysisResponse.of(rawResult, text, type);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] remapKeysAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(AnalysisResponse.of(rawResult, text, type));
+    }
+
+}
@@ -0,0 +1,69 @@
+package homework.textanalyzer.benchmark;
+
+import homework.textanalyzer.benchmark.BenchmarkInputs.InputCharset;
+import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the analyzer hot path, TextAnalyzerService.analyze, for every analysis type,
+ * character mix and input size.
+ * <p>
+ * The counting path is pinned by the mode parameter rather than left to the service's parallel threshold.
+ * "sequential" counts on the benchmark thread, so gc.alloc.rate.norm covers all of the analysis' allocation.
+ * "parallel" splits letter analyses at or above 1 MB across the fork/join pool, like the service does by default;
+ * allocation on the pool's workers is not in gc.alloc.rate.norm there.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TextAnalyzerServiceBenchmark {
+
+    @Param({"VOWELS", "CONSONANTS", "WORD", "BIGRAM", "TRIGRAM"})
+    public AnalysisType type;
+
+    @Param({"ASCII_ONLY", "MIXED_CASE", "ACCENTED_UNICODE"})
+    public InputCharset charset;
+
+    @Param({"1KB", "1MB", "100MB"})
+    public String size;
+
+    @Param({"scalar", "vector"})
+    public String engine;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    private TextAnalyzerService textAnalyzerService;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        textAnalyzerService = new TextAnalyzerService();
+        textAnalyzerService.setEngine(engine);
+        textAnalyzerService.setParallelThreshold("parallel".equals(mode) ? 1024 * 1024 : Integer.MAX_VALUE);
+        text = BenchmarkInputs.text(charset, BenchmarkInputs.parseSize(size));
+    }
+
+    @Benchmark
+    public Map<?, Integer> analyze() {
+        // WORD and n-gram counts are keyed by String and have their own entry points; limit 100 matches the endpoint's default.
+        if (type == AnalysisType.WORD) {
+            return textAnalyzerService.analyzeWords(text, 100);
+        }
+        return type.ngramLength() > 0
+                ? textAnalyzerService.analyzeNGrams(text, type, Alphabet.ENGLISH, 100)
+                : textAnalyzerService.analyze(text, type);
+    }
+
+}
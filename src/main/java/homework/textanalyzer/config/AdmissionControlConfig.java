@@ -0,0 +1,28 @@
+package homework.textanalyzer.config;
+
+import homework.textanalyzer.util.AdmissionControlInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Applies admission control (per-client rate limit and in-flight character budget) to the analysis endpoints.
+ * Background jobs and the cache endpoints are left out: jobs have their own bounded queue, and cache management is cheap.
+ * Sharded analysis is left out as well: the coordinator holds only a few shards at a time, and the workers that count
+ * them apply their own admission control.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor)
+                .addPathPatterns("/analyze", "/analyze/**")
+                .excludePathPatterns("/analyze/jobs/**", "/analyze/cache/**", "/analyze/sharded", "/analyze/sharded/**");
+    }
+
+}
@@ -0,0 +1,38 @@
+package homework.textanalyzer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides the executor that runs batch analysis work off the request thread.
+ * <p>
+ * With {@code spring.threads.virtual.enabled=true}, Spring Boot serves requests on virtual threads, and this executor
+ * starts one virtual thread per task as well, so neither slow request bodies nor batch work tie up platform threads.
+ * Otherwise it is a fixed pool of platform threads, one per available processor.
+ * <p>
+ * CPU-bound splitting of a single large text stays on TextAnalyzerService's fork/join pool in both modes:
+ * virtual threads run on the same number of carrier threads and would only add scheduling overhead there.
+ * <p>
+ * The bean is not a default candidate: it is only injected where it is asked for with
+ * {@code @Qualifier("analysisExecutor")}, and Spring Boot still auto-configures its {@code applicationTaskExecutor}
+ * for {@code @Async} and asynchronous MVC requests.
+ */
+@Configuration
+public class AnalysisExecutorConfig {
+
+    public static final String ANALYSIS_EXECUTOR = "analysisExecutor";
+
+    @Bean(name = ANALYSIS_EXECUTOR, destroyMethod = "close", defaultCandidate = false)
+    public ExecutorService analysisExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("analysis-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("analysis-", 0).daemon().factory());
+    }
+
+}
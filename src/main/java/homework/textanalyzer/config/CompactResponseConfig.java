@@ -0,0 +1,22 @@
+package homework.textanalyzer.config;
+
+import homework.textanalyzer.util.CompactAnalysisResponseConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Adds the compact binary AnalysisResponse encoding to Spring MVC. It is appended after the default converters, so
+ * JSON stays the answer to requests without a specific Accept header; the compact form has to be asked for.
+ */
+@Configuration
+public class CompactResponseConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new CompactAnalysisResponseConverter());
+    }
+
+}
@@ -0,0 +1,29 @@
+package homework.textanalyzer.config;
+
+import homework.textanalyzer.util.ProfilingInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Emits the flight recorder events of the analysis endpoints' request stages. The interceptor runs last, so the
+ * Binding event covers parameter binding rather than admission control. Each controller method under its paths ends
+ * that event with AnalysisEvents.bindingFinished; the cache endpoints, which analyze nothing, are left out.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ProfilingConfig implements WebMvcConfigurer {
+
+    private final ProfilingInterceptor profilingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(profilingInterceptor)
+                .addPathPatterns("/analyze", "/analyze/**")
+                .excludePathPatterns("/analyze/cache/**")
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+
+}
@@ -0,0 +1,55 @@
+package homework.textanalyzer.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import homework.textanalyzer.controller.ReactiveAnalysisHandler;
+import homework.textanalyzer.util.AdmissionControlFilterFunction;
+import homework.textanalyzer.util.AdmissionControlInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * Serves the reactive analysis endpoints next to the Spring MVC ones, on the same embedded server and port.
+ * <p>
+ * The routes are adapted to a servlet that uses non-blocking servlet I/O: while a request waits for more body data,
+ * it holds no container thread, so tens of thousands of slow uploads do not pin Tomcat's worker pool.
+ * They are mapped under text.analyzer.reactive.path, e.g. POST /reactive/analyze?type=VOWELS.
+ * They are subject to the same admission control as the Spring MVC endpoints, sharing its rate limits and budget.
+ */
+@Configuration
+@ConditionalOnProperty(name = "text.analyzer.reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveAnalysisConfig {
+
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveAnalysisServlet(
+            ReactiveAnalysisHandler handler,
+            AdmissionControlInterceptor admissionControlInterceptor,
+            ObjectMapper objectMapper,
+            @Value("${text.analyzer.reactive.path:/reactive}") String path) {
+
+        RouterFunction<ServerResponse> routes = RouterFunctions.route(POST("/analyze"), handler::analyze)
+                .filter(new AdmissionControlFilterFunction(admissionControlInterceptor));
+        // Writes JSON with the application's ObjectMapper, like the Spring MVC endpoints.
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+                .build();
+        ServletHttpHandlerAdapter servlet = new ServletHttpHandlerAdapter(RouterFunctions.toHttpHandler(routes, strategies));
+
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration = new ServletRegistrationBean<>(servlet, path + "/*");
+        registration.setName("reactiveAnalysis");
+        registration.setAsyncSupported(true); // Required for non-blocking servlet I/O
+        registration.setLoadOnStartup(1);
+        return registration;
+    }
+
+}
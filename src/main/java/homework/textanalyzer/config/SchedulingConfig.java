@@ -0,0 +1,12 @@
+package homework.textanalyzer.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled housekeeping tasks, such as expiring idle analysis sessions.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,36 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.model.CacheStatistics;
+import homework.textanalyzer.service.AnalysisResultCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/analyze/cache")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class AnalysisCacheController {
+
+    private final AnalysisResultCache resultCache;
+
+    /**
+     * REST endpoint exposing the result cache's hit, miss and eviction counters.
+     * @return A ResponseEntity containing the current CacheStatistics.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<CacheStatistics> getStatistics() {
+        return ResponseEntity.ok(resultCache.getStatistics());
+    }
+
+    /**
+     * REST endpoint to drop every cached result.
+     * @return An empty ResponseEntity with HTTP 204 No Content.
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> clear() {
+        resultCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+}
@@ -0,0 +1,123 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.JobNotFoundException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.model.AnalysisJobResponse;
+import homework.textanalyzer.service.AnalysisEvents;
+import homework.textanalyzer.service.AnalysisJobService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/analyze/jobs")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class AnalysisJobController {
+
+    private final AnalysisJobService analysisJobService;
+
+    /**
+     * REST endpoint to start a background analysis of an uploaded UTF-8 text file.
+     * The upload is also bounded by spring.servlet.multipart.max-file-size; larger files, up to
+     * text.analyzer.jobs.max-file-size, can be sent as a plain request body instead.
+     *
+     * @param types The analysis types to compute, comma-separated (e.g. "VOWELS,WORD").
+     * @param file The uploaded file, sent as the "file" part of a multipart/form-data request.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return HTTP 202 Accepted with the job's ID and a Location header to poll.
+     * @throws TooManyRequestsException if the job queue is full.
+     * @throws TextLengthExceededException if the file exceeds the maximum job file size.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AnalysisJobResponse> submitUpload(
+            @RequestParam Set<AnalysisType> types,
+            @RequestParam MultipartFile file,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        return accepted(analysisJobService.submit(types, alphabet, limit, file));
+    }
+
+    /**
+     * REST endpoint to start a background analysis of UTF-8 text sent as the request body, up to the maximum job file
+     * size. The body is spooled to a temporary file as it arrives, without the multipart size limits.
+     *
+     * @param types The analysis types to compute, comma-separated.
+     * @param body The request body.
+     * @param contentLength The Content-Length header, if the body is not chunked.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return HTTP 202 Accepted with the job's ID and a Location header to poll.
+     * @throws TooManyRequestsException if the job queue is full.
+     * @throws TextLengthExceededException if the body exceeds the maximum job file size.
+     */
+    @PostMapping(consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<AnalysisJobResponse> submitBody(
+            @RequestParam Set<AnalysisType> types,
+            InputStream body,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        return accepted(analysisJobService.submit(types, alphabet, limit, body, contentLength != null ? contentLength : -1));
+    }
+
+    /**
+     * REST endpoint to start a background analysis of a UTF-8 text file that is already on the server.
+     *
+     * @param types The analysis types to compute, comma-separated.
+     * @param path The file's path, relative to the directory configured in text.analyzer.jobs.allowed-dir.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return HTTP 202 Accepted with the job's ID and a Location header to poll.
+     * @throws TooManyRequestsException if the job queue is full.
+     * @throws TextLengthExceededException if the file exceeds the maximum job file size.
+     */
+    @PostMapping(params = "path")
+    public ResponseEntity<AnalysisJobResponse> submitPath(
+            @RequestParam Set<AnalysisType> types,
+            @RequestParam String path,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        return accepted(analysisJobService.submit(types, alphabet, limit, path));
+    }
+
+    /**
+     * REST endpoint to poll a job: its status, bytes processed and throughput, and its result once it has succeeded.
+     * @throws JobNotFoundException if the job does not exist or is no longer retained.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AnalysisJobResponse> getJob(@PathVariable String jobId) {
+        AnalysisEvents.bindingFinished();
+        return ResponseEntity.ok(analysisJobService.get(jobId));
+    }
+
+    /**
+     * REST endpoint to cancel a queued or running job, or to discard the result of a finished one.
+     * @throws JobNotFoundException if the job does not exist or is no longer retained.
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<AnalysisJobResponse> cancelJob(@PathVariable String jobId) throws IOException {
+        AnalysisEvents.bindingFinished();
+        return ResponseEntity.ok(analysisJobService.cancel(jobId));
+    }
+
+    private static ResponseEntity<AnalysisJobResponse> accepted(AnalysisJobResponse job) {
+        return ResponseEntity.accepted().location(URI.create("/analyze/jobs/" + job.getJobId())).body(job);
+    }
+
+}
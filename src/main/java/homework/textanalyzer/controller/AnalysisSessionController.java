@@ -0,0 +1,103 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.SessionNotFoundException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.model.AnalysisSessionResponse;
+import homework.textanalyzer.service.AnalysisEvents;
+import homework.textanalyzer.service.AnalysisSessionService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+
+@RestController
+@RequestMapping("/analyze/sessions")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class AnalysisSessionController {
+
+    private final AnalysisSessionService analysisSessionService;
+
+    /**
+     * REST endpoint to open an incremental analysis session.
+     * @param type The type of analysis the session performs.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @return HTTP 201 Created with the session's ID and empty counts.
+     * @throws TooManyRequestsException if the maximum number of open sessions is reached.
+     */
+    @PostMapping
+    public ResponseEntity<AnalysisSessionResponse> createSession(
+            @RequestParam AnalysisType type,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet) {
+        AnalysisEvents.bindingFinished(type, -1);
+        AnalysisSessionResponse session = analysisSessionService.create(type, alphabet);
+        return ResponseEntity.created(URI.create("/analyze/sessions/" + session.getSessionId())).body(session);
+    }
+
+    /**
+     * REST endpoint to append a chunk of text (the plain-text request body) to a session.
+     * Only the new chunk is scanned.
+     * @param sessionId The session's ID.
+     * @param body A reader over the request body.
+     * @param limit For WORD and n-gram sessions, the number of most frequent words or n-grams to return.
+     * @return The session's counts after the append.
+     * @throws SessionNotFoundException if the session does not exist.
+     * @throws TextLengthExceededException if the chunk exceeds the maximum chunk length.
+     */
+    @PostMapping(path = "/{sessionId}/text", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<AnalysisSessionResponse> append(
+            @PathVariable String sessionId,
+            Reader body,
+            @RequestParam(required = false) Integer limit) throws IOException {
+        AnalysisEvents.bindingFinished();
+        return ResponseEntity.ok(analysisSessionService.append(sessionId, body, limit));
+    }
+
+    /**
+     * REST endpoint to read a session's current counts.
+     * @throws SessionNotFoundException if the session does not exist.
+     */
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<AnalysisSessionResponse> getSession(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) Integer limit) {
+        AnalysisEvents.bindingFinished();
+        return ResponseEntity.ok(analysisSessionService.get(sessionId, limit));
+    }
+
+    /**
+     * REST endpoint to add the counts of another session of the same type into this one.
+     * @param sessionId The session receiving the counts.
+     * @param source The session whose counts are added; it stays open and unchanged.
+     * @throws SessionNotFoundException if either session does not exist.
+     */
+    @PostMapping("/{sessionId}/merge")
+    public ResponseEntity<AnalysisSessionResponse> merge(
+            @PathVariable String sessionId,
+            @RequestParam String source,
+            @RequestParam(required = false) Integer limit) {
+        AnalysisEvents.bindingFinished();
+        return ResponseEntity.ok(analysisSessionService.merge(sessionId, source, limit));
+    }
+
+    /**
+     * REST endpoint to close a session.
+     * @return The session's final counts.
+     * @throws SessionNotFoundException if the session does not exist.
+     */
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<AnalysisSessionResponse> closeSession(
+            @PathVariable String sessionId,
+            @RequestParam(required = false) Integer limit) {
+        AnalysisEvents.bindingFinished();
+        return ResponseEntity.ok(analysisSessionService.close(sessionId, limit));
+    }
+
+}
@@ -0,0 +1,62 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.ApproximateAnalysisResponse;
+import homework.textanalyzer.service.AnalysisEvents;
+import homework.textanalyzer.service.ApproximateAnalysisService;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+@RestController
+@RequestMapping("/analyze/approximate")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class ApproximateAnalysisController {
+
+    private final ApproximateAnalysisService approximateAnalysisService;
+
+    /**
+     * REST endpoint to estimate the most frequent words and the number of distinct words of a plain-text body
+     * of any length, in bounded memory.
+     *
+     * @param body A reader over the request body.
+     * @param limit The number of most frequent words to return; 0 returns every tracked word.
+     * @param sketch Whether the response carries the serialized sketch (Base64) for POST /analyze/approximate/merge.
+     * @return The estimates and the error bounds they are guaranteed to be within.
+     * @throws TextLengthExceededException if the body exceeds the configured maximum length.
+     */
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<ApproximateAnalysisResponse> analyzeStream(
+            Reader body,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean sketch) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisType.WORD, -1);
+        return ResponseEntity.ok(approximateAnalysisService.analyze(body, limit, sketch));
+    }
+
+    /**
+     * REST endpoint to merge sketches from earlier requests, or from other instances with the same settings,
+     * into the result for all of their inputs together.
+     *
+     * @param sketches A JSON array of Base64-encoded sketches.
+     * @param limit The number of most frequent words to return; 0 returns every tracked word.
+     * @param sketch Whether the response carries the merged sketch.
+     * @return The merged estimates and their error bounds.
+     */
+    @PostMapping(path = "/merge", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApproximateAnalysisResponse> merge(
+            @RequestBody List<byte[]> sketches,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean sketch) {
+        AnalysisEvents.bindingFinished(AnalysisType.WORD, -1);
+        return ResponseEntity.ok(approximateAnalysisService.merge(sketches, limit, sketch));
+    }
+
+}
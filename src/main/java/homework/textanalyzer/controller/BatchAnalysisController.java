@@ -0,0 +1,47 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.BatchSizeExceededException;
+import homework.textanalyzer.model.BatchAnalysisRequest;
+import homework.textanalyzer.model.BatchAnalysisResult;
+import homework.textanalyzer.service.AnalysisEvents;
+import homework.textanalyzer.service.BatchAnalysisService;
+import homework.textanalyzer.exception.InvalidRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequestMapping("/analyze/batch")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class BatchAnalysisController {
+
+    private final BatchAnalysisService batchAnalysisService;
+
+    /**
+     * REST endpoint to analyze many texts in one round trip.
+     *
+     * @param body A JSON array of {"text": ..., "type": ...} objects, read item by item.
+     * @param echo Whether each result repeats its analyzed text.
+     * @return A ResponseEntity containing one result per item, in request order. Items that fail validation
+     * (including an unknown type) carry an error message and status instead of a result; the batch itself still
+     * returns HTTP 200 OK.
+     * @throws IOException if reading the request body fails.
+     * @throws BatchSizeExceededException if the batch holds more items than the configured maximum.
+     * @throws InvalidRequestException if the body is not a JSON array of items.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchAnalysisResult>> analyzeBatch(
+            InputStream body,
+            @RequestParam(defaultValue = "true") boolean echo) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        List<BatchAnalysisRequest> items = batchAnalysisService.readItems(body);
+        return ResponseEntity.ok(batchAnalysisService.analyze(items, echo));
+    }
+
+}
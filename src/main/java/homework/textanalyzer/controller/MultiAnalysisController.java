@@ -0,0 +1,105 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.MultiAnalysisResponse;
+import homework.textanalyzer.service.AnalysisEvents;
+import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/analyze/multi")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class MultiAnalysisController {
+
+    private final TextAnalyzerService textAnalyzerService;
+
+    // Same limits as the single-type /analyze endpoints.
+    @Value("${text.analyzer.max-length:250}")
+    private int maxTextLength;
+
+    @Value("${text.analyzer.stream.max-length:104857600}")
+    private long maxStreamLength;
+
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit;
+
+    /**
+     * REST endpoint to compute several analysis types over a text in one pass.
+     *
+     * @param types The analysis types to compute, comma-separated (e.g. "VOWELS,CONSONANTS,WORD").
+     * @param text The text to analyze.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @param echo Whether the response repeats the analyzed text.
+     * @return A ResponseEntity containing one result per requested type.
+     * @throws TextLengthExceededException if the input text length exceeds the configured maximum.
+     * @throws InvalidRequestException if no analysis type is given.
+     */
+    @GetMapping
+    public ResponseEntity<MultiAnalysisResponse> analyzeText(
+            @RequestParam Set<AnalysisType> types,
+            @RequestParam String text,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean echo) {
+
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, text.length());
+        requireTypes(types);
+        if (text.length() > maxTextLength) {
+            throw new TextLengthExceededException("Input text exceeds maximum allowed length of " + maxTextLength + " characters.");
+        }
+        return ResponseEntity.ok(new MultiAnalysisResponse(
+                textAnalyzerService.analyzeAll(text, types, alphabet, wordLimit(limit)), echo ? text : null, alphabet));
+    }
+
+    /**
+     * REST endpoint to compute several analysis types over a large plain-text request body in one pass.
+     * The body is read and counted in bounded chunks; the text is not echoed back.
+     *
+     * @param types The analysis types to compute, comma-separated.
+     * @param body A reader over the request body, decoded with the request's character encoding.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return A ResponseEntity containing one result per requested type.
+     * @throws IOException if reading the request body fails.
+     * @throws TextLengthExceededException if the body exceeds the configured maximum stream length.
+     * @throws InvalidRequestException if no analysis type is given.
+     */
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<MultiAnalysisResponse> analyzeStream(
+            @RequestParam Set<AnalysisType> types,
+            Reader body,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        requireTypes(types);
+        return ResponseEntity.ok(new MultiAnalysisResponse(
+                textAnalyzerService.analyzeAll(body, types, alphabet, maxStreamLength, wordLimit(limit)), null, alphabet));
+    }
+
+    private static void requireTypes(Set<AnalysisType> types) {
+        // An empty "types=" parameter binds to a set holding only null.
+        if (types.stream().allMatch(Objects::isNull)) {
+            throw new InvalidRequestException("At least one analysis type is required.");
+        }
+    }
+
+    private int wordLimit(Integer limit) {
+        return limit != null ? limit : defaultWordLimit;
+    }
+
+}
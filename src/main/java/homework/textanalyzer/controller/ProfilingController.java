@@ -0,0 +1,59 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.model.ProfilingRecordingResponse;
+import homework.textanalyzer.service.ProfilingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/profiling/recording")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class ProfilingController {
+
+    private final ProfilingService profilingService;
+
+    /**
+     * REST endpoint reporting whether a flight recording is running and where it was last dumped.
+     * @return A ResponseEntity containing the ProfilingRecordingResponse.
+     * @throws IOException if the size of the last dump cannot be read.
+     */
+    @GetMapping
+    public ResponseEntity<ProfilingRecordingResponse> getStatus() throws IOException {
+        return ResponseEntity.ok(profilingService.status());
+    }
+
+    /**
+     * REST endpoint to start a flight recording of the analysis events and the JVM's own events.
+     * @return A ResponseEntity containing the ProfilingRecordingResponse of the running recording.
+     * @throws IOException if the recording directory cannot be created.
+     */
+    @PostMapping
+    public ResponseEntity<ProfilingRecordingResponse> start() throws IOException {
+        return ResponseEntity.ok(profilingService.start());
+    }
+
+    /**
+     * REST endpoint to write the events recorded so far to a file in the recording directory, without stopping.
+     * @return A ResponseEntity containing the ProfilingRecordingResponse with the file written.
+     * @throws IOException if the file cannot be written.
+     */
+    @PostMapping("/dump")
+    public ResponseEntity<ProfilingRecordingResponse> dump() throws IOException {
+        return ResponseEntity.ok(profilingService.dump());
+    }
+
+    /**
+     * REST endpoint to stop the flight recording and write it to a file in the recording directory.
+     * @return A ResponseEntity containing the ProfilingRecordingResponse with the file written.
+     * @throws IOException if the file cannot be written.
+     */
+    @DeleteMapping
+    public ResponseEntity<ProfilingRecordingResponse> stop() throws IOException {
+        return ResponseEntity.ok(profilingService.stop());
+    }
+
+}
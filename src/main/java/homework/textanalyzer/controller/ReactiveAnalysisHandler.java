@@ -0,0 +1,85 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumSet;
+import java.util.Optional;
+
+/**
+ * Non-blocking variant of POST /analyze, served by the reactive stack (see ReactiveAnalysisConfig).
+ * The request body is consumed as a stream of buffers that are counted as they arrive, so a slow upload
+ * holds no thread while it waits for data, and the body is never aggregated in memory.
+ * <p>
+ * The body is decoded as UTF-8. Errors are answered like the GlobalExceptionHandler answers them for the servlet endpoints.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveAnalysisHandler {
+
+    private final TextAnalyzerService textAnalyzerService;
+
+    // Same limits as the streamed POST /analyze endpoint.
+    @Value("${text.analyzer.stream.max-length:104857600}")
+    private long maxStreamLength = 100L * 1024 * 1024;
+
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit = 100;
+
+    /**
+     * Analyzes the request body for the analysis type given by the "type" query parameter.
+     * Optional parameters: "alphabet" (English by default) and, for WORD and the n-gram types, "limit".
+     * @param request The request; its body is the text to analyze.
+     * @return The AnalysisResponse as JSON, without the original text.
+     */
+    public Mono<ServerResponse> analyze(ServerRequest request) {
+        AnalysisType type;
+        Alphabet alphabet;
+        int wordLimit;
+        try {
+            type = requiredParam(request, "type", AnalysisType.class);
+            alphabet = optionalParam(request, "alphabet", Alphabet.class).orElse(Alphabet.ENGLISH);
+            wordLimit = request.queryParam("limit").map(Integer::parseInt).orElse(defaultWordLimit);
+        } catch (IllegalArgumentException ex) {
+            return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+
+        return textAnalyzerService.analyzeAll(request.bodyToFlux(DataBuffer.class), EnumSet.of(type), alphabet, maxStreamLength, wordLimit)
+                .map(results -> new AnalysisResponse(results.get(type), null, type, type == AnalysisType.WORD ? null : alphabet))
+                .flatMap(response -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(response))
+                .onErrorResume(TextLengthExceededException.class, ex -> error(HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage()));
+    }
+
+    private static <E extends Enum<E>> E requiredParam(ServerRequest request, String name, Class<E> enumType) {
+        return optionalParam(request, name, enumType)
+                .orElseThrow(() -> new IllegalArgumentException(name + " parameter is missing."));
+    }
+
+    private static <E extends Enum<E>> Optional<E> optionalParam(ServerRequest request, String name, Class<E> enumType) {
+        return request.queryParam(name).map(value -> {
+            try {
+                return Enum.valueOf(enumType, value);
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException(String.format("Parameter '%s' has an invalid value: '%s'. Expected type: %s",
+                        name, value, enumType.getSimpleName()));
+            }
+        });
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        return ServerResponse.status(status).contentType(MediaType.TEXT_PLAIN).bodyValue(message);
+    }
+
+}
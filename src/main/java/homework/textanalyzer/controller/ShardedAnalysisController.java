@@ -0,0 +1,74 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.exception.ShardAnalysisException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.MultiAnalysisResponse;
+import homework.textanalyzer.service.AnalysisEvents;
+import homework.textanalyzer.service.ShardedAnalysisService;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/analyze/sharded")
+@CrossOrigin(origins = "http://localhost:4200")
+@RequiredArgsConstructor
+public class ShardedAnalysisController {
+
+    private final ShardedAnalysisService shardedAnalysisService;
+
+    /**
+     * REST endpoint to analyze a very large plain-text request body across the worker instances configured in
+     * text.analyzer.cluster.workers. The body is cut into shards as it arrives; the response has the same shape as
+     * POST /analyze/multi.
+     *
+     * @param types The analysis types to compute, comma-separated (e.g. "VOWELS,WORD").
+     * @param body A reader over the request body, decoded with the request's character encoding.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return A ResponseEntity containing one result per requested type, merged from all shards.
+     * @throws IOException if reading the request body fails.
+     * @throws TextLengthExceededException if the body exceeds text.analyzer.cluster.max-length.
+     * @throws ShardAnalysisException if a shard could not be analyzed by any worker.
+     */
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<MultiAnalysisResponse> analyzeStream(
+            @RequestParam Set<AnalysisType> types,
+            Reader body,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        return ResponseEntity.ok(shardedAnalysisService.analyze(body, types, alphabet, limit));
+    }
+
+    /**
+     * REST endpoint to analyze UTF-8 text files that are already on the coordinator across the worker instances.
+     *
+     * @param types The analysis types to compute, comma-separated.
+     * @param paths The files' paths, comma-separated and relative to the directory configured in text.analyzer.jobs.allowed-dir.
+     * @param alphabet The alphabet whose letters are counted; English by default.
+     * @param limit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return A ResponseEntity containing one result per requested type, merged from all shards of all files.
+     * @throws IOException if reading a file fails.
+     * @throws TextLengthExceededException if the files together exceed text.analyzer.cluster.max-length.
+     * @throws ShardAnalysisException if a shard could not be analyzed by any worker.
+     */
+    @PostMapping(params = "paths")
+    public ResponseEntity<MultiAnalysisResponse> analyzeFiles(
+            @RequestParam Set<AnalysisType> types,
+            @RequestParam List<String> paths,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+        AnalysisEvents.bindingFinished(AnalysisEvents.MULTI_TYPE, -1);
+        return ResponseEntity.ok(shardedAnalysisService.analyzeFiles(paths, types, alphabet, limit));
+    }
+
+}
@@ -1,17 +1,33 @@
 package homework.textanalyzer.controller;
 
+import homework.textanalyzer.service.AnalysisResultCache;
+import homework.textanalyzer.service.AnalysisResultCache.CachedAnalysis;
+import homework.textanalyzer.service.AnalysisEvents;
 import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.Alphabet;
 import homework.textanalyzer.util.AnalysisType;
 import homework.textanalyzer.model.AnalysisResponse;
 import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.util.CompactAnalysisResponseConverter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/analyze")
@@ -21,23 +37,45 @@ public class TextAnalyzerController {
 
     private final TextAnalyzerService textAnalyzerService;
 
+    private final AnalysisResultCache resultCache;
+
     // This field is NOT final, so it's NOT included in the @RequiredArgsConstructor.
     // Spring will inject its value via @Value AFTER the constructor call.
     @Value("${text.analyzer.max-length:250}")
     private int maxTextLength;
 
+    // Limit for POST bodies, kept separate from the GET limit since streamed input is never held in memory.
+    @Value("${text.analyzer.stream.max-length:104857600}")
+    private long maxStreamLength;
+
+    // Number of words returned by WORD analysis when the request does not set a limit.
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit;
+
     /**
-     * REST endpoint to analyze text for vowel or consonant counts.
+     * REST endpoint to analyze text for vowel, consonant, word or letter n-gram counts.
      *
-     * @param type The type of analysis: "vowels" or "consonants".
+     * @param type The type of analysis: "vowels", "consonants", "word", "bigram" or "trigram".
      * @param text The text to analyze.
-     * @return A ResponseEntity containing the custom AnalysisResponse object.
+     * @param alphabet The alphabet whose letters are counted (e.g. GERMAN, TURKISH); English by default. Ignored for WORD.
+     * @param limit For WORD, BIGRAM and TRIGRAM analysis, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @param echo Whether the response repeats the analyzed text; false saves bandwidth for large texts.
+     * @param accept The request's Accept header. The response is JSON by default, or CBOR, Smile or the compact
+     * binary format ({@link CompactAnalysisResponseConverter}) when requested.
+     * @return A ResponseEntity containing the custom AnalysisResponse object,
+     * or its cached JSON bytes when serialized result caching is enabled and JSON is requested.
      * @throws TextLengthExceededException if the input text length exceeds the configured maximum.
      */
     @GetMapping
-    public ResponseEntity<AnalysisResponse> analyzeText(
+    public ResponseEntity<?> analyzeText(
             @RequestParam AnalysisType type,
-            @RequestParam String text) {
+            @RequestParam String text,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "true") boolean echo,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        AnalysisEvents.bindingFinished(type, text.length());
 
         // Validate if the input text exceeds the maximum allowed length.
         if (text.length() > maxTextLength) {
@@ -46,24 +84,134 @@ public class TextAnalyzerController {
 
         // Handle empty text inputs specifically; return an empty result map.
         if (text.isBlank()) {
-            return ResponseEntity.ok(new AnalysisResponse(Collections.emptyMap(), text, type));
+            return ResponseEntity.ok(new AnalysisResponse(Collections.emptyMap(), echo ? text : null, type));
+        }
+
+        // Identical (type, text) pairs are answered from the result cache.
+        int wordLimit = wordLimit(limit);
+        CachedAnalysis cached = resultCache.get(type, alphabet, wordLimit, text);
+        if (cached == null) {
+            cached = resultCache.put(type, alphabet, wordLimit, text, analyze(text, type, alphabet, wordLimit));
+        }
+
+        // Return the response with an HTTP 200 OK status.
+        // The cached bytes echo the text and are JSON, so they only fit requests that want exactly that.
+        if (!echo) {
+            // Cached responses are shared, so they are copied rather than modified.
+            return ResponseEntity.ok(cached.response().withoutOriginalText());
+        }
+        if (cached.json() != null && prefersJson(accept)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cached.json());
+        }
+        return ResponseEntity.ok(cached.response());
+    }
+
+    /**
+     * REST endpoint to analyze a large plain-text document sent as the request body.
+     * The body is read and counted in bounded chunks, so it is never held in memory as a whole.
+     *
+     * @param type The type of analysis: "vowels", "consonants", "word", "bigram" or "trigram".
+     * @param body A reader over the request body, decoded with the request's character encoding.
+     * @param alphabet The alphabet whose letters are counted; English by default. Ignored for WORD.
+     * @param limit For WORD, BIGRAM and TRIGRAM analysis, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return A ResponseEntity containing the AnalysisResponse object. The original text is not echoed back.
+     * @throws IOException if reading the request body fails.
+     * @throws TextLengthExceededException if the body exceeds the configured maximum stream length.
+     */
+    @PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<AnalysisResponse> analyzeStream(
+            @RequestParam AnalysisType type,
+            Reader body,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+
+        AnalysisEvents.bindingFinished(type, -1);
+        return ResponseEntity.ok(analyzeReader(body, type, alphabet, limit));
+    }
+
+    /**
+     * REST endpoint to analyze an uploaded UTF-8 text file.
+     * The upload is streamed from Spring's multipart storage and counted in bounded chunks.
+     *
+     * @param type The type of analysis: "vowels", "consonants", "word", "bigram" or "trigram".
+     * @param file The uploaded file, sent as the "file" part of a multipart/form-data request.
+     * @param alphabet The alphabet whose letters are counted; English by default. Ignored for WORD.
+     * @param limit For WORD, BIGRAM and TRIGRAM analysis, the number of most frequent words or n-grams to return; 0 returns all of them.
+     * @return A ResponseEntity containing the AnalysisResponse object. The original text is not echoed back.
+     * @throws IOException if reading the uploaded file fails.
+     * @throws TextLengthExceededException if the file exceeds the configured maximum stream length.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AnalysisResponse> analyzeFile(
+            @RequestParam AnalysisType type,
+            @RequestParam MultipartFile file,
+            @RequestParam(defaultValue = "ENGLISH") Alphabet alphabet,
+            @RequestParam(required = false) Integer limit) throws IOException {
+
+        AnalysisEvents.bindingFinished(type, -1);
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            return ResponseEntity.ok(analyzeReader(reader, type, alphabet, limit));
+        }
+    }
+
+    /**
+     * Runs the analysis for a non-blank text and builds the response.
+     */
+    private AnalysisResponse analyze(String text, AnalysisType type, Alphabet alphabet, int wordLimit) {
+        // Word and n-gram counts are already keyed by String and ordered by frequency.
+        if (type == AnalysisType.WORD) {
+            return new AnalysisResponse(textAnalyzerService.analyzeWords(text, wordLimit), text, type);
+        }
+        if (type.ngramLength() > 0) {
+            return new AnalysisResponse(textAnalyzerService.analyzeNGrams(text, type, alphabet, wordLimit), text, type, alphabet);
         }
 
         // Perform the text analysis using the service.
-        Map<Character, Integer> rawResult = textAnalyzerService.analyze(text, type);
+        Map<Character, Integer> rawResult = textAnalyzerService.analyze(text, type, alphabet);
+
+        // Convert the Character keys to String keys and create the structured response object.
+        AnalysisEvents.MappingEvent mapping = AnalysisEvents.startMapping();
+        AnalysisResponse response = AnalysisResponse.of(rawResult, text, type, alphabet);
+        mapping.finish(type, text.length());
+        return response;
+    }
 
-        // Convert the Character keys from the raw result to String keys to match the expected JSON output format for the frontend and DTO.
-        Map<String, Integer> result = rawResult.entrySet().stream()
-                .collect(Collectors.toMap(
-                        entry -> String.valueOf(entry.getKey()), // Convert Character to String
-                        Map.Entry::getValue // Keep the integer count
-                ));
+    /**
+     * Streams the reader through the service for the given analysis type. The original text is not echoed back.
+     */
+    private AnalysisResponse analyzeReader(Reader reader, AnalysisType type, Alphabet alphabet, Integer limit) throws IOException {
+        if (type == AnalysisType.WORD) {
+            return new AnalysisResponse(textAnalyzerService.analyzeWords(reader, maxStreamLength, wordLimit(limit)), null, type);
+        }
+        if (type.ngramLength() > 0) {
+            return new AnalysisResponse(textAnalyzerService.analyzeNGrams(reader, type, alphabet, maxStreamLength, wordLimit(limit)), null, type, alphabet);
+        }
+        Map<Character, Integer> rawResult = textAnalyzerService.analyze(reader, type, alphabet, maxStreamLength);
+        AnalysisEvents.MappingEvent mapping = AnalysisEvents.startMapping();
+        AnalysisResponse response = AnalysisResponse.of(rawResult, null, type, alphabet);
+        mapping.finish(type, -1); // The length read, as recorded by the analysis
+        return response;
+    }
 
-        // Create the structured response object.
-        AnalysisResponse response = new AnalysisResponse(result, text, type);
+    /**
+     * @return True if the client's most preferred media type is compatible with JSON: the one with the highest
+     * q-value, and among those the most specific, as in content negotiation.
+     */
+    private static boolean prefersJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            List<MediaType> mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(mediaTypes);
+            return !mediaTypes.isEmpty() && mediaTypes.get(0).isCompatibleWith(MediaType.APPLICATION_JSON);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException ex) {
+            return false; // Let content negotiation report the invalid header.
+        }
+    }
 
-        // Return the response with an HTTP 200 OK status.
-        return ResponseEntity.ok(response);
+    private int wordLimit(Integer limit) {
+        return limit != null ? limit : defaultWordLimit;
     }
 
 }
@@ -0,0 +1,20 @@
+package homework.textanalyzer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to be thrown when a batch analysis request holds more items than allowed.
+ * Automatically mapped to HTTP 413 Payload Too Large by Spring's @ResponseStatus.
+ */
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class BatchSizeExceededException extends RuntimeException {
+
+    /**
+     * Constructs a new BatchSizeExceededException with the specified detail message.
+     * @param message The detail message.
+     */
+    public BatchSizeExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package homework.textanalyzer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to be thrown when a request is well-formed HTTP but its content cannot be applied,
+ * e.g. a batch body that is not a JSON array.
+ * Automatically mapped to HTTP 400 Bad Request by Spring's @ResponseStatus.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidRequestException with the specified detail message.
+     * @param message The detail message.
+     */
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new InvalidRequestException with the specified detail message and cause.
+     * @param message The detail message.
+     * @param cause The exception raised for the request content.
+     */
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
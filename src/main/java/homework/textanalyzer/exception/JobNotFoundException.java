@@ -0,0 +1,20 @@
+package homework.textanalyzer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to be thrown when an analysis job does not exist or its result is no longer retained.
+ * Automatically mapped to HTTP 404 Not Found by Spring's @ResponseStatus.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class JobNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new JobNotFoundException with the specified detail message.
+     * @param message The detail message.
+     */
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+}
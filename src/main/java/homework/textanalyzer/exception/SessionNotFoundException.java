@@ -0,0 +1,20 @@
+package homework.textanalyzer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to be thrown when an analysis session does not exist, was closed or has expired.
+ * Automatically mapped to HTTP 404 Not Found by Spring's @ResponseStatus.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class SessionNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new SessionNotFoundException with the specified detail message.
+     * @param message The detail message.
+     */
+    public SessionNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package homework.textanalyzer.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception to be thrown when a shard of a sharded analysis could not be analyzed by any worker.
+ * Automatically mapped to HTTP 502 Bad Gateway by Spring's @ResponseStatus.
+ */
+@ResponseStatus(HttpStatus.BAD_GATEWAY)
+public class ShardAnalysisException extends RuntimeException {
+
+    /**
+     * Constructs a new ShardAnalysisException with the specified detail message.
+     * @param message The detail message.
+     */
+    public ShardAnalysisException(String message) {
+        super(message);
+    }
+}
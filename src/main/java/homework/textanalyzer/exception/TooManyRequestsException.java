@@ -0,0 +1,30 @@
+package homework.textanalyzer.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+
+/**
+ * Custom exception to be thrown when the server is at capacity and the client should retry later.
+ * Automatically mapped to HTTP 429 Too Many Requests by Spring's @ResponseStatus; the GlobalExceptionHandler
+ * adds a Retry-After header when a retry delay is known.
+ */
+@Getter
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TooManyRequestsException extends RuntimeException {
+
+    // Suggested delay before retrying, or null if unknown.
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new TooManyRequestsException with the specified detail message and retry delay.
+     * @param message The detail message.
+     * @param retryAfter The suggested delay before retrying, or null if unknown.
+     */
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
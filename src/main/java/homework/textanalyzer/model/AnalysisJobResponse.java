@@ -0,0 +1,36 @@
+package homework.textanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.JobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * DTO for the state of an asynchronous analysis job, including its result once it has succeeded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AnalysisJobResponse {
+    private String jobId;
+    private JobStatus status;
+    private Set<AnalysisType> analysisTypes;
+    private Alphabet alphabet;
+    private long totalBytes;
+    private long bytesProcessed;
+    private double progress; // Fraction of the input processed, from 0 to 1
+    private long bytesPerSecond; // Average throughput since the job started
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error; // Set for FAILED jobs
+    private Map<AnalysisType, Map<String, Integer>> results; // Set for SUCCEEDED jobs
+}
@@ -1,10 +1,13 @@
 package homework.textanalyzer.model; // Consider moving this to a 'dto' package later, e.g., homework.textanalyzer.dto
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import homework.textanalyzer.util.Alphabet;
 import homework.textanalyzer.util.AnalysisType; // Needed if AnalysisType is included in the response
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -16,6 +19,47 @@ import java.util.Map;
 @AllArgsConstructor
 public class AnalysisResponse {
     private Map<String, Integer> characterCounts;
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Left out when the text is not echoed back
     private String originalText;
     private AnalysisType analysisType;
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Only set for letter and n-gram analyses
+    private Alphabet alphabet;
+
+    public AnalysisResponse(Map<String, Integer> characterCounts, String originalText, AnalysisType analysisType) {
+        this(characterCounts, originalText, analysisType, null);
+    }
+
+    /**
+     * Builds a response from the service's raw result, converting the Character keys to String keys
+     * to match the expected JSON output format for the frontend.
+     * @param characterCounts The counts returned by the service, keyed by uppercase character.
+     * @param originalText The analyzed text, echoed back to the caller.
+     * @param analysisType The type of analysis that produced the counts.
+     * @return The structured response object.
+     */
+    public static AnalysisResponse of(Map<Character, Integer> characterCounts, String originalText, AnalysisType analysisType) {
+        return of(characterCounts, originalText, analysisType, null);
+    }
+
+    /**
+     * Builds a response from the service's raw result for a letter analysis in the given alphabet.
+     * @param characterCounts The counts returned by the service, keyed by uppercase character.
+     * @param originalText The analyzed text, echoed back to the caller.
+     * @param analysisType The type of analysis that produced the counts.
+     * @param alphabet The alphabet the letters were counted in.
+     * @return The structured response object.
+     */
+    public static AnalysisResponse of(Map<Character, Integer> characterCounts, String originalText, AnalysisType analysisType, Alphabet alphabet) {
+        // Presize the map so the conversion does not rehash on the way.
+        Map<String, Integer> result = HashMap.newHashMap(characterCounts.size());
+        characterCounts.forEach((character, count) -> result.put(String.valueOf(character), count));
+        return new AnalysisResponse(result, originalText, analysisType, alphabet);
+    }
+
+    /**
+     * @return A copy of this response that shares its counts but does not echo the original text.
+     */
+    public AnalysisResponse withoutOriginalText() {
+        return originalText == null ? this : new AnalysisResponse(characterCounts, null, analysisType, alphabet);
+    }
 }
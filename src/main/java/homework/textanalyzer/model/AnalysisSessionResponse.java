@@ -0,0 +1,23 @@
+package homework.textanalyzer.model;
+
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO for the current state of an incremental analysis session.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalysisSessionResponse {
+    private String sessionId;
+    private AnalysisType analysisType;
+    private Alphabet alphabet; // Null for WORD sessions
+    private long charactersAnalyzed; // Total length of all chunks appended (or merged) so far
+    private Map<String, Integer> characterCounts;
+}
@@ -0,0 +1,28 @@
+package homework.textanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO for an approximate word analysis and the error bounds it guarantees.
+ * Every count in wordCounts is at least the word's true count and exceeds it by at most frequencyErrorBound,
+ * with probability frequencyErrorConfidence.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApproximateAnalysisResponse {
+    private Map<String, Long> wordCounts; // Estimated counts of the most frequent words, most frequent first
+    private long totalWords; // Exact
+    private long distinctWords; // HyperLogLog estimate
+    private double distinctWordsRelativeError; // Relative standard error of distinctWords
+    private long frequencyErrorBound; // Most an estimated count exceeds the true count by
+    private double frequencyErrorConfidence; // Probability that frequencyErrorBound holds; 1 if it always does
+    private long memoryBytes; // Approximate size of the sketch, bounded by the configuration however long the input is
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Only when requested; Base64 in JSON
+    private byte[] sketch; // Serialized sketch, to be merged with others via POST /analyze/approximate/merge
+}
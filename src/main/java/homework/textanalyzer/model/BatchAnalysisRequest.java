@@ -0,0 +1,17 @@
+package homework.textanalyzer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a single item of a batch analysis request.
+ * The type is kept as sent and parsed per item, so an unknown type fails only its own item.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAnalysisRequest {
+    private String text;
+    private String type; // An AnalysisType name, case-insensitive
+}
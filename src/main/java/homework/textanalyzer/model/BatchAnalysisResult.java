@@ -0,0 +1,27 @@
+package homework.textanalyzer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of a single batch item.
+ * Holds either the analysis result or an error, so one failing item does not fail the whole batch.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchAnalysisResult {
+    private int index; // Position of the item in the request array
+    private int status; // HTTP status the item would have received as a single GET /analyze call
+    private AnalysisResponse result;
+    private String error;
+
+    public static BatchAnalysisResult success(int index, AnalysisResponse result) {
+        return new BatchAnalysisResult(index, 200, result, null);
+    }
+
+    public static BatchAnalysisResult failure(int index, int status, String error) {
+        return new BatchAnalysisResult(index, status, null, error);
+    }
+}
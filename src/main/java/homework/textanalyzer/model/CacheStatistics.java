@@ -0,0 +1,20 @@
+package homework.textanalyzer.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the analysis result cache counters.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatistics {
+    private long hits;
+    private long misses;
+    private long evictions; // Entries removed to respect the size bounds
+    private long expirations; // Entries dropped because their TTL elapsed
+    private int entries;
+    private long estimatedBytes;
+}
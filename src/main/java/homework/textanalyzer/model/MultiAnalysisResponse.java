@@ -0,0 +1,23 @@
+package homework.textanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO for a combined analysis: the counts of every requested analysis type, computed in one pass.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiAnalysisResponse {
+    private Map<AnalysisType, Map<String, Integer>> results; // One entry per requested type, keyed like AnalysisResponse.characterCounts
+    @JsonInclude(JsonInclude.Include.NON_NULL) // Left out when the text is not echoed back
+    private String originalText;
+    private Alphabet alphabet;
+}
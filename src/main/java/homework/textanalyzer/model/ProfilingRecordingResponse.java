@@ -0,0 +1,23 @@
+package homework.textanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO for the state of the flight recording and the file it was last dumped to.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProfilingRecordingResponse {
+    private boolean running;
+    private Instant startedAt; // Set while running
+    private String settings; // Set while running
+    private String file; // Absolute path of the last dump, if any
+    private Long fileSize; // In bytes
+}
@@ -0,0 +1,277 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.AnalysisType;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the stages of an analysis request, to tell where the time of a slow request went:
+ * <ul>
+ *     <li>homework.textanalyzer.Request - the whole request, from Spring MVC's interceptors to the response written</li>
+ *     <li>homework.textanalyzer.Binding - from the interceptors to the controller method, i.e. parameter binding</li>
+ *     <li>homework.textanalyzer.Analyze - counting in TextAnalyzerService (for every analysis, also outside requests)</li>
+ *     <li>homework.textanalyzer.Mapping - building the AnalysisResponse from the counts</li>
+ *     <li>homework.textanalyzer.Serialization - writing the response body, e.g. with Jackson</li>
+ * </ul>
+ * Each event carries the analysis type, the input length in chars, the stage's throughput in chars per second and
+ * the bytes the thread allocated during the stage. Events are recorded without stack traces, and a stage whose event
+ * is not enabled costs little more than the check, so they can stay in production code; they are recorded whenever a
+ * recording is running, e.g. one started with -XX:StartFlightRecording or through the {@link ProfilingService}.
+ * <p>
+ * The request stages of a servlet request are tied together by a thread-local set by the ProfilingInterceptor,
+ * since a request is handled on one thread from its interceptors to its response.
+ */
+public final class AnalysisEvents {
+
+    /**
+     * The type recorded for analyses that combine several types, as in the textanalyzer.analyze metric.
+     */
+    public static final String MULTI_TYPE = "MULTI";
+
+    private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+    // Only asked whether their event types are enabled, so requests need not allocate while no recording runs.
+    private static final RequestEvent REQUEST_PROBE = new RequestEvent();
+    private static final BindingEvent BINDING_PROBE = new BindingEvent();
+
+    private AnalysisEvents() {
+    }
+
+    /**
+     * Fields and timing shared by all stage events.
+     */
+    @Category({"Text Analyzer"})
+    @StackTrace(false)
+    public abstract static class StageEvent extends Event {
+
+        @Label("Analysis Type")
+        @Description("The analysis type, or MULTI for combined analyses")
+        String analysisType;
+
+        @Label("Input Length")
+        @Description("The number of chars analyzed; -1 for a request body that has not been read yet")
+        long inputLength;
+
+        @Label("Chars per Second")
+        @Description("The input length divided by the duration of the stage")
+        double charsPerSecond;
+
+        @Label("Allocated")
+        @Description("Heap bytes allocated by the thread during the stage; -1 when the JVM does not track them")
+        @DataAmount
+        long allocatedBytes;
+
+        private transient boolean started;
+        private transient long startNanos;
+        private transient long startAllocatedBytes;
+
+        /**
+         * Starts timing the stage; does nothing more if the event is not enabled.
+         */
+        void start() {
+            if (isEnabled()) {
+                started = true;
+                startNanos = System.nanoTime();
+                startAllocatedBytes = AnalyzerMetrics.currentThreadAllocatedBytes();
+                begin();
+            }
+        }
+
+        /**
+         * Ends the stage and commits the event if the recording settings (e.g. a threshold) want it.
+         * Does nothing if the stage was not started with the event enabled, or has already been finished.
+         * @param type The analysis type, or null if it is not known.
+         * @param inputLength The number of chars the stage processed, or -1 to use the current request's, if known.
+         */
+        public void finish(AnalysisType type, long inputLength) {
+            finish(type != null ? type.name() : null, inputLength);
+        }
+
+        void finish(String type, long inputLength) {
+            if (!started) {
+                return;
+            }
+            started = false;
+            end();
+            if (shouldCommit()) {
+                RequestProfile profile = CURRENT.get();
+                if (inputLength < 0 && profile != null) {
+                    inputLength = profile.inputLength;
+                }
+                long elapsedNanos = System.nanoTime() - startNanos;
+                long allocated = AnalyzerMetrics.currentThreadAllocatedBytes();
+                this.analysisType = type;
+                this.inputLength = inputLength;
+                this.charsPerSecond = inputLength > 0 && elapsedNanos > 0 ? inputLength * 1e9 / elapsedNanos : 0;
+                this.allocatedBytes = startAllocatedBytes >= 0 && allocated >= 0 ? allocated - startAllocatedBytes : -1;
+                commit();
+            }
+        }
+    }
+
+    @Name("homework.textanalyzer.Request")
+    @Label("Analysis Request")
+    @Description("An analysis request, from Spring MVC's interceptors until its response is written")
+    public static final class RequestEvent extends StageEvent {
+
+        @Label("Path")
+        String path;
+
+        @Label("Status")
+        int status;
+    }
+
+    @Name("homework.textanalyzer.Binding")
+    @Label("Parameter Binding")
+    @Description("Binding the request to the controller method's parameters")
+    public static final class BindingEvent extends StageEvent {
+    }
+
+    @Name("homework.textanalyzer.Analyze")
+    @Label("Analysis")
+    @Description("Counting letters, words or n-grams in TextAnalyzerService")
+    public static final class AnalyzeEvent extends StageEvent {
+    }
+
+    @Name("homework.textanalyzer.Mapping")
+    @Label("Response Mapping")
+    @Description("Building the response object from the counts")
+    public static final class MappingEvent extends StageEvent {
+    }
+
+    @Name("homework.textanalyzer.Serialization")
+    @Label("Response Serialization")
+    @Description("Writing the response body with the negotiated message converter")
+    public static final class SerializationEvent extends StageEvent {
+
+        @Label("Content Type")
+        String contentType;
+    }
+
+    /**
+     * The events of the request being handled on this thread.
+     */
+    private static final class RequestProfile {
+        private final RequestEvent request = new RequestEvent();
+        private final BindingEvent binding = new BindingEvent();
+        private SerializationEvent serialization;
+        private String type;
+        private long inputLength;
+    }
+
+    /**
+     * Starts the Request and Binding events of a request handled on this thread. Does nothing if neither is enabled.
+     * Must be followed by {@link #requestFinished(int)} on the same thread.
+     * @param path The request path.
+     */
+    public static void requestStarted(String path) {
+        if (!REQUEST_PROBE.isEnabled() && !BINDING_PROBE.isEnabled()) {
+            CURRENT.remove(); // In case an earlier request on this thread did not finish here
+            return;
+        }
+        RequestProfile profile = new RequestProfile();
+        profile.request.path = path;
+        profile.inputLength = -1;
+        profile.request.start();
+        profile.binding.start();
+        CURRENT.set(profile);
+    }
+
+    /**
+     * Ends the Binding event of the current request; called when the controller method starts.
+     * @param type The requested analysis type.
+     * @param inputLength The length of the text to analyze, or -1 for a request body that has not been read yet.
+     */
+    public static void bindingFinished(AnalysisType type, long inputLength) {
+        bindingFinished(type.name(), inputLength);
+    }
+
+    /**
+     * Ends the Binding event of a request that names no analysis type or text, e.g. one for a session or job by its ID;
+     * an analysis on the request still sets them for the later events.
+     */
+    public static void bindingFinished() {
+        bindingFinished((String) null, -1);
+    }
+
+    /**
+     * Ends the Binding event of the current request; called when the controller method starts.
+     * @param type The requested analysis type, or {@link #MULTI_TYPE} for several.
+     * @param inputLength The length of the text to analyze, or -1 for a request body that has not been read yet.
+     */
+    public static void bindingFinished(String type, long inputLength) {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.type = type;
+            profile.inputLength = inputLength;
+            profile.binding.finish(type, inputLength);
+        }
+    }
+
+    /**
+     * Starts the Serialization event of the current request, if any; ended by {@link #requestFinished(int)}.
+     * @param contentType The media type the body is written as.
+     */
+    public static void serializationStarted(String contentType) {
+        RequestProfile profile = CURRENT.get();
+        if (profile != null && profile.serialization == null) {
+            profile.serialization = new SerializationEvent();
+            profile.serialization.contentType = contentType;
+            profile.serialization.start();
+        }
+    }
+
+    /**
+     * Ends the events of the request handled on this thread and forgets it.
+     * @param status The response status.
+     */
+    public static void requestFinished(int status) {
+        RequestProfile profile = CURRENT.get();
+        if (profile == null) {
+            return;
+        }
+        CURRENT.remove();
+        if (profile.serialization != null) {
+            profile.serialization.finish(profile.type, profile.inputLength);
+        }
+        profile.request.status = status;
+        profile.request.finish(profile.type, profile.inputLength);
+    }
+
+    /**
+     * @return A started Mapping event, to be finished once the response object is built.
+     */
+    public static MappingEvent startMapping() {
+        MappingEvent event = new MappingEvent();
+        event.start();
+        return event;
+    }
+
+    /**
+     * @return A started Analyze event, finished by {@link #analyzed(AnalyzeEvent, String, long)}.
+     */
+    static AnalyzeEvent startAnalysis() {
+        AnalyzeEvent event = new AnalyzeEvent();
+        event.start();
+        return event;
+    }
+
+    /**
+     * Ends an Analyze event. Streamed inputs only know their length in chars once they are read, so the length
+     * is also passed on to the current request's later events.
+     */
+    static void analyzed(AnalyzeEvent event, String type, long inputLength) {
+        event.finish(type, inputLength);
+        RequestProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.type = type;
+            profile.inputLength = inputLength;
+        }
+    }
+
+}
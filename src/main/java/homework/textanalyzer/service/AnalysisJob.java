@@ -0,0 +1,155 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.model.AnalysisJobResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.JobStatus;
+import lombok.Getter;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * State of one asynchronous analysis: its input file, progress and, once finished, its result or error.
+ * The worker thread updates the state; request threads read it and may request cancellation.
+ */
+@Getter
+final class AnalysisJob {
+
+    private final String id;
+    private final Set<AnalysisType> types;
+    private final Alphabet alphabet;
+    private final int wordLimit;
+    private final Path source;
+    private final boolean temporarySource; // Uploaded files are deleted once the job finishes
+    private final long totalBytes;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile long bytesProcessed;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Map<AnalysisType, Map<String, Integer>> results;
+    private volatile boolean cancelRequested;
+    private volatile Future<?> future;
+
+    AnalysisJob(String id, Set<AnalysisType> types, Alphabet alphabet, int wordLimit, Path source, boolean temporarySource, long totalBytes) {
+        this.id = id;
+        this.types = types;
+        this.alphabet = alphabet;
+        this.wordLimit = wordLimit;
+        this.source = source;
+        this.temporarySource = temporarySource;
+        this.totalBytes = totalBytes;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Moves a queued job to RUNNING.
+     * @return false if the job was cancelled while it was queued.
+     */
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        status = JobStatus.RUNNING;
+        return true;
+    }
+
+    synchronized void succeed(Map<AnalysisType, Map<String, Integer>> results) {
+        this.results = results;
+        finish(JobStatus.SUCCEEDED);
+    }
+
+    synchronized void fail(String error) {
+        this.error = error;
+        finish(cancelRequested ? JobStatus.CANCELLED : JobStatus.FAILED);
+    }
+
+    /**
+     * Requests cancellation. A queued job is cancelled at once; a running job stops at its next read.
+     * @return false if the job had already finished.
+     */
+    synchronized boolean cancel() {
+        if (status.isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (status == JobStatus.QUEUED) {
+            finish(JobStatus.CANCELLED);
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+        return true;
+    }
+
+    private void finish(JobStatus finalStatus) {
+        finishedAt = Instant.now();
+        status = finalStatus;
+        if (finalStatus == JobStatus.CANCELLED) {
+            error = null;
+        }
+    }
+
+    /**
+     * Opens the input file; reads report progress and fail once cancellation is requested.
+     */
+    InputStream openSource() throws IOException {
+        return new FilterInputStream(Files.newInputStream(source)) {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (cancelRequested) {
+                    throw new InterruptedIOException("Job " + id + " was cancelled.");
+                }
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    bytesProcessed += read; // Only the worker thread writes this field.
+                }
+                return read;
+            }
+        };
+    }
+
+    void deleteTemporarySource() throws IOException {
+        if (temporarySource) {
+            Files.deleteIfExists(source);
+        }
+    }
+
+    AnalysisJobResponse toResponse() {
+        long processed = bytesProcessed;
+        Instant started = startedAt;
+        Instant finished = finishedAt;
+        long bytesPerSecond = 0;
+        if (started != null) {
+            long elapsedNanos = Duration.between(started, finished != null ? finished : Instant.now()).toNanos();
+            bytesPerSecond = elapsedNanos > 0 ? (long) (processed * 1e9 / elapsedNanos) : 0;
+        }
+        JobStatus current = status;
+        double progress = current == JobStatus.SUCCEEDED ? 1.0 : totalBytes > 0 ? Math.min(1.0, (double) processed / totalBytes) : 0.0;
+        return new AnalysisJobResponse(id, current, types, alphabet, totalBytes, processed, progress, bytesPerSecond,
+                submittedAt, started, finished, error, current == JobStatus.SUCCEEDED ? results : null);
+    }
+
+}
@@ -0,0 +1,374 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.JobNotFoundException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.model.AnalysisJobResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs analyses of very large UTF-8 files as background jobs, so no request stays open while a file is counted.
+ * A job analyzes an uploaded file or a file under the configured local directory; clients poll its status, progress
+ * and throughput, fetch the result once it has succeeded, or cancel it.
+ * <p>
+ * Jobs run on a small bounded pool with a bounded queue. When the queue is full, new jobs are rejected with 429 Too Many
+ * Requests instead of piling up. Finished jobs are kept for the configured retention time.
+ * When the {@link AnalysisResultStore} is enabled, results of content analyzed before are served from it, also after a restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalysisJobService {
+
+    private final TextAnalyzerService textAnalyzerService;
+
+    // Results of files analyzed before, kept across restarts; disabled unless text.analyzer.store.dir is set.
+    private final AnalysisResultStore resultStore;
+
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    // Number of jobs analyzed at the same time.
+    @Value("${text.analyzer.jobs.pool-size:2}")
+    private int poolSize = 2;
+
+    // Number of jobs that may wait for a worker; beyond this, submissions are rejected with 429.
+    @Value("${text.analyzer.jobs.queue-capacity:16}")
+    private int queueCapacity = 16;
+
+    @Value("${text.analyzer.jobs.max-file-size:10737418240}")
+    private long maxFileSize = 10L * 1024 * 1024 * 1024;
+
+    // How long finished jobs and their results are kept.
+    @Value("${text.analyzer.jobs.retention:1h}")
+    private Duration retention = Duration.ofHours(1);
+
+    // Suggested delay before resubmitting a rejected job.
+    @Value("${text.analyzer.jobs.retry-after:30s}")
+    private Duration retryAfter = Duration.ofSeconds(30);
+
+    // Directory that path-based jobs may read from; empty disables them.
+    @Value("${text.analyzer.jobs.allowed-dir:}")
+    private String allowedDir = "";
+
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit = 100;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void initExecutor() {
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofPlatform().name("analysis-job-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        jobs.values().forEach(AnalysisJob::cancel);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores an uploaded file and queues a job analyzing it.
+     * Multipart uploads are also bounded by spring.servlet.multipart.max-file-size; files up to the maximum job file
+     * size can be sent as a plain request body instead, see {@link #submit(Set, Alphabet, Integer, InputStream, long)}.
+     *
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; null for the default.
+     * @param file The uploaded UTF-8 text file.
+     * @return The queued job's state, including its ID.
+     * @throws InvalidRequestException if no analysis type is given.
+     * @throws TooManyRequestsException if the job queue is full.
+     * @throws TextLengthExceededException if the file exceeds the maximum job file size.
+     */
+    public AnalysisJobResponse submit(Set<AnalysisType> types, Alphabet alphabet, Integer wordLimit, MultipartFile file) throws IOException {
+        requireTypes(types);
+        checkCapacity();
+        checkSize(file.getSize());
+        Path upload = Files.createTempFile("analysis-job-", ".txt");
+        try {
+            file.transferTo(upload);
+            return submit(types, alphabet, wordLimit, upload, true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(upload);
+            throw ex;
+        }
+    }
+
+    /**
+     * Spools a request body to a temporary file and queues a job analyzing it.
+     * Unlike a multipart upload, the body is only bounded by the maximum job file size, which is checked against the
+     * declared length up front and against the bytes actually received while copying.
+     *
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; null for the default.
+     * @param body The UTF-8 text; read to the end but not closed.
+     * @param contentLength The declared length of the body in bytes, or -1 if it is not known.
+     * @return The queued job's state, including its ID.
+     * @throws InvalidRequestException if no analysis type is given.
+     * @throws TooManyRequestsException if the job queue is full.
+     * @throws TextLengthExceededException if the body exceeds the maximum job file size.
+     */
+    public AnalysisJobResponse submit(Set<AnalysisType> types, Alphabet alphabet, Integer wordLimit, InputStream body, long contentLength) throws IOException {
+        requireTypes(types);
+        checkCapacity();
+        checkSize(contentLength);
+        Path upload = Files.createTempFile("analysis-job-", ".txt");
+        try {
+            try (OutputStream out = Files.newOutputStream(upload)) {
+                byte[] buffer = new byte[64 * 1024];
+                long copied = 0;
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    copied += read;
+                    checkSize(copied);
+                    out.write(buffer, 0, read);
+                }
+            }
+            return submit(types, alphabet, wordLimit, upload, true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(upload);
+            throw ex;
+        }
+    }
+
+    /**
+     * Queues a job analyzing a file that is already on the server, under the configured allowed directory.
+     *
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; null for the default.
+     * @param path The file's path, relative to the allowed directory.
+     * @return The queued job's state, including its ID.
+     * @throws InvalidRequestException if path-based jobs are disabled, or the path is outside the allowed directory or not a file.
+     * @throws TooManyRequestsException if the job queue is full.
+     * @throws TextLengthExceededException if the file exceeds the maximum job file size.
+     */
+    public AnalysisJobResponse submit(Set<AnalysisType> types, Alphabet alphabet, Integer wordLimit, String path) throws IOException {
+        Path file = resolveAllowedFile(allowedDir, path);
+        requireTypes(types);
+        checkCapacity();
+        checkSize(Files.size(file));
+        return submit(types, alphabet, wordLimit, file, false);
+    }
+
+    /**
+     * Resolves a client-supplied path against the directory that local files may be read from.
+     * @param allowedDir The allowed directory; blank disables reading local files.
+     * @param path The file's path, relative to the allowed directory.
+     * @return The file's absolute, normalized path.
+     * @throws InvalidRequestException if reading local files is disabled, or the path is outside the allowed directory or not a file.
+     */
+    static Path resolveAllowedFile(String allowedDir, String path) throws IOException {
+        if (allowedDir.isBlank()) {
+            throw new InvalidRequestException("Analyzing local files is disabled; set text.analyzer.jobs.allowed-dir to enable it.");
+        }
+        Path root = Path.of(allowedDir).toRealPath();
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root) || !Files.isRegularFile(file) || !file.toRealPath().startsWith(root)) {
+            throw new InvalidRequestException("Path " + path + " is not a file under the allowed directory.");
+        }
+        return file;
+    }
+
+    private AnalysisJobResponse submit(Set<AnalysisType> types, Alphabet alphabet, Integer wordLimit, Path source, boolean temporary) throws IOException {
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), requireTypes(types),
+                alphabet != null ? alphabet : Alphabet.ENGLISH, wordLimit != null ? wordLimit : defaultWordLimit,
+                source, temporary, Files.size(source));
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.getId());
+            throw queueFull();
+        }
+        return job.toResponse();
+    }
+
+    /**
+     * @return The job's status and progress, and its result if it has succeeded.
+     * @throws JobNotFoundException if the job does not exist or is no longer retained.
+     */
+    public AnalysisJobResponse get(String jobId) {
+        return find(jobId).toResponse();
+    }
+
+    /**
+     * Cancels a queued or running job; a finished job is removed together with its result.
+     * @return The job's state after the request.
+     * @throws JobNotFoundException if the job does not exist or is no longer retained.
+     * @throws IOException if the upload of a cancelled job cannot be deleted.
+     */
+    public AnalysisJobResponse cancel(String jobId) throws IOException {
+        AnalysisJob job = find(jobId);
+        if (!job.cancel()) {
+            jobs.remove(jobId);
+        } else if (job.getStartedAt() == null) {
+            // Never started, so the worker will not clean up after it: free its queue slot and its upload here.
+            executor.purge();
+            job.deleteTemporarySource();
+        }
+        return job.toResponse();
+    }
+
+    /**
+     * Removes finished jobs older than the retention time.
+     */
+    @Scheduled(fixedDelayString = "${text.analyzer.jobs.sweep-interval:60000}")
+    public void expireFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getStatus().isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private void run(AnalysisJob job) {
+        try {
+            if (!job.start()) {
+                return; // Cancelled while queued.
+            }
+            try {
+                job.succeed(analyze(job));
+            } catch (IOException | RuntimeException ex) {
+                job.fail("Analysis failed: " + ex.getMessage());
+            }
+        } finally {
+            try {
+                job.deleteTemporarySource();
+            } catch (IOException ex) {
+                log.warn("Could not delete the upload of job {}: {}", job.getId(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Serves as much of the job as possible from the result store and analyzes only the types it does not hold.
+     * An unchanged file that was analyzed before is known by its fingerprint, so it is not read at all if the store
+     * holds every type. Any other input is hashed while it is counted, in the same pass, and its results are stored
+     * under that hash: identical content under another name is read again, but then found by its fingerprint.
+     */
+    private Map<AnalysisType, Map<String, Integer>> analyze(AnalysisJob job) throws IOException {
+        if (!resultStore.isEnabled()) {
+            return analyzeSource(job, job.getTypes(), null);
+        }
+        AnalysisResultStore.Fingerprint fingerprint = AnalysisResultStore.fingerprint(job.getSource());
+        String contentHash = job.isTemporarySource() ? null : resultStore.contentHashOf(fingerprint);
+
+        Map<AnalysisType, Map<String, Integer>> results = new EnumMap<>(AnalysisType.class);
+        Set<AnalysisType> missing = EnumSet.noneOf(AnalysisType.class);
+        for (AnalysisType type : job.getTypes()) {
+            Map<String, Integer> stored = contentHash != null ? resultStore.get(contentHash, type, job.getAlphabet(), job.getWordLimit()) : null;
+            if (stored != null) {
+                results.put(type, stored);
+            } else {
+                missing.add(type);
+            }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        MessageDigest digest = contentHash == null ? AnalysisResultStore.contentDigest() : null;
+        Map<AnalysisType, Map<String, Integer>> analyzed = analyzeSource(job, missing, digest);
+        if (digest != null) {
+            contentHash = AnalysisResultStore.contentHash(digest);
+        }
+        // A file changed while it was read no longer matches its hash, so its results are not stored.
+        if (fingerprint.equals(AnalysisResultStore.fingerprint(job.getSource()))) {
+            for (Map.Entry<AnalysisType, Map<String, Integer>> result : analyzed.entrySet()) {
+                resultStore.put(contentHash, result.getKey(), job.getAlphabet(), job.getWordLimit(), result.getValue());
+            }
+            if (!job.isTemporarySource()) {
+                resultStore.putContentHash(fingerprint, contentHash);
+            }
+        }
+        results.putAll(analyzed);
+        return results;
+    }
+
+    /**
+     * Counts the job's input for the given types.
+     * @param digest If not null, updated with every byte read, so the input is hashed in the same pass.
+     */
+    private Map<AnalysisType, Map<String, Integer>> analyzeSource(AnalysisJob job, Set<AnalysisType> types, MessageDigest digest) throws IOException {
+        InputStream source = job.openSource();
+        try (Reader reader = new InputStreamReader(digest != null ? new DigestInputStream(source, digest) : source, StandardCharsets.UTF_8)) {
+            return textAnalyzerService.analyzeAll(reader, types, job.getAlphabet(), Long.MAX_VALUE, job.getWordLimit());
+        }
+    }
+
+    /**
+     * Rejects a submission early, before an upload is copied, when every worker is busy and the queue is full.
+     * The executor still has the final word, since the queue may fill up in the meantime.
+     */
+    private void checkCapacity() {
+        if (executor.getQueue().remainingCapacity() == 0 && executor.getActiveCount() >= poolSize) {
+            throw queueFull();
+        }
+    }
+
+    /**
+     * @return The requested types without the null an empty "types=" parameter binds to.
+     * @throws InvalidRequestException if no type is requested.
+     */
+    private static Set<AnalysisType> requireTypes(Set<AnalysisType> types) {
+        Set<AnalysisType> requested = EnumSet.noneOf(AnalysisType.class);
+        types.stream().filter(Objects::nonNull).forEach(requested::add);
+        if (requested.isEmpty()) {
+            throw new InvalidRequestException("At least one analysis type is required.");
+        }
+        return requested;
+    }
+
+    private void checkSize(long size) {
+        if (size > maxFileSize) {
+            throw new TextLengthExceededException("Input file exceeds maximum allowed size of " + maxFileSize + " bytes.");
+        }
+    }
+
+    private TooManyRequestsException queueFull() {
+        return new TooManyRequestsException("The analysis job queue is full (" + queueCapacity + " jobs waiting).", retryAfter);
+    }
+
+    private AnalysisJob find(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException("Job " + jobId + " does not exist or is no longer retained.");
+        }
+        return job;
+    }
+
+}
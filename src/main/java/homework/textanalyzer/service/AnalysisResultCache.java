@@ -0,0 +1,231 @@
+package homework.textanalyzer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.model.CacheStatistics;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of analysis results keyed by (type, word limit, text), placed in front of TextAnalyzerService.
+ * Bounded both by entry count and by an estimate of the bytes it holds; entries also expire after a TTL.
+ * Optionally keeps the serialized JSON of each response so repeated requests skip Jackson as well.
+ * Its counters are published as textanalyzer.cache.* meters.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalysisResultCache implements MeterBinder {
+
+    // Rough per-entry overhead of the key, entry and map node objects.
+    private static final long ENTRY_OVERHEAD_BYTES = 160;
+    // Rough size of one count in the response map (String key, Integer value and map node).
+    private static final long COUNT_ENTRY_BYTES = 96;
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    /**
+     * A cached result: the response object and, when serialized caching is enabled, its JSON bytes.
+     * Cached results are shared by every request for the same text, so the counts are kept in an unmodifiable map
+     * and each call to {@link #response()} returns a new response object over them: a caller that changes its
+     * response object does not change the cached one. The JSON bytes are only ever written out, never modified.
+     */
+    public record CachedAnalysis(AnalysisResponse response, byte[] json) {
+
+        public CachedAnalysis {
+            // Copied in iteration order, which is the frequency order of word and n-gram counts.
+            response = new AnalysisResponse(Collections.unmodifiableMap(new LinkedHashMap<>(response.getCharacterCounts())),
+                    response.getOriginalText(), response.getAnalysisType(), response.getAlphabet());
+        }
+
+        /**
+         * @return A copy of the cached response that shares its unmodifiable counts.
+         */
+        @Override
+        public AnalysisResponse response() {
+            return new AnalysisResponse(response.getCharacterCounts(), response.getOriginalText(),
+                    response.getAnalysisType(), response.getAlphabet());
+        }
+    }
+
+    private record Key(AnalysisType type, Alphabet alphabet, int limit, String text) {
+    }
+
+    private record Entry(CachedAnalysis value, long weight, long expiresAtNanos) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${text.analyzer.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${text.analyzer.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${text.analyzer.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    // Zero disables expiry.
+    @Value("${text.analyzer.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${text.analyzer.cache.serialized:false}")
+    private boolean serialized;
+
+    // Access-ordered, so iteration starts at the least recently used entry. Guarded by 'this'.
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Looks up a cached result.
+     * @param type The analysis type.
+     * @param alphabet The alphabet; ignored for WORD.
+     * @param limit The word limit; ignored for letter analysis types.
+     * @param text The analyzed text.
+     * @return The cached result, or null on a miss (or when the cache is disabled).
+     */
+    public CachedAnalysis get(AnalysisType type, Alphabet alphabet, int limit, String text) {
+        if (!enabled) {
+            return null;
+        }
+        Key key = key(type, alphabet, limit, text);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                remove(key, entry);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value();
+        }
+    }
+
+    /**
+     * Stores a freshly computed result, serializing it first if serialized caching is enabled.
+     * Least recently used entries are evicted until both size bounds hold again.
+     * @param type The analysis type.
+     * @param alphabet The alphabet; ignored for WORD.
+     * @param limit The word limit; ignored for letter analysis types.
+     * @param text The analyzed text.
+     * @param response The result to cache.
+     * @return The value to answer the current request with, whether or not it was cached.
+     */
+    public CachedAnalysis put(AnalysisType type, Alphabet alphabet, int limit, String text, AnalysisResponse response) {
+        CachedAnalysis value = new CachedAnalysis(response, serialized ? serialize(response) : null);
+        if (!enabled) {
+            return value;
+        }
+        long weight = weigh(text, response, value.json());
+        if (weight > maxBytes) {
+            return value; // Would evict everything else; not worth caching.
+        }
+        long expiresAt = ttl.isZero() ? NO_EXPIRY : System.nanoTime() + ttl.toNanos();
+        Key key = key(type, alphabet, limit, text);
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(value, weight, expiresAt));
+            if (previous != null) {
+                totalBytes -= previous.weight();
+            }
+            totalBytes += weight;
+            evictOverflow();
+        }
+        return value;
+    }
+
+    /**
+     * @return The current hit, miss and eviction counters and the cache's size.
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), entries.size(), totalBytes);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("textanalyzer.cache.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("textanalyzer.cache.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("textanalyzer.cache.evictions", evictions, LongAdder::sum).register(registry);
+        FunctionCounter.builder("textanalyzer.cache.expirations", expirations, LongAdder::sum).register(registry);
+        Gauge.builder("textanalyzer.cache.entries", this, cache -> cache.getStatistics().getEntries()).register(registry);
+        Gauge.builder("textanalyzer.cache.size", this, cache -> cache.getStatistics().getEstimatedBytes()).baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Removes every cached entry. Counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        totalBytes -= entry.weight();
+    }
+
+    private static boolean isExpired(Entry entry) {
+        // Compare by difference, since System.nanoTime() may overflow.
+        return entry.expiresAtNanos() != NO_EXPIRY && System.nanoTime() - entry.expiresAtNanos() > 0;
+    }
+
+    /**
+     * Builds the lookup key; the limit only matters for WORD and n-grams, the alphabet for every type but WORD.
+     */
+    private static Key key(AnalysisType type, Alphabet alphabet, int limit, String text) {
+        if (type == AnalysisType.WORD) {
+            return new Key(type, null, limit, text);
+        }
+        return new Key(type, alphabet != null ? alphabet : Alphabet.ENGLISH, type.ngramLength() > 0 ? limit : 0, text);
+    }
+
+    private static long weigh(String text, AnalysisResponse response, byte[] json) {
+        // The key and the response share the text, so it is only counted once (two bytes per char at worst).
+        long weight = ENTRY_OVERHEAD_BYTES + 2L * text.length();
+        weight += COUNT_ENTRY_BYTES * response.getCharacterCounts().size();
+        if (json != null) {
+            weight += json.length;
+        }
+        return weight;
+    }
+
+    private byte[] serialize(AnalysisResponse response) {
+        try {
+            return objectMapper.writeValueAsBytes(response);
+        } catch (JsonProcessingException ex) {
+            return null; // Fall back to letting the message converter serialize the response object.
+        }
+    }
+
+}
@@ -0,0 +1,413 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.LetterTable;
+import homework.textanalyzer.util.Varints;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent store of analysis results keyed by the SHA-256 hash of the analyzed content, the analysis type,
+ * the alphabet and (for WORD and n-grams) the result limit, so documents analyzed again after a restart are not counted again.
+ * It also remembers which content hash a file had at a given size and modification time, so an unchanged file
+ * can be answered without reading it at all. It backs background jobs over whole documents; short GET texts are
+ * cheaper to count again than to hash and look up, so the in-memory {@link AnalysisResultCache} does not use it.
+ * <p>
+ * Everything lives in one append-only file under text.analyzer.store.dir; the store is disabled when no directory is set.
+ * On startup only the record headers are read to rebuild a small in-memory index of file offsets; counts stay on
+ * disk until requested. A record torn by a crash at the end of the file is cut off, and a record whose checksum does
+ * not match is dropped from the index, so its result is computed and appended again.
+ * <p>
+ * Appends are forced to the storage device in bounded batches: once sync-records records are pending, and otherwise
+ * every sync-interval milliseconds. A power failure loses at most those pending results, which are simply computed
+ * again; a sync-records of 1 forces every record. The file format (all integers big-endian unless noted):
+ * <pre>
+ * "TARS" version:byte
+ * per record: length:int (of what follows), kind:byte, payload, crc32:int (of kind and payload)
+ * RESULT (kind 1): sha256:32 bytes, type code:byte, alphabet code:byte (-1 for WORD), word limit:int, counts:
+ *   VOWELS, CONSONANTS: one {@link Varints varint} count per letter of the alphabet's set, in table order
+ *   WORD, BIGRAM, TRIGRAM: varint number of entries, then per entry: varint UTF-8 byte length, the bytes, varint count
+ * FILE (kind 2): size:long, last modified millis:long, sha256:32 bytes, absolute path (UTF-8, rest of the payload)
+ * </pre>
+ * Records are never rewritten: a result is only appended the first time its key is stored.
+ */
+@Slf4j
+@Component
+public class AnalysisResultStore implements MeterBinder {
+
+    static final String FILE_NAME = "results.store";
+
+    private static final byte[] MAGIC = {'T', 'A', 'R', 'S'};
+    private static final byte VERSION = 1;
+    private static final byte RESULT = 1;
+    private static final byte FILE = 2;
+    private static final int HASH_LENGTH = 32;
+    // Length, kind and checksum around each payload.
+    private static final int RECORD_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private record ResultKey(String contentHash, AnalysisType type, Alphabet alphabet, int wordLimit) {
+    }
+
+    /**
+     * Identifies a file version by its location, size and modification time.
+     */
+    record Fingerprint(String path, long size, long lastModifiedMillis) {
+    }
+
+    // Directory holding the store file; empty disables the store.
+    @Value("${text.analyzer.store.dir:}")
+    private String dir = "";
+
+    // Number of appended records after which the file is forced to the storage device.
+    @Value("${text.analyzer.store.sync-records:64}")
+    private int syncRecords = 64;
+
+    private FileChannel channel;
+    // Records appended since the file was last forced. Guarded by 'this'.
+    private int unsyncedRecords;
+    private final Map<ResultKey, Long> offsets = new ConcurrentHashMap<>();
+    private final Map<Fingerprint, String> fileHashes = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Opens the store file, creating it if needed, and indexes its records.
+     */
+    @PostConstruct
+    void open() throws IOException {
+        if (dir.isBlank()) {
+            return;
+        }
+        Path directory = Files.createDirectories(Path.of(dir));
+        channel = FileChannel.open(directory.resolve(FILE_NAME),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1).put(MAGIC).put(VERSION).flip();
+            writeFully(header, 0);
+        } else {
+            readIndex();
+        }
+        log.info("Opened analysis result store {} with {} results and {} known files",
+                directory.resolve(FILE_NAME), offsets.size(), fileHashes.size());
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            sync();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Forces records appended since the last sync to the storage device.
+     */
+    @Scheduled(fixedDelayString = "${text.analyzer.store.sync-interval:1000}")
+    synchronized void sync() throws IOException {
+        if (channel != null && unsyncedRecords > 0) {
+            channel.force(false);
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * @return A new digest for the SHA-256 content hashes results are stored under.
+     */
+    static MessageDigest contentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex); // Every JVM is required to provide it.
+        }
+    }
+
+    /**
+     * @return The hex content hash of everything the digest was updated with.
+     */
+    static String contentHash(MessageDigest digest) {
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * @return Whether a store directory is configured.
+     */
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    /**
+     * Captures a file's current identity, to be looked up with {@link #contentHashOf(Fingerprint)}.
+     */
+    static Fingerprint fingerprint(Path file) throws IOException {
+        return new Fingerprint(file.toAbsolutePath().toString(), Files.size(file), Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /**
+     * @return The content hash recorded for this exact file version, or null if it is not known.
+     */
+    String contentHashOf(Fingerprint fingerprint) {
+        return isEnabled() ? fileHashes.get(fingerprint) : null;
+    }
+
+    /**
+     * Records the content hash of a file version, so it can be found again without reading the file.
+     */
+    synchronized void putContentHash(Fingerprint fingerprint, String contentHash) throws IOException {
+        if (!isEnabled() || contentHash.equals(fileHashes.get(fingerprint))) {
+            return;
+        }
+        byte[] path = fingerprint.path().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(2 * Long.BYTES + HASH_LENGTH + path.length)
+                .putLong(fingerprint.size())
+                .putLong(fingerprint.lastModifiedMillis())
+                .put(HEX.parseHex(contentHash))
+                .put(path);
+        append(FILE, payload.array());
+        fileHashes.put(fingerprint, contentHash);
+    }
+
+    /**
+     * Reads a stored result.
+     * @param contentHash The hex SHA-256 hash of the analyzed content.
+     * @param type The analysis type.
+     * @param alphabet The alphabet of a letter or n-gram analysis; ignored for WORD.
+     * @param wordLimit The limit of a WORD or n-gram analysis; ignored for single-letter types.
+     * @return The counts, keyed like the API responses, or null if the result is not stored.
+     */
+    Map<String, Integer> get(String contentHash, AnalysisType type, Alphabet alphabet, int wordLimit) throws IOException {
+        if (!isEnabled()) {
+            return null;
+        }
+        ResultKey key = key(contentHash, type, alphabet, wordLimit);
+        Long offset = offsets.get(key);
+        byte[] record = offset != null ? readRecord(offset) : null;
+        if (record == null) {
+            if (offset != null) {
+                offsets.remove(key, offset); // Damaged, so the next put appends the result again.
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return decodeCounts(key, record);
+    }
+
+    /**
+     * Stores a result; a result already stored under the same key is kept.
+     * @param counts The counts, keyed like the API responses.
+     */
+    synchronized void put(String contentHash, AnalysisType type, Alphabet alphabet, int wordLimit, Map<String, Integer> counts) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        ResultKey key = key(contentHash, type, alphabet, wordLimit);
+        if (offsets.containsKey(key)) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(HEX.parseHex(contentHash));
+        out.writeByte(type.getCode());
+        out.writeByte(key.alphabet() != null ? key.alphabet().getCode() : -1);
+        out.writeInt(key.wordLimit());
+        LetterTable table = key.alphabet() != null ? key.alphabet().tableFor(type) : null;
+        if (table != null) {
+            for (int slot = 0; slot < table.size(); slot++) {
+                Varints.write(out, counts.getOrDefault(String.valueOf(table.letterAt(slot)), 0));
+            }
+        } else {
+            Varints.write(out, counts.size());
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                byte[] word = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                Varints.write(out, word.length);
+                out.write(word);
+                Varints.write(out, entry.getValue());
+            }
+        }
+        offsets.put(key, append(RESULT, bytes.toByteArray()));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("textanalyzer.store.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("textanalyzer.store.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        Gauge.builder("textanalyzer.store.entries", offsets, Map::size).register(registry);
+    }
+
+    private static ResultKey key(String contentHash, AnalysisType type, Alphabet alphabet, int wordLimit) {
+        // Letter results do not depend on the limit, and words do not depend on the alphabet; n-grams depend on both.
+        if (type == AnalysisType.WORD) {
+            return new ResultKey(contentHash, type, null, wordLimit);
+        }
+        return new ResultKey(contentHash, type, alphabet != null ? alphabet : Alphabet.ENGLISH, type.ngramLength() > 0 ? wordLimit : 0);
+    }
+
+    /**
+     * Scans the record headers after the file header, indexing results by offset and loading file fingerprints.
+     * Stops at the first record that does not fit in the file, which is cut off as torn by an interrupted write.
+     */
+    private void readIndex() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1);
+        readFully(header, 0);
+        if (!Arrays.equals(Arrays.copyOf(header.array(), MAGIC.length), MAGIC) || header.get(MAGIC.length) != VERSION) {
+            throw new IOException("Not an analysis result store, or an unsupported version.");
+        }
+
+        long size = channel.size();
+        long position = header.capacity();
+        // Length and kind, followed by the fixed part of a RESULT payload.
+        ByteBuffer recordHeader = ByteBuffer.allocate(Integer.BYTES + 1 + HASH_LENGTH + 2 + Integer.BYTES);
+        while (position + Integer.BYTES < size) {
+            recordHeader.clear();
+            recordHeader.limit((int) Math.min(recordHeader.capacity(), size - position));
+            readFully(recordHeader, position);
+            int length = recordHeader.getInt(0);
+            if (length < 1 + Integer.BYTES || position + Integer.BYTES + length > size) {
+                break;
+            }
+            byte kind = recordHeader.get(Integer.BYTES);
+            if (kind == RESULT && recordHeader.limit() == recordHeader.capacity()) {
+                AnalysisType type = AnalysisType.fromCode(recordHeader.get(Integer.BYTES + 1 + HASH_LENGTH));
+                int alphabetCode = recordHeader.get(Integer.BYTES + 1 + HASH_LENGTH + 1);
+                Alphabet alphabet = alphabetCode >= 0 ? Alphabet.fromCode(alphabetCode) : null;
+                if (type != null && (alphabet != null || alphabetCode < 0)) {
+                    String hash = HEX.formatHex(recordHeader.array(), Integer.BYTES + 1, Integer.BYTES + 1 + HASH_LENGTH);
+                    int wordLimit = recordHeader.getInt(Integer.BYTES + 1 + HASH_LENGTH + 2);
+                    offsets.put(new ResultKey(hash, type, alphabet, wordLimit), position);
+                }
+            } else if (kind == FILE) {
+                byte[] record = readRecord(position);
+                if (record != null) {
+                    ByteBuffer payload = ByteBuffer.wrap(record);
+                    long fileSize = payload.getLong();
+                    long lastModified = payload.getLong();
+                    String hash = HEX.formatHex(record, payload.position(), payload.position() + HASH_LENGTH);
+                    String path = new String(record, payload.position() + HASH_LENGTH, record.length - payload.position() - HASH_LENGTH, StandardCharsets.UTF_8);
+                    fileHashes.put(new Fingerprint(path, fileSize, lastModified), hash);
+                }
+            }
+            // Unknown kinds are skipped, so newer record types do not break older readers.
+            position += Integer.BYTES + length;
+        }
+        if (position < size) {
+            log.warn("Truncating {} bytes of an incomplete record at the end of the analysis result store", size - position);
+            channel.truncate(position);
+        }
+    }
+
+    /**
+     * Reads the payload of the record at the given offset and checks it against its checksum.
+     * @return The payload without the kind byte, or null if the record is damaged.
+     */
+    private byte[] readRecord(long offset) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        readFully(lengthBuffer, offset);
+        int length = lengthBuffer.getInt(0);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(record, offset + Integer.BYTES);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, length - Integer.BYTES);
+        if ((int) crc.getValue() != record.getInt(length - Integer.BYTES)) {
+            log.warn("Ignoring a damaged record at offset {} of the analysis result store", offset);
+            return null;
+        }
+        return Arrays.copyOfRange(record.array(), 1, length - Integer.BYTES);
+    }
+
+    private static Map<String, Integer> decodeCounts(ResultKey key, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        in.skipNBytes(HASH_LENGTH + 2 + Integer.BYTES);
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        LetterTable table = key.alphabet() != null ? key.alphabet().tableFor(key.type()) : null;
+        if (table != null) {
+            for (int slot = 0; slot < table.size(); slot++) {
+                int count = Varints.read(in);
+                if (count > 0) {
+                    counts.put(String.valueOf(table.letterAt(slot)), count);
+                }
+            }
+        } else {
+            int words = Varints.read(in);
+            for (int i = 0; i < words; i++) {
+                byte[] word = new byte[Varints.read(in)];
+                in.readFully(word);
+                counts.put(new String(word, StandardCharsets.UTF_8), Varints.read(in));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Appends a record at the end of the file, forcing it and those before it once a batch is complete.
+     * @return The record's offset.
+     */
+    private long append(byte kind, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(kind);
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length)
+                .putInt(1 + payload.length + Integer.BYTES)
+                .put(kind)
+                .put(payload)
+                .putInt((int) crc.getValue())
+                .flip();
+        long offset = channel.size();
+        writeFully(record, offset);
+        if (++unsyncedRecords >= syncRecords) {
+            sync();
+        }
+        return offset;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of the analysis result store.");
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+}
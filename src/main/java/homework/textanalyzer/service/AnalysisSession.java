@@ -0,0 +1,161 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.AnalysisSessionResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.LetterTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Running state of an incremental analysis: a primitive histogram (letters), n-gram matrix (BIGRAM, TRIGRAM) or
+ * word table (WORD) that each appended chunk is counted into, so only the new text is scanned.
+ * Sessions of the same type can be merged.
+ * <p>
+ * The counts are guarded by the session's monitor. An appended chunk is read from the client before the monitor is
+ * taken, so a slow upload does not hold up reads and merges of the session, and an append rejected as too long
+ * leaves the counts unchanged.
+ */
+final class AnalysisSession {
+
+    private final String id;
+    private final AnalysisType type;
+    private final Alphabet alphabet; // Null for WORD
+    private final LetterHistogram letters; // Set for letter-based types
+    private final NGramHistogram ngrams; // Set for n-gram types
+    private final WordHistogram words; // Set for WORD
+    private long charactersAnalyzed;
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    AnalysisSession(String id, AnalysisType type, Alphabet alphabet) {
+        this.id = id;
+        this.type = type;
+        LetterTable table = TextAnalyzerService.letterTableFor(type, alphabet);
+        boolean ngram = type.ngramLength() > 0;
+        this.alphabet = table != null || ngram ? (alphabet != null ? alphabet : Alphabet.ENGLISH) : null;
+        this.letters = table != null ? new LetterHistogram(table) : null;
+        this.ngrams = ngram ? new NGramHistogram(this.alphabet.getLetters(), type.ngramLength()) : null;
+        this.words = table == null && !ngram ? new WordHistogram() : null;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    AnalysisType getType() {
+        return type;
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    /**
+     * @return The bytes held by the session's n-gram matrix, or 0 for other types.
+     */
+    long getMatrixBytes() {
+        return ngrams != null ? NGramHistogram.matrixBytes(alphabet.getLetters(), type.ngramLength()) : 0;
+    }
+
+    /**
+     * Counts the next chunk of text. A WORD or n-gram split across two chunks is counted once.
+     * Letters are counted into a scratch histogram while the chunk is read, and merged once it is complete.
+     * Words and n-grams continue from the end of the previous chunk, so the chunk (at most maxLength chars)
+     * is buffered and counted once it is complete. Concurrent appends are applied in the order they complete.
+     * @return The number of chars appended.
+     * @throws TextLengthExceededException if the chunk exceeds maxLength; nothing of it is counted.
+     */
+    long append(Reader reader, long maxLength) throws IOException {
+        lastAccessNanos = System.nanoTime();
+        if (letters != null) {
+            LetterHistogram chunk = new LetterHistogram(letters.getTable());
+            long appended = TextAnalyzerService.readInChunks(reader, maxLength, chunk::count);
+            synchronized (this) {
+                letters.merge(chunk);
+                charactersAnalyzed += appended;
+            }
+            return appended;
+        }
+        StringBuilder chunk = new StringBuilder();
+        TextAnalyzerService.readInChunks(reader, maxLength, (chars, from, to) -> chunk.append(chars, from, to - from));
+        synchronized (this) {
+            lastAccessNanos = System.nanoTime();
+            if (ngrams != null) {
+                ngrams.count(chunk, 0, chunk.length());
+            } else {
+                words.count(chunk, 0, chunk.length());
+            }
+            charactersAnalyzed += chunk.length();
+        }
+        return chunk.length();
+    }
+
+    /**
+     * Adds another session's counts to this one; the other session is left unchanged.
+     * A WORD still pending at the end of the other session (no delimiter seen yet) is not carried over, and no n-gram
+     * is formed across the end of one session and the start of the other.
+     * @throws InvalidRequestException if the sessions differ in type or alphabet, or other is this session.
+     */
+    void merge(AnalysisSession other) {
+        if (other.type != type || other.alphabet != alphabet) {
+            throw new InvalidRequestException("Cannot merge a " + describe(other) + " session into a " + describe(this) + " session.");
+        }
+        if (other == this) {
+            throw new InvalidRequestException("Cannot merge a session into itself.");
+        }
+        // Lock both sessions in a fixed order so two opposite merges cannot deadlock.
+        AnalysisSession first = id.compareTo(other.id) < 0 ? this : other;
+        AnalysisSession second = first == this ? other : this;
+        synchronized (first) {
+            synchronized (second) {
+                lastAccessNanos = System.nanoTime();
+                if (letters != null) {
+                    letters.merge(other.letters);
+                } else if (ngrams != null) {
+                    ngrams.merge(other.ngrams);
+                } else {
+                    words.merge(other.words);
+                }
+                charactersAnalyzed += other.charactersAnalyzed;
+            }
+        }
+    }
+
+    /**
+     * Ends the session's input; a trailing WORD without a delimiter is counted.
+     */
+    synchronized void finish() {
+        if (words != null) {
+            words.finish();
+        }
+    }
+
+    /**
+     * Snapshot of the current counts. For WORD, the word being appended (not yet followed by a delimiter)
+     * is only included once the next chunk ends it or the session is closed.
+     * @param wordLimit The number of words or n-grams to return for WORD and n-gram sessions; 0 or less returns all of them.
+     */
+    synchronized AnalysisSessionResponse toResponse(int wordLimit) {
+        lastAccessNanos = System.nanoTime();
+        Map<String, Integer> counts;
+        if (letters != null) {
+            counts = new LinkedHashMap<>();
+            letters.toMap().forEach((letter, count) -> counts.put(String.valueOf(letter), count));
+        } else if (ngrams != null) {
+            counts = ngrams.toTopK(wordLimit);
+        } else {
+            counts = words.toMap(wordLimit);
+        }
+        return new AnalysisSessionResponse(id, type, alphabet, charactersAnalyzed, counts);
+    }
+
+    private static String describe(AnalysisSession session) {
+        return session.alphabet != null ? session.alphabet + " " + session.type : session.type.toString();
+    }
+
+}
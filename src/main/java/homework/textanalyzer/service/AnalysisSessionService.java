@@ -0,0 +1,191 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.SessionNotFoundException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.model.AnalysisSessionResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.LetterTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manages incremental analysis sessions.
+ * Clients create a session for an analysis type, append text chunks as they arrive and read the running counts,
+ * instead of resending the whole accumulated text on every update. Each append only scans the new chunk.
+ * Sessions that stay idle longer than the configured timeout are expired.
+ * <p>
+ * Besides the cap on open sessions, BIGRAM and TRIGRAM sessions share a byte budget, max-ngram-bytes: each holds a
+ * dense count matrix from the start (about 70 KB for English trigrams, 119 KB for Romanian), so their number alone
+ * does not bound the heap they take.
+ */
+@Service
+public class AnalysisSessionService {
+
+    private final Map<String, AnalysisSession> sessions = new ConcurrentHashMap<>();
+
+    // Slots taken by open sessions; reserved before a session is added, so concurrent creates cannot exceed the cap.
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    @Value("${text.analyzer.session.max-sessions:10000}")
+    private int maxSessions = 10_000;
+
+    // Bytes of n-gram matrices held by open sessions; reserved like the session slots.
+    private final AtomicLong matrixBytes = new AtomicLong();
+
+    // Total size of the n-gram matrices of open sessions, e.g. 256 MB for about 3,800 English trigram sessions.
+    @Value("${text.analyzer.session.max-ngram-bytes:268435456}")
+    private long maxNGramBytes = 256L * 1024 * 1024;
+
+    // Maximum length of a single appended chunk.
+    @Value("${text.analyzer.session.max-chunk-length:1048576}")
+    private long maxChunkLength = 1024 * 1024;
+
+    @Value("${text.analyzer.session.idle-timeout:30m}")
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    // Idle sessions are expired this often, so it is how long a client refused at the cap is asked to wait.
+    @Value("${text.analyzer.session.sweep-interval:60000}")
+    private long sweepIntervalMillis = 60_000;
+
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit = 100;
+
+    /**
+     * Opens a new session.
+     * @param type The analysis type the session counts.
+     * @return The new session's (empty) state, including its ID.
+     * @throws TooManyRequestsException if the maximum number of open sessions is reached.
+     */
+    public AnalysisSessionResponse create(AnalysisType type) {
+        return create(type, Alphabet.ENGLISH);
+    }
+
+    /**
+     * Opens a new session.
+     * @param type The analysis type the session counts.
+     * @param alphabet The alphabet whose letters a letter-based session counts; null for English.
+     * @return The new session's (empty) state, including its ID.
+     * @throws TooManyRequestsException if the maximum number of open sessions is reached, or for BIGRAM and TRIGRAM,
+     * if the n-gram sessions' byte budget is used up.
+     */
+    public AnalysisSessionResponse create(AnalysisType type, Alphabet alphabet) {
+        if (openSessions.incrementAndGet() > maxSessions) {
+            openSessions.decrementAndGet();
+            throw new TooManyRequestsException("Maximum number of open sessions (" + maxSessions + ") reached.",
+                    Duration.ofMillis(sweepIntervalMillis));
+        }
+        LetterTable letters = (alphabet != null ? alphabet : Alphabet.ENGLISH).getLetters();
+        long bytes = type.ngramLength() > 0 ? NGramHistogram.matrixBytes(letters, type.ngramLength()) : 0;
+        if (bytes > 0 && matrixBytes.addAndGet(bytes) > maxNGramBytes) {
+            matrixBytes.addAndGet(-bytes);
+            openSessions.decrementAndGet();
+            throw new TooManyRequestsException("Open n-gram sessions use the maximum of " + maxNGramBytes + " bytes.",
+                    Duration.ofMillis(sweepIntervalMillis));
+        }
+        AnalysisSession session = new AnalysisSession(UUID.randomUUID().toString(), type, alphabet);
+        sessions.put(session.getId(), session);
+        return session.toResponse(defaultWordLimit);
+    }
+
+    /**
+     * Counts a chunk of text into the session.
+     * @param sessionId The session to append to.
+     * @param reader The chunk; read to the end but not closed.
+     * @param wordLimit For WORD and n-gram sessions, the number of words or n-grams to return; null for the default.
+     * @return The session's state after the append.
+     * @throws SessionNotFoundException if the session does not exist.
+     * @throws TextLengthExceededException if the chunk exceeds the maximum chunk length; the session is left unchanged.
+     */
+    public AnalysisSessionResponse append(String sessionId, Reader reader, Integer wordLimit) throws IOException {
+        AnalysisSession session = find(sessionId);
+        session.append(reader, maxChunkLength);
+        return session.toResponse(wordLimit(wordLimit));
+    }
+
+    /**
+     * @param sessionId The session to read.
+     * @param wordLimit For WORD and n-gram sessions, the number of words or n-grams to return; null for the default.
+     * @return The session's current state.
+     * @throws SessionNotFoundException if the session does not exist.
+     */
+    public AnalysisSessionResponse get(String sessionId, Integer wordLimit) {
+        return find(sessionId).toResponse(wordLimit(wordLimit));
+    }
+
+    /**
+     * Adds the counts of another session of the same type into a session, e.g. to combine shards of one document.
+     * @param sessionId The session receiving the counts.
+     * @param sourceSessionId The session whose counts are added; it is left unchanged.
+     * @return The receiving session's state after the merge.
+     * @throws SessionNotFoundException if either session does not exist.
+     * @throws InvalidRequestException if the sessions have different analysis types or alphabets, or are the same session.
+     */
+    public AnalysisSessionResponse merge(String sessionId, String sourceSessionId, Integer wordLimit) {
+        AnalysisSession session = find(sessionId);
+        session.merge(find(sourceSessionId));
+        return session.toResponse(wordLimit(wordLimit));
+    }
+
+    /**
+     * Closes a session and returns its final counts.
+     * @throws SessionNotFoundException if the session does not exist.
+     */
+    public AnalysisSessionResponse close(String sessionId, Integer wordLimit) {
+        AnalysisSession session = sessions.remove(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException("Session " + sessionId + " does not exist or has expired.");
+        }
+        release(session);
+        session.finish();
+        return session.toResponse(wordLimit(wordLimit));
+    }
+
+    /**
+     * Removes sessions that have been idle for longer than the idle timeout.
+     */
+    @Scheduled(fixedDelayString = "${text.analyzer.session.sweep-interval:60000}")
+    public void expireIdleSessions() {
+        long now = System.nanoTime();
+        long timeoutNanos = idleTimeout.toNanos();
+        for (AnalysisSession session : sessions.values()) {
+            // Only the caller whose remove succeeds frees the slot, in case the session is closed concurrently.
+            if (now - session.getLastAccessNanos() > timeoutNanos && sessions.remove(session.getId(), session)) {
+                release(session);
+            }
+        }
+    }
+
+    /**
+     * Frees the slot and n-gram bytes of a session that was removed.
+     */
+    private void release(AnalysisSession session) {
+        openSessions.decrementAndGet();
+        matrixBytes.addAndGet(-session.getMatrixBytes());
+    }
+
+    private AnalysisSession find(String sessionId) {
+        AnalysisSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException("Session " + sessionId + " does not exist or has expired.");
+        }
+        return session;
+    }
+
+    private int wordLimit(Integer wordLimit) {
+        return wordLimit != null ? wordLimit : defaultWordLimit;
+    }
+
+}
@@ -0,0 +1,196 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.AnalysisType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the analysis pipeline, exported through Actuator (e.g. /actuator/prometheus).
+ * <ul>
+ *     <li>textanalyzer.analyze - analysis latency, tagged by type (MULTI for combined analyses)</li>
+ *     <li>textanalyzer.input.length - input length in chars, tagged by type</li>
+ *     <li>textanalyzer.analyze.allocated - bytes allocated by the analyzing thread, tagged by type (when the JVM supports it)</li>
+ *     <li>textanalyzer.analyze.failed - time spent on analyses that threw instead of returning a result</li>
+ *     <li>textanalyzer.errors - requests rejected by GlobalExceptionHandler, tagged by exception</li>
+ * </ul>
+ * Meters are created up front, so recording a sample does not look anything up in the registry.
+ * Each sample is also recorded as a homework.textanalyzer.Analyze flight recorder event ({@link AnalysisEvents}).
+ */
+@Component
+public class AnalyzerMetrics {
+
+    // HotSpot's extension of ThreadMXBean exposes per-thread allocation counters; null when unavailable.
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = allocationBean();
+
+    // Tag of combined analyses that compute several types in one pass.
+    private static final String MULTI_TYPE_TAG = AnalysisEvents.MULTI_TYPE;
+
+    /**
+     * The meters of one type tag.
+     */
+    private record Meters(Timer timer, DistributionSummary inputLength, DistributionSummary allocated) {
+    }
+
+    private final MeterRegistry registry;
+    private final Map<AnalysisType, Meters> meters = new EnumMap<>(AnalysisType.class);
+    private final Meters multiMeters;
+    private final Timer failedTimer;
+    private final boolean allocationTracking;
+
+    public AnalyzerMetrics(MeterRegistry registry,
+                           @Value("${text.analyzer.metrics.allocation.enabled:true}") boolean allocationTracking) {
+        this.registry = registry;
+        this.allocationTracking = allocationTracking && ALLOCATION_BEAN != null;
+        for (AnalysisType type : AnalysisType.values()) {
+            meters.put(type, register(registry, type.name()));
+        }
+        this.multiMeters = register(registry, MULTI_TYPE_TAG);
+        this.failedTimer = Timer.builder("textanalyzer.analyze.failed")
+                .description("Time spent on analyses that failed, e.g. on a stream over the length limit")
+                .register(registry);
+    }
+
+    private static Meters register(MeterRegistry registry, String typeTag) {
+        return new Meters(
+                Timer.builder("textanalyzer.analyze")
+                        .description("Time spent analyzing a text")
+                        .tag("type", typeTag)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder("textanalyzer.input.length")
+                        .description("Length of the analyzed texts")
+                        .baseUnit("chars")
+                        .tag("type", typeTag)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder("textanalyzer.analyze.allocated")
+                        .description("Heap bytes allocated by the thread while analyzing a text")
+                        .baseUnit("bytes")
+                        .tag("type", typeTag)
+                        .register(registry));
+    }
+
+    /**
+     * Starts measuring an analysis on the current thread.
+     * @return A sample to stop once the analysis is done.
+     */
+    public Sample start() {
+        return new Sample(System.nanoTime(), allocationTracking ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() : -1,
+                AnalysisEvents.startAnalysis());
+    }
+
+    /**
+     * Starts measuring an analysis that may finish on another thread, e.g. one fed by a reactive stream.
+     * Only latency and input length are recorded, since per-thread allocation counters cannot follow it.
+     * @return A sample to stop once the analysis is done.
+     */
+    public Sample startDetached() {
+        return new Sample(System.nanoTime(), -1, null);
+    }
+
+    /**
+     * @return The bytes allocated by the current thread so far, or -1 if the JVM does not track them.
+     */
+    static long currentThreadAllocatedBytes() {
+        return ALLOCATION_BEAN != null ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * Counts a request rejected by the GlobalExceptionHandler.
+     * @param ex The exception that was handled.
+     */
+    public void recordError(Exception ex) {
+        Counter.builder("textanalyzer.errors")
+                .description("Requests rejected with an error response")
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * An analysis in progress. Must be stopped on the thread that started it for the allocation figure to be meaningful.
+     * Closing a sample that was not stopped records it as failed, so analyses use it in try-with-resources.
+     */
+    public final class Sample implements AutoCloseable {
+
+        private final long startNanos;
+        private final long startAllocatedBytes;
+        private final AnalysisEvents.AnalyzeEvent event; // Null for detached samples
+        private boolean stopped;
+
+        private Sample(long startNanos, long startAllocatedBytes, AnalysisEvents.AnalyzeEvent event) {
+            this.startNanos = startNanos;
+            this.startAllocatedBytes = startAllocatedBytes;
+            this.event = event;
+        }
+
+        /**
+         * Records the analysis.
+         * @param type The analysis type, used as the meters' tag.
+         * @param inputLength The number of chars analyzed.
+         */
+        public void stop(AnalysisType type, long inputLength) {
+            stop(meters.get(type), inputLength);
+            if (event != null) {
+                AnalysisEvents.analyzed(event, type.name(), inputLength);
+            }
+        }
+
+        /**
+         * Records a combined analysis of several types, tagged as MULTI.
+         * @param inputLength The number of chars analyzed.
+         */
+        public void stopMulti(long inputLength) {
+            stop(multiMeters, inputLength);
+            if (event != null) {
+                AnalysisEvents.analyzed(event, MULTI_TYPE_TAG, inputLength);
+            }
+        }
+
+        /**
+         * Records the analysis as failed, unless it has already been stopped.
+         */
+        @Override
+        public void close() {
+            if (!stopped) {
+                stopped = true;
+                failedTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void stop(Meters target, long inputLength) {
+            stopped = true;
+            target.timer().record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            target.inputLength().record(inputLength);
+            if (startAllocatedBytes >= 0) {
+                // Virtual threads report -1, in which case there is nothing to record.
+                long allocatedBytes = ALLOCATION_BEAN.getCurrentThreadAllocatedBytes();
+                if (allocatedBytes >= 0) {
+                    target.allocated().record(allocatedBytes - startAllocatedBytes);
+                }
+            }
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean hotSpotBean && hotSpotBean.isThreadAllocatedMemorySupported()) {
+            if (!hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+                hotSpotBean.setThreadAllocatedMemoryEnabled(true);
+            }
+            return hotSpotBean;
+        }
+        return null;
+    }
+
+}
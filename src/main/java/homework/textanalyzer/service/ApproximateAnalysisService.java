@@ -0,0 +1,115 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.ApproximateAnalysisResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Approximate word analysis for streams too long to count exactly: the most frequent words, their estimated counts
+ * and the number of distinct words, computed in memory that is bounded by the configuration rather than by the input.
+ * The error bounds follow from the configured epsilon, confidence, heavy-hitter capacity and HyperLogLog precision,
+ * and are reported with every result.
+ * <p>
+ * A result can include its serialized sketch; sketches from several requests, or from several instances with the same
+ * settings, are merged into one result as if their inputs had been analyzed together.
+ */
+@Service
+public class ApproximateAnalysisService {
+
+    // Count-Min Sketch error as a fraction of the total number of words, and the probability that it holds.
+    @Value("${text.analyzer.approximate.epsilon:0.001}")
+    private double epsilon = 0.001;
+
+    @Value("${text.analyzer.approximate.confidence:0.99}")
+    private double confidence = 0.99;
+
+    // Number of candidate words tracked for the top-K; counts of tracked words are exact to within N / heavy-hitters.
+    @Value("${text.analyzer.approximate.heavy-hitters:1000}")
+    private int heavyHitters = 1000;
+
+    // 2^precision one-byte HyperLogLog registers; the relative standard error is 1.04 / sqrt(2^precision).
+    @Value("${text.analyzer.approximate.hll-precision:14}")
+    private int hllPrecision = 14;
+
+    @Value("${text.analyzer.approximate.max-length:10737418240}")
+    private long maxLength = 10L * 1024 * 1024 * 1024;
+
+    // Maximum number of sketches in one merge request.
+    @Value("${text.analyzer.approximate.max-sketches:64}")
+    private int maxSketches = 64;
+
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit = 100;
+
+    private WordSketch.Parameters parameters;
+
+    @PostConstruct
+    void initParameters() {
+        parameters = WordSketch.Parameters.of(epsilon, confidence, heavyHitters, hllPrecision);
+    }
+
+    /**
+     * Sketches the words of a stream.
+     *
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param wordLimit The number of most frequent words to return; null for the default, 0 or less for every tracked word.
+     * @param includeSketch Whether the response carries the serialized sketch for later merging.
+     * @return The estimated word counts, distinct word count and their error bounds.
+     * @throws IOException if reading from the stream fails.
+     * @throws TextLengthExceededException if the stream holds more than the configured maximum length.
+     */
+    public ApproximateAnalysisResponse analyze(Reader reader, Integer wordLimit, boolean includeSketch) throws IOException {
+        WordSketch sketch = new WordSketch(parameters);
+        TextAnalyzerService.readInChunks(reader, maxLength, sketch::count);
+        sketch.finish();
+        return toResponse(sketch, wordLimit, includeSketch);
+    }
+
+    /**
+     * Merges sketches returned by earlier analyses into one result.
+     *
+     * @param sketches The serialized sketches, built with this instance's settings.
+     * @param wordLimit The number of most frequent words to return; null for the default, 0 or less for every tracked word.
+     * @param includeSketch Whether the response carries the merged sketch.
+     * @return The estimated word counts of all inputs together, and their error bounds.
+     * @throws InvalidRequestException if no or too many sketches are given, or a sketch is invalid or was built with other settings.
+     */
+    public ApproximateAnalysisResponse merge(List<byte[]> sketches, Integer wordLimit, boolean includeSketch) {
+        if (sketches == null || sketches.isEmpty()) {
+            throw new InvalidRequestException("At least one sketch is required.");
+        }
+        if (sketches.size() > maxSketches) {
+            throw new InvalidRequestException("At most " + maxSketches + " sketches can be merged at once.");
+        }
+        WordSketch merged;
+        try {
+            merged = WordSketch.fromBytes(sketches.get(0), parameters);
+            for (byte[] sketch : sketches.subList(1, sketches.size())) {
+                merged.merge(WordSketch.fromBytes(sketch, parameters));
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidRequestException(ex.getMessage(), ex); // The sketches come from the client.
+        }
+        return toResponse(merged, wordLimit, includeSketch);
+    }
+
+    private ApproximateAnalysisResponse toResponse(WordSketch sketch, Integer wordLimit, boolean includeSketch) {
+        return new ApproximateAnalysisResponse(
+                sketch.topWords(wordLimit != null ? wordLimit : defaultWordLimit),
+                sketch.getTotalWords(),
+                sketch.estimateDistinctWords(),
+                sketch.distinctWordsRelativeError(),
+                sketch.frequencyErrorBound(),
+                sketch.frequencyErrorConfidence(),
+                sketch.memoryBytes(),
+                includeSketch ? sketch.toBytes() : null);
+    }
+
+}
@@ -0,0 +1,198 @@
+package homework.textanalyzer.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import homework.textanalyzer.config.AnalysisExecutorConfig;
+import homework.textanalyzer.exception.BatchSizeExceededException;
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.model.BatchAnalysisRequest;
+import homework.textanalyzer.model.BatchAnalysisResult;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+/**
+ * Analyzes many texts in one call, so clients sending short sentences pay the HTTP round trip once per batch.
+ * Each item is validated like a single GET /analyze request; invalid items are reported in place.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchAnalysisService {
+
+    private final TextAnalyzerService textAnalyzerService;
+
+    // Runs the slices of large batches; virtual threads when spring.threads.virtual.enabled is set.
+    @Qualifier(AnalysisExecutorConfig.ANALYSIS_EXECUTOR)
+    private final ExecutorService analysisExecutor;
+
+    // Reads batch bodies item by item.
+    private final ObjectMapper objectMapper;
+
+    // Same per-text limit as GET /analyze.
+    @Value("${text.analyzer.max-length:250}")
+    private int maxTextLength;
+
+    // Same number of words per WORD item as GET /analyze returns by default.
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit;
+
+    @Value("${text.analyzer.batch.max-items:10000}")
+    private int maxBatchItems;
+
+    // Batches with at least this many items are analyzed in parallel.
+    @Value("${text.analyzer.batch.parallel-threshold:64}")
+    private int parallelThreshold;
+
+    /**
+     * Reads a JSON array of batch items one item at a time, so a batch with too many items is rejected as soon as
+     * the first excess item is reached, without the rest of the array being read into memory.
+     *
+     * @param body The JSON array.
+     * @return The items, in request order; null elements are kept, to be reported in their slot.
+     * @throws IOException if reading the body fails.
+     * @throws BatchSizeExceededException if the array holds more items than the configured maximum.
+     * @throws InvalidRequestException if the body is not a JSON array of item objects.
+     */
+    public List<BatchAnalysisRequest> readItems(InputStream body) throws IOException {
+        List<BatchAnalysisRequest> items = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new InvalidRequestException("The batch must be a JSON array of items.");
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new InvalidRequestException("The batch array is not closed.");
+                }
+                if (items.size() == maxBatchItems) {
+                    throw new BatchSizeExceededException("Batch exceeds maximum allowed size of " + maxBatchItems + " items.");
+                }
+                items.add(objectMapper.readValue(parser, BatchAnalysisRequest.class));
+            }
+        } catch (JsonProcessingException ex) {
+            throw new InvalidRequestException("Invalid batch item: " + ex.getOriginalMessage());
+        }
+        return items;
+    }
+
+    /**
+     * Analyzes every item of the batch.
+     *
+     * @param items The texts to analyze, each with its own analysis type.
+     * @return One result per item, in request order.
+     * @throws BatchSizeExceededException if the batch holds more items than the configured maximum.
+     */
+    public List<BatchAnalysisResult> analyze(List<BatchAnalysisRequest> items) {
+        return analyze(items, true);
+    }
+
+    /**
+     * Analyzes every item of the batch.
+     *
+     * @param items The texts to analyze, each with its own analysis type.
+     * @param echo Whether each result repeats its analyzed text.
+     * @return One result per item, in request order.
+     * @throws BatchSizeExceededException if the batch holds more items than the configured maximum.
+     */
+    public List<BatchAnalysisResult> analyze(List<BatchAnalysisRequest> items, boolean echo) {
+        if (items == null || items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (items.size() > maxBatchItems) {
+            throw new BatchSizeExceededException("Batch exceeds maximum allowed size of " + maxBatchItems + " items.");
+        }
+
+        if (items.size() < parallelThreshold) {
+            return IntStream.range(0, items.size()).mapToObj(index -> analyzeItem(index, items.get(index), echo)).toList();
+        }
+        return analyzeInParallel(items, echo);
+    }
+
+    /**
+     * Splits the batch into one slice per processor and analyzes the slices on the analysis executor.
+     * Each slice writes its results into its own range of the result array, so the request order is kept.
+     */
+    private List<BatchAnalysisResult> analyzeInParallel(List<BatchAnalysisRequest> items, boolean echo) {
+        BatchAnalysisResult[] results = new BatchAnalysisResult[items.size()];
+        int slices = Runtime.getRuntime().availableProcessors();
+        int sliceSize = (items.size() + slices - 1) / slices;
+
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(slices);
+        for (int from = 0; from < items.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(items.size(), from + sliceSize);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                for (int index = start; index < end; index++) {
+                    results[index] = analyzeItem(index, items.get(index), echo);
+                }
+            }, analysisExecutor));
+        }
+        // Joining makes the writes of every slice visible to this thread.
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        return Arrays.asList(results);
+    }
+
+    private BatchAnalysisResult analyzeItem(int index, BatchAnalysisRequest item, boolean echo) {
+        if (item == null || item.getType() == null) {
+            return BatchAnalysisResult.failure(index, HttpStatus.BAD_REQUEST.value(), "type parameter is missing.");
+        }
+        AnalysisType type = parseType(item.getType());
+        if (type == null) {
+            return BatchAnalysisResult.failure(index, HttpStatus.BAD_REQUEST.value(), "type parameter has an invalid value: '"
+                    + item.getType() + "'. Expected one of " + Arrays.toString(AnalysisType.values()) + ".");
+        }
+        if (item.getText() == null) {
+            return BatchAnalysisResult.failure(index, HttpStatus.BAD_REQUEST.value(), "text parameter is missing.");
+        }
+        try {
+            if (item.getText().length() > maxTextLength) {
+                throw new TextLengthExceededException("Input text exceeds maximum allowed length of " + maxTextLength + " characters.");
+            }
+            String originalText = echo ? item.getText() : null;
+            AnalysisResponse response;
+            if (type == AnalysisType.WORD) {
+                response = new AnalysisResponse(textAnalyzerService.analyzeWords(item.getText(), defaultWordLimit), originalText, type);
+            } else if (type.ngramLength() > 0) {
+                response = new AnalysisResponse(textAnalyzerService.analyzeNGrams(item.getText(), type, Alphabet.ENGLISH, defaultWordLimit),
+                        originalText, type);
+            } else {
+                response = AnalysisResponse.of(textAnalyzerService.analyze(item.getText(), type), originalText, type);
+            }
+            return BatchAnalysisResult.success(index, response);
+        } catch (TextLengthExceededException ex) {
+            return BatchAnalysisResult.failure(index, HttpStatus.PAYLOAD_TOO_LARGE.value(), ex.getMessage());
+        } catch (RuntimeException ex) {
+            return BatchAnalysisResult.failure(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), "Analysis failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @return The analysis type with that name, ignoring case, or null if there is none.
+     */
+    private static AnalysisType parseType(String name) {
+        try {
+            return AnalysisType.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,386 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Analyzes every file in a directory tree, such as a corpus of hundreds of thousands of small UTF-8 text files.
+ * The scan is a pipeline of three stages on their own threads, connected by bounded queues, so a stage that runs
+ * ahead blocks until the next one catches up:
+ * <ol>
+ * <li>discovery walks the tree and queues the paths of regular files;</li>
+ * <li>readers read each file into a direct buffer taken from a fixed pool;</li>
+ * <li>counters decode the buffers into their own histograms and return the buffers to the pool.</li>
+ * </ol>
+ * A file larger than a pooled buffer is streamed by the counter through a buffer of its own. Memory therefore stays
+ * bounded by the buffers and queues however large the tree is; only the word table grows, with the number of distinct
+ * words. The counters' histograms are merged once at the end.
+ * <p>
+ * A file that cannot be read is skipped and counted as failed. Symbolic links are not followed.
+ */
+@Slf4j
+public final class CorpusScanner {
+
+    /** Default size of a pooled read buffer. */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    // Number of discovered paths that may wait for a reader.
+    private static final int PATH_QUEUE_CAPACITY = 1024;
+
+    // Queued after the last path, once per reader, and after the last file, once per counter.
+    private static final Path END_OF_PATHS = Path.of("");
+    private static final ScannedFile END_OF_FILES = new ScannedFile(END_OF_PATHS, null, 0);
+
+    private final int readerThreads;
+    private final int counterThreads;
+    private final int bufferSize;
+
+    public CorpusScanner() {
+        this(4, Runtime.getRuntime().availableProcessors(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param readerThreads The number of threads reading files.
+     * @param counterThreads The number of threads counting, each with its own histograms.
+     * @param bufferSize The size of a read buffer in bytes; larger files are streamed. At least 4, so a UTF-8 sequence fits.
+     */
+    public CorpusScanner(int readerThreads, int counterThreads, int bufferSize) {
+        if (readerThreads < 1 || counterThreads < 1) {
+            throw new IllegalArgumentException("At least one reader and one counter thread are required.");
+        }
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("The buffer size must be at least 4 bytes.");
+        }
+        this.readerThreads = readerThreads;
+        this.counterThreads = counterThreads;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Receives the result of a single file. Called from the counter threads, so implementations must be thread-safe.
+     */
+    @FunctionalInterface
+    public interface FileResultListener {
+        void accept(Path file, Map<AnalysisType, Map<String, Integer>> results);
+    }
+
+    /**
+     * The aggregate result of a scan and its throughput.
+     *
+     * @param results One map per requested type, in AnalysisType order, over all files that were read.
+     * @param files The number of files read.
+     * @param failedFiles The number of files that could not be read.
+     * @param bytes The number of bytes read.
+     * @param elapsed The duration of the scan.
+     */
+    public record ScanResult(Map<AnalysisType, Map<String, Integer>> results, long files, long failedFiles, long bytes,
+                             Duration elapsed) {
+
+        public double filesPerSecond() {
+            return files / seconds();
+        }
+
+        /**
+         * @return The read throughput in megabytes (10^6 bytes) per second.
+         */
+        public double megabytesPerSecond() {
+            return bytes / 1e6 / seconds();
+        }
+
+        private double seconds() {
+            return Math.max(elapsed.toNanos(), 1) / 1e9;
+        }
+    }
+
+    /**
+     * Scans a directory tree.
+     *
+     * @param root The directory to scan, including its subdirectories.
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit The number of most frequent words (WORD) or n-grams (BIGRAM, TRIGRAM) to return; 0 or less returns all of them.
+     * Which of several entries with the same count comes first depends on the order in which the files were counted.
+     * @param listener Receives the result of each file as soon as it is counted; null for the aggregate result only.
+     * @return The aggregate result and throughput.
+     * @throws IllegalArgumentException if root is not a directory.
+     * @throws IOException if the tree cannot be walked.
+     * @throws InterruptedException if the calling thread is interrupted; the scan is stopped.
+     */
+    public ScanResult scan(Path root, Set<AnalysisType> types, Alphabet alphabet, int wordLimit, FileResultListener listener)
+            throws IOException, InterruptedException {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException(root + " is not a directory.");
+        }
+        long start = System.nanoTime();
+        Scan scan = new Scan(types, alphabet != null ? alphabet : Alphabet.ENGLISH, wordLimit, listener);
+
+        ExecutorService executor = Executors.newFixedThreadPool(1 + readerThreads + counterThreads,
+                Thread.ofPlatform().name("corpus-scan-", 0).daemon().factory());
+        try {
+            ExecutorCompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+            stages.submit(() -> {
+                scan.discover(root);
+                return null;
+            });
+            for (int i = 0; i < readerThreads; i++) {
+                stages.submit(() -> {
+                    scan.read();
+                    return null;
+                });
+            }
+            for (Scan.Counter counter : scan.counters) {
+                stages.submit(() -> {
+                    counter.run();
+                    return null;
+                });
+            }
+            // The first stage to fail stops the others.
+            for (int i = 0; i < 1 + readerThreads + counterThreads; i++) {
+                await(stages);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MultiHistogram total = scan.counters.get(0).total;
+        for (Scan.Counter counter : scan.counters.subList(1, counterThreads)) {
+            total.merge(counter.total);
+        }
+        return new ScanResult(total.toMaps(wordLimit), scan.files.sum(), scan.failedFiles.sum(), scan.bytes.sum(),
+                Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static void await(ExecutorCompletionService<Void> stages) throws IOException, InterruptedException {
+        try {
+            stages.take().get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * A file read into a pooled buffer, or only its path if it is too large and is streamed by the counter.
+     */
+    private record ScannedFile(Path path, ByteBuffer buffer, long size) {
+    }
+
+    /**
+     * The queues, buffers and counters of a single scan.
+     */
+    private final class Scan {
+
+        private final Set<AnalysisType> types;
+        private final Alphabet alphabet;
+        private final int wordLimit;
+        private final FileResultListener listener;
+
+        private final BlockingQueue<Path> paths = new ArrayBlockingQueue<>(PATH_QUEUE_CAPACITY);
+        // Every buffer is either in the pool, held by a reader, or queued for or held by a counter.
+        private final BlockingQueue<ByteBuffer> pool;
+        private final BlockingQueue<ScannedFile> contents;
+        private final AtomicInteger runningReaders = new AtomicInteger(readerThreads);
+        private final List<Counter> counters = new ArrayList<>();
+
+        private final LongAdder files = new LongAdder();
+        private final LongAdder failedFiles = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        Scan(Set<AnalysisType> types, Alphabet alphabet, int wordLimit, FileResultListener listener) {
+            this.types = types;
+            this.alphabet = alphabet;
+            this.wordLimit = wordLimit;
+            this.listener = listener;
+            // Enough buffers for every reader to fill one while each counter has one queued behind the one it counts.
+            int bufferCount = readerThreads + 2 * counterThreads;
+            this.pool = new ArrayBlockingQueue<>(bufferCount);
+            for (int i = 0; i < bufferCount; i++) {
+                pool.add(ByteBuffer.allocateDirect(bufferSize));
+            }
+            this.contents = new ArrayBlockingQueue<>(bufferCount);
+            for (int i = 0; i < counterThreads; i++) {
+                counters.add(new Counter());
+            }
+        }
+
+        void discover(Path root) throws IOException, InterruptedException {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (!attributes.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    try {
+                        paths.put(file);
+                        return FileVisitResult.CONTINUE;
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return FileVisitResult.TERMINATE;
+                    }
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException ex) {
+                    failed(file, ex);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            for (int i = 0; i < readerThreads; i++) {
+                paths.put(END_OF_PATHS);
+            }
+        }
+
+        void read() throws InterruptedException {
+            Path file;
+            while ((file = paths.take()) != END_OF_PATHS) {
+                ByteBuffer buffer = pool.take();
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    buffer.clear();
+                    while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                        // Fill the buffer or read to the end of the file.
+                    }
+                    if (!buffer.hasRemaining() && channel.position() < channel.size()) {
+                        contents.put(new ScannedFile(file, null, channel.size()));
+                    } else {
+                        buffer.flip();
+                        contents.put(new ScannedFile(file, buffer, buffer.remaining()));
+                        buffer = null; // Returned to the pool by the counter.
+                    }
+                } catch (IOException ex) {
+                    failed(file, ex);
+                } finally {
+                    if (buffer != null) {
+                        pool.add(buffer);
+                    }
+                }
+            }
+            if (runningReaders.decrementAndGet() == 0) {
+                for (int i = 0; i < counterThreads; i++) {
+                    contents.put(END_OF_FILES);
+                }
+            }
+        }
+
+        private void failed(Path file, IOException ex) {
+            log.warn("Skipping {}: {}", file, ex.toString());
+            failedFiles.increment();
+        }
+
+        /**
+         * A counting thread's state: its share of the aggregate result and the buffers it reuses for every file.
+         */
+        private final class Counter {
+
+            private final MultiHistogram total = new MultiHistogram(types, alphabet, LetterCounter.SCALAR);
+            // Counts one file at a time when per-file results are requested or a file is streamed; created on first use.
+            private MultiHistogram file;
+            private ByteBuffer streamBuffer;
+            private final Utf8ChunkDecoder decoder = new Utf8ChunkDecoder(TextAnalyzerService.STREAM_CHUNK_SIZE);
+
+            void run() throws InterruptedException {
+                ScannedFile scanned;
+                while ((scanned = contents.take()) != END_OF_FILES) {
+                    count(scanned);
+                }
+            }
+
+            /**
+             * Counts a file read into a buffer straight into the total. A streamed file, or every file if per-file
+             * results are requested, is counted separately and merged, so a file that fails halfway is not counted.
+             */
+            private void count(ScannedFile scanned) {
+                ByteBuffer buffer = scanned.buffer();
+                MultiHistogram target = listener != null || buffer == null ? fileHistogram() : total;
+                boolean complete = true;
+                try {
+                    if (buffer != null) {
+                        decoder.decode(buffer, target::count);
+                    } else {
+                        stream(scanned.path(), target);
+                    }
+                } catch (IOException ex) {
+                    failed(scanned.path(), ex);
+                    complete = false;
+                } finally {
+                    if (buffer != null) {
+                        pool.add(buffer);
+                    }
+                }
+                decoder.finish(target::count);
+                target.finish();
+
+                if (target != total) {
+                    if (complete) {
+                        if (listener != null) {
+                            listener.accept(scanned.path(), target.toMaps(wordLimit));
+                        }
+                        total.merge(target);
+                    }
+                    target.reset();
+                }
+                if (complete) {
+                    files.increment();
+                    bytes.add(scanned.size());
+                }
+            }
+
+            private void stream(Path path, MultiHistogram target) throws IOException {
+                if (streamBuffer == null) {
+                    streamBuffer = ByteBuffer.allocateDirect(bufferSize);
+                }
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    streamBuffer.clear();
+                    while (channel.read(streamBuffer) != -1) {
+                        streamBuffer.flip();
+                        decoder.decode(streamBuffer, target::count);
+                        streamBuffer.clear();
+                    }
+                }
+            }
+
+            private MultiHistogram fileHistogram() {
+                if (file == null) {
+                    file = new MultiHistogram(types, alphabet, LetterCounter.SCALAR);
+                }
+                return file;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package homework.textanalyzer.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Count-Min Sketch: frequency estimates in a fixed depth x width matrix of counters, whatever the number of distinct keys.
+ * With width = ⌈e / epsilon⌉ and depth = ⌈ln(1 / delta)⌉, an estimate never underestimates, and overestimates by at
+ * most epsilon times the total count with probability at least 1 - delta.
+ * <p>
+ * Keys are given as 64-bit hashes; row i uses the i-th hash h1 + i * h2 derived from the two halves of the key's hash.
+ * Sketches of the same dimensions are merged by adding their counters. Instances are not thread-safe.
+ */
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("The width and depth of a Count-Min Sketch must be at least 1.");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[Math.multiplyExact(width, depth)];
+    }
+
+    /**
+     * @return The width for the given relative error: ⌈e / epsilon⌉.
+     */
+    static int widthFor(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("Epsilon must be between 0 and 1, exclusive.");
+        }
+        return (int) Math.ceil(Math.E / epsilon);
+    }
+
+    /**
+     * @return The depth for the given failure probability: ⌈ln(1 / delta)⌉.
+     */
+    static int depthFor(double delta) {
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("Delta must be between 0 and 1, exclusive.");
+        }
+        return (int) Math.ceil(Math.log(1 / delta));
+    }
+
+    void add(long hash, long count) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + column(h1, h2, row)] += count;
+        }
+    }
+
+    /**
+     * @return An estimate of the key's total count that is never lower than the true count.
+     */
+    long estimate(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + column(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the counters of another sketch of the same dimensions.
+     */
+    void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge Count-Min Sketches of different dimensions ("
+                    + other.width + "x" + other.depth + " into " + width + "x" + depth + ").");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    long memoryBytes() {
+        return (long) counts.length * Long.BYTES;
+    }
+
+    /**
+     * Writes the counters; the dimensions are part of the enclosing format.
+     */
+    void write(DataOutput out) throws IOException {
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+    }
+
+    /**
+     * Reads counters written by {@link #write(DataOutput)} from a sketch of the same dimensions, replacing this sketch's.
+     */
+    void read(DataInput in) throws IOException {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+    }
+
+    private int column(int h1, int h2, int row) {
+        return ((h1 + row * h2) & Integer.MAX_VALUE) % width;
+    }
+
+}
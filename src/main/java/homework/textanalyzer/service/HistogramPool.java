@@ -0,0 +1,53 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps counting state (histograms, n-gram matrices) for reuse across analyses, with a bounded free list per
+ * letter table. Unlike a ThreadLocal, this also reuses state when every request runs on a new virtual thread.
+ * A borrowed instance is owned by the caller until it is released; it is not cleared here.
+ * When the free list is empty, a new instance is created, and when it is full, a released one is dropped.
+ *
+ * @param <H> The type of counting state pooled.
+ */
+final class HistogramPool<H> {
+
+    private final Map<LetterTable, Queue<H>> free = new ConcurrentHashMap<>();
+    private final Function<LetterTable, H> factory;
+    private final int capacity;
+
+    /**
+     * @param factory Creates new counting state for a letter table.
+     * @param capacity The maximum number of idle instances kept per letter table.
+     */
+    HistogramPool(Function<LetterTable, H> factory, int capacity) {
+        this.factory = factory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return An idle instance for the letter table, or a new one if there is none.
+     */
+    H borrow(LetterTable table) {
+        H histogram = freeList(table).poll();
+        return histogram != null ? histogram : factory.apply(table);
+    }
+
+    /**
+     * Returns an instance borrowed for the letter table. It must not be used afterwards.
+     */
+    void release(LetterTable table, H histogram) {
+        freeList(table).offer(histogram);
+    }
+
+    private Queue<H> freeList(LetterTable table) {
+        return free.computeIfAbsent(table, key -> new ArrayBlockingQueue<>(capacity));
+    }
+
+}
@@ -0,0 +1,101 @@
+package homework.textanalyzer.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog: estimates the number of distinct keys in 2^precision one-byte registers, whatever the number of keys.
+ * The relative standard error is about 1.04 / sqrt(2^precision), e.g. 0.81% for precision 14 (16 KB).
+ * Small cardinalities are estimated by linear counting over the empty registers.
+ * <p>
+ * Keys are given as well-mixed 64-bit hashes. Sketches of the same precision are merged by taking the larger of each
+ * pair of registers, which gives the same sketch as adding both inputs to one. Instances are not thread-safe.
+ */
+final class HyperLogLog {
+
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("The HyperLogLog precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ".");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // The rank is the position of the first 1 bit after the register bits; a guard bit caps it for all-zero hashes.
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int empty = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                empty++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && empty > 0) {
+            estimate = m * Math.log((double) m / empty);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return The relative standard error of {@link #estimate()}: 1.04 / sqrt(2^precision).
+     */
+    double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog sketches of different precisions ("
+                    + other.precision + " into " + precision + ").");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    long memoryBytes() {
+        return registers.length;
+    }
+
+    /**
+     * Writes the registers; the precision is part of the enclosing format.
+     */
+    void write(DataOutput out) throws IOException {
+        out.write(registers);
+    }
+
+    /**
+     * Reads registers written by {@link #write(DataOutput)} from a sketch of the same precision, replacing this sketch's.
+     */
+    void read(DataInput in) throws IOException {
+        in.readFully(registers);
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+}
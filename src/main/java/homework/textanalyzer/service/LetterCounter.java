@@ -0,0 +1,43 @@
+package homework.textanalyzer.service;
+
+/**
+ * Counting kernel that scans a char range into a {@link LetterHistogram}.
+ * The scalar kernel is always available; a vectorized one can be selected with {@code text.analyzer.engine=vector}.
+ */
+interface LetterCounter {
+
+    /** Counts one char at a time through the histogram's lookup table. */
+    LetterCounter SCALAR = new LetterCounter() {
+        @Override
+        public void count(LetterHistogram histogram, CharSequence text, int from, int to) {
+            histogram.count(text, from, to);
+        }
+
+        @Override
+        public void count(LetterHistogram histogram, char[] chars, int from, int to) {
+            histogram.count(chars, from, to);
+        }
+    };
+
+    /**
+     * Loads the vectorized kernel. It is compiled separately against the incubating Vector API (src/vector/java),
+     * and only loaded once the module is known to be present, since its static initializer needs it.
+     * @return The vectorized kernel, or null if the JVM was started without --add-modules jdk.incubator.vector.
+     */
+    static LetterCounter vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (LetterCounter) Class.forName("homework.textanalyzer.service.VectorLetterCounter")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    void count(LetterHistogram histogram, CharSequence text, int from, int to);
+
+    void count(LetterHistogram histogram, char[] chars, int from, int to);
+
+}
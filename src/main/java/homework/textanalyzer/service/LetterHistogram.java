@@ -0,0 +1,223 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Primitive letter histogram backed by a {@link LetterTable}.
+ * Counting never allocates: each character costs one table read and one array increment.
+ * A map is only built when the result leaves the engine through {@link #toMap()}.
+ * <p>
+ * Counts are kept as longs, so multi-gigabyte files and merged ranges cannot overflow them silently;
+ * the int counts of the API's maps are checked when they are built.
+ * <p>
+ * Instances are not thread-safe; use one histogram per thread and {@link #merge(LetterHistogram)} them if needed.
+ */
+public final class LetterHistogram {
+
+    // The smallest code point a UTF-8 sequence of each length may encode; smaller ones are overlong encodings.
+    private static final int[] MIN_CODE_POINT = {0, 0, 0x80, 0x800, 0x10000};
+
+    private final LetterTable table;
+    private final long[] counts;
+
+    public LetterHistogram(LetterTable table) {
+        this.table = table;
+        this.counts = new long[table.size()];
+    }
+
+    /**
+     * Counts every character of the given text.
+     * @param text The text to scan.
+     */
+    public void count(CharSequence text) {
+        count(text, 0, text.length());
+    }
+
+    /**
+     * Counts the characters in the range [from, to) of the given text.
+     * @param text The text to scan.
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     */
+    public void count(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int slot = table.slotOf(text.charAt(i));
+            if (slot >= 0) {
+                counts[slot]++;
+            }
+        }
+    }
+
+    /**
+     * Counts the characters in the range [from, to) of the given buffer.
+     * @param chars The buffer to scan.
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     */
+    public void count(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int slot = table.slotOf(chars[i]);
+            if (slot >= 0) {
+                counts[slot]++;
+            }
+        }
+    }
+
+    /**
+     * Counts ISO-8859-1 (Latin-1) encoded bytes between the buffer's position and limit, without decoding them into chars.
+     * Every byte is one character, so the whole range is consumed and the position moves to the limit.
+     * @param bytes The encoded text.
+     */
+    public void countLatin1(ByteBuffer bytes) {
+        int limit = bytes.limit();
+        for (int i = bytes.position(); i < limit; i++) {
+            int slot = table.slotOf((char) (bytes.get(i) & 0xFF));
+            if (slot >= 0) {
+                counts[slot]++;
+            }
+        }
+        bytes.position(limit);
+    }
+
+    /**
+     * Counts UTF-8 encoded bytes between the buffer's position and limit, decoding code points in place.
+     * A multibyte sequence cut off by the limit is not consumed: the position is left at its first byte,
+     * so the caller can continue from there with the next window of input. Malformed bytes are skipped one at a time,
+     * as by a decoder replacing them: like {@link java.nio.charset.StandardCharsets#UTF_8}, this rejects overlong
+     * encodings, encoded surrogates and code points above U+10FFFF. Four-byte sequences (supplementary characters)
+     * are consumed but never counted, since no letter set holds them.
+     * @param bytes The encoded text.
+     */
+    public void countUtf8(ByteBuffer bytes) {
+        int i = bytes.position();
+        int limit = bytes.limit();
+        while (i < limit) {
+            int b = bytes.get(i);
+            if (b >= 0) {
+                // ASCII fast path.
+                int slot = table.slotOf((char) b);
+                if (slot >= 0) {
+                    counts[slot]++;
+                }
+                i++;
+                continue;
+            }
+            int length = (b & 0xE0) == 0xC0 ? 2 : (b & 0xF0) == 0xE0 ? 3 : (b & 0xF8) == 0xF0 ? 4 : 0;
+            if (length == 0) {
+                i++; // Stray continuation byte or invalid lead byte.
+                continue;
+            }
+            if (i + length > limit) {
+                break; // Incomplete sequence; leave it for the next window.
+            }
+            int codePoint = b & (0x7F >> length);
+            boolean valid = true;
+            for (int k = 1; k < length; k++) {
+                int continuation = bytes.get(i + k);
+                if ((continuation & 0xC0) != 0x80) {
+                    valid = false;
+                    break;
+                }
+                codePoint = (codePoint << 6) | (continuation & 0x3F);
+            }
+            if (!valid || codePoint < MIN_CODE_POINT[length] || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                i++;
+                continue;
+            }
+            if (codePoint <= Character.MAX_VALUE) {
+                int slot = table.slotOf((char) codePoint);
+                if (slot >= 0) {
+                    counts[slot]++;
+                }
+            }
+            i += length;
+        }
+        bytes.position(i);
+    }
+
+    /**
+     * Adds to the count of a single slot; used by counting kernels that classify several chars at once.
+     * @param slot A slot of the underlying table.
+     * @param count The number of occurrences to add.
+     */
+    void add(int slot, int count) {
+        counts[slot] += count;
+    }
+
+    /**
+     * Adds the counts of another histogram built over the same letter table.
+     * @param other The histogram to merge into this one.
+     */
+    public void merge(LetterHistogram other) {
+        if (other.table != table) {
+            throw new IllegalArgumentException("Cannot merge histograms built over different letter tables.");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * Clears all counts so the histogram can be reused.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * @param slot A slot of the underlying table.
+     * @return The count recorded for that slot.
+     */
+    public long get(int slot) {
+        return counts[slot];
+    }
+
+    public LetterTable getTable() {
+        return table;
+    }
+
+    /**
+     * Builds the API-facing result: uppercase letters mapped to their counts, in table order.
+     * Letters that were never seen are left out.
+     * @return A new map, or an empty map if nothing was counted.
+     * @throws ArithmeticException if a count does not fit in an int.
+     */
+    public Map<Character, Integer> toMap() {
+        return toMap(0, counts.length);
+    }
+
+    /**
+     * Builds the API-facing result for the slots in [fromSlot, toSlot), e.g. the vowels of a combined letter table.
+     * @param fromSlot The first slot, inclusive.
+     * @param toSlot The last slot, exclusive.
+     * @return A new map, or an empty map if nothing was counted in the range.
+     * @throws ArithmeticException if a count does not fit in an int.
+     */
+    public Map<Character, Integer> toMap(int fromSlot, int toSlot) {
+        Map<Character, Integer> result = null;
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            if (counts[slot] > 0) {
+                if (result == null) {
+                    result = new LinkedHashMap<>();
+                }
+                result.put(table.letterAt(slot), toInt(slot));
+            }
+        }
+        return result != null ? result : Collections.emptyMap();
+    }
+
+    private int toInt(int slot) {
+        if (counts[slot] > Integer.MAX_VALUE) {
+            throw new ArithmeticException("The count of '" + table.letterAt(slot) + "' (" + counts[slot] + ") exceeds the range of an int.");
+        }
+        return (int) counts[slot];
+    }
+
+}
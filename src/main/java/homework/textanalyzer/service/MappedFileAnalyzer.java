@@ -0,0 +1,82 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Counts letters in a file by memory-mapping it and reading the encoded bytes directly.
+ * The file is never decoded into a String or copied onto the heap. Files larger than a single
+ * mapping (2 GB) are processed as a sequence of mapped windows.
+ * <p>
+ * Supports UTF-8 and ISO-8859-1 (Latin-1) encoded files.
+ */
+public final class MappedFileAnalyzer {
+
+    /** Default size of a mapped window. */
+    public static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    // Long enough to always hold a complete UTF-8 sequence, so every window makes progress.
+    private static final long MIN_WINDOW_SIZE = 4;
+
+    private final long windowSize;
+
+    public MappedFileAnalyzer() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize The number of bytes mapped at a time; at most Integer.MAX_VALUE.
+     */
+    public MappedFileAnalyzer(long windowSize) {
+        if (windowSize < MIN_WINDOW_SIZE || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window size must be between " + MIN_WINDOW_SIZE + " and " + Integer.MAX_VALUE + " bytes.");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Counts the letters of the given table in a file.
+     *
+     * @param file The file to analyze.
+     * @param table The letters to count.
+     * @param charset The file's encoding: UTF-8 or ISO-8859-1.
+     * @return A histogram holding the counts.
+     * @throws IOException if the file cannot be opened or mapped.
+     * @throws IllegalArgumentException if the charset is not supported.
+     */
+    public LetterHistogram analyze(Path file, LetterTable table, Charset charset) throws IOException {
+        boolean utf8 = StandardCharsets.UTF_8.equals(charset);
+        if (!utf8 && !StandardCharsets.ISO_8859_1.equals(charset)) {
+            throw new IllegalArgumentException("Unsupported charset " + charset + "; expected UTF-8 or ISO-8859-1.");
+        }
+
+        LetterHistogram histogram = new LetterHistogram(table);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(windowSize, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (utf8) {
+                    histogram.countUtf8(window);
+                } else {
+                    histogram.countLatin1(window);
+                }
+                if (position + length == size) {
+                    break; // A sequence cut off by the end of the file is malformed and ignored.
+                }
+                // Resume at the first byte the window did not consume (the start of a split UTF-8 sequence).
+                position += window.position();
+            }
+        }
+        return histogram;
+    }
+
+}
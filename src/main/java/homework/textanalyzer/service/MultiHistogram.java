@@ -0,0 +1,152 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes several analysis types over the same input in one pass.
+ * Vowels and consonants share one histogram over the alphabet's combined letter table, so both cost a single
+ * lookup per char; words and letter n-grams are counted from the same chunk while it is still in cache.
+ * <p>
+ * Input can be fed in any number of chunks; call {@link #finish()} after the last one. Further inputs may follow a
+ * finished one and are counted as separate texts. Instances are not thread-safe.
+ */
+final class MultiHistogram {
+
+    private final Set<AnalysisType> types;
+    private final LetterCounter letterCounter;
+    private final LetterHistogram letters; // Null if no letter type was requested
+    private final int vowelCount;
+    private final WordHistogram words; // Null if WORD was not requested
+    private final NGramHistogram bigrams; // Null if BIGRAM was not requested
+    private final NGramHistogram trigrams; // Null if TRIGRAM was not requested
+
+    MultiHistogram(Set<AnalysisType> types, Alphabet alphabet, LetterCounter letterCounter) {
+        this.types = types;
+        this.letterCounter = letterCounter;
+        boolean countLetters = types.contains(AnalysisType.VOWELS) || types.contains(AnalysisType.CONSONANTS);
+        this.letters = countLetters ? new LetterHistogram(alphabet.getLetters()) : null;
+        this.vowelCount = alphabet.getVowels().size();
+        this.words = types.contains(AnalysisType.WORD) ? new WordHistogram() : null;
+        this.bigrams = types.contains(AnalysisType.BIGRAM) ? new NGramHistogram(alphabet.getLetters(), 2) : null;
+        this.trigrams = types.contains(AnalysisType.TRIGRAM) ? new NGramHistogram(alphabet.getLetters(), 3) : null;
+    }
+
+    void count(CharSequence text, int from, int to) {
+        if (letters != null) {
+            letterCounter.count(letters, text, from, to);
+        }
+        if (words != null) {
+            words.count(text, from, to);
+        }
+        if (bigrams != null) {
+            bigrams.count(text, from, to);
+        }
+        if (trigrams != null) {
+            trigrams.count(text, from, to);
+        }
+    }
+
+    void count(char[] chars, int from, int to) {
+        if (letters != null) {
+            letterCounter.count(letters, chars, from, to);
+        }
+        if (words != null) {
+            words.count(chars, from, to);
+        }
+        if (bigrams != null) {
+            bigrams.count(chars, from, to);
+        }
+        if (trigrams != null) {
+            trigrams.count(chars, from, to);
+        }
+    }
+
+    /**
+     * Ends the current input: counts the pending word and ends the run of letters, so no word or n-gram spans two inputs.
+     */
+    void finish() {
+        if (words != null) {
+            words.finish();
+        }
+        if (bigrams != null) {
+            bigrams.finish();
+        }
+        if (trigrams != null) {
+            trigrams.finish();
+        }
+    }
+
+    /**
+     * Adds the counts of another finished histogram built for the same types and alphabet.
+     * @param other The histogram to merge into this one.
+     */
+    void merge(MultiHistogram other) {
+        if (letters != null) {
+            letters.merge(other.letters);
+        }
+        if (words != null) {
+            words.merge(other.words);
+        }
+        if (bigrams != null) {
+            bigrams.merge(other.bigrams);
+        }
+        if (trigrams != null) {
+            trigrams.merge(other.trigrams);
+        }
+    }
+
+    /**
+     * Clears all counts so the histogram can be reused.
+     */
+    void reset() {
+        if (letters != null) {
+            letters.reset();
+        }
+        if (words != null) {
+            words.reset();
+        }
+        if (bigrams != null) {
+            bigrams.reset();
+        }
+        if (trigrams != null) {
+            trigrams.reset();
+        }
+    }
+
+    /**
+     * @param wordLimit The number of most frequent words or n-grams to return; 0 or less returns all of them.
+     * @return One result per requested type, in AnalysisType order, keyed like the single-type responses.
+     */
+    Map<AnalysisType, Map<String, Integer>> toMaps(int wordLimit) {
+        Map<AnalysisType, Map<String, Integer>> results = new EnumMap<>(AnalysisType.class);
+        if (types.contains(AnalysisType.VOWELS)) {
+            results.put(AnalysisType.VOWELS, withStringKeys(letters.toMap(0, vowelCount)));
+        }
+        if (types.contains(AnalysisType.CONSONANTS)) {
+            results.put(AnalysisType.CONSONANTS, withStringKeys(letters.toMap(vowelCount, letters.getTable().size())));
+        }
+        if (words != null) {
+            results.put(AnalysisType.WORD, words.toMap(wordLimit));
+        }
+        if (bigrams != null) {
+            results.put(AnalysisType.BIGRAM, bigrams.toTopK(wordLimit));
+        }
+        if (trigrams != null) {
+            results.put(AnalysisType.TRIGRAM, trigrams.toTopK(wordLimit));
+        }
+        return results;
+    }
+
+    private static Map<String, Integer> withStringKeys(Map<Character, Integer> counts) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        counts.forEach((letter, count) -> result.put(String.valueOf(letter), count));
+        return result;
+    }
+
+}
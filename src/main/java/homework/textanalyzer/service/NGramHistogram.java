@@ -0,0 +1,244 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Letter n-gram (bigram or trigram) histogram backed by a dense matrix over a {@link LetterTable}.
+ * An n-gram of slots (s1, ..., sn) is counted at index s1 * k^(n-1) + ... + sn, where k is the table size,
+ * so English needs 26² or 26³ ints. Counting costs the same table read per char as the single-letter path,
+ * plus one multiply-add to roll the index forward.
+ * <p>
+ * N-grams never span a char outside the table: spaces, digits and punctuation end the current run of letters,
+ * so "a thin" counts TH, HI and IN but not AT. The last n-1 letters are kept between calls, so input can be fed
+ * in any number of chunks. Instances are not thread-safe; use one per thread and {@link #merge(NGramHistogram)} them.
+ */
+final class NGramHistogram {
+
+    private final LetterTable table;
+    private final int length;
+    private final int[] counts;
+
+    // Index of the last length-1 letters of the current run, or -1 if the run is shorter than that.
+    private int prefix = -1;
+    // Slot of the last letter, or -1 if the last char was not a letter; only used for trigrams.
+    private int previous = -1;
+
+    NGramHistogram(LetterTable table, int length) {
+        if (length != 2 && length != 3) {
+            throw new IllegalArgumentException("Only bigrams and trigrams are supported, not " + length + "-grams.");
+        }
+        this.table = table;
+        this.length = length;
+        int size = table.size();
+        this.counts = new int[length == 2 ? size * size : size * size * size];
+    }
+
+    /**
+     * @return The size in bytes of the count matrix of an n-gram histogram over the table, e.g. about 70 KB
+     * for English trigrams; allocated up front, whatever is counted into it.
+     */
+    static long matrixBytes(LetterTable table, int length) {
+        long cells = 1;
+        for (int i = 0; i < length; i++) {
+            cells *= table.size();
+        }
+        return cells * Integer.BYTES;
+    }
+
+    /**
+     * Counts the n-grams ending in the range [from, to) of the given text.
+     * @param text The text to scan.
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     */
+    void count(CharSequence text, int from, int to) {
+        int k = table.size();
+        int prefix = this.prefix;
+        if (length == 2) {
+            for (int i = from; i < to; i++) {
+                int slot = table.slotOf(text.charAt(i));
+                if (slot < 0) {
+                    prefix = -1;
+                    continue;
+                }
+                if (prefix >= 0) {
+                    counts[prefix * k + slot]++;
+                }
+                prefix = slot;
+            }
+        } else {
+            int previous = this.previous;
+            for (int i = from; i < to; i++) {
+                int slot = table.slotOf(text.charAt(i));
+                if (slot < 0) {
+                    prefix = -1;
+                    previous = -1;
+                    continue;
+                }
+                if (prefix >= 0) {
+                    counts[prefix * k + slot]++;
+                }
+                prefix = previous >= 0 ? previous * k + slot : -1;
+                previous = slot;
+            }
+            this.previous = previous;
+        }
+        this.prefix = prefix;
+    }
+
+    /**
+     * Counts the n-grams ending in the range [from, to) of the given buffer.
+     * @param chars The buffer to scan.
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     */
+    void count(char[] chars, int from, int to) {
+        int k = table.size();
+        int prefix = this.prefix;
+        if (length == 2) {
+            for (int i = from; i < to; i++) {
+                int slot = table.slotOf(chars[i]);
+                if (slot < 0) {
+                    prefix = -1;
+                    continue;
+                }
+                if (prefix >= 0) {
+                    counts[prefix * k + slot]++;
+                }
+                prefix = slot;
+            }
+        } else {
+            int previous = this.previous;
+            for (int i = from; i < to; i++) {
+                int slot = table.slotOf(chars[i]);
+                if (slot < 0) {
+                    prefix = -1;
+                    previous = -1;
+                    continue;
+                }
+                if (prefix >= 0) {
+                    counts[prefix * k + slot]++;
+                }
+                prefix = previous >= 0 ? previous * k + slot : -1;
+                previous = slot;
+            }
+            this.previous = previous;
+        }
+        this.prefix = prefix;
+    }
+
+    /**
+     * Reads the chars before a range without counting them, so that the n-grams that start before the range
+     * and end inside it are counted by the next {@link #count(CharSequence, int, int)} call. Used to split a text
+     * into ranges that are counted separately: priming with the length-1 chars before each range makes the merged
+     * counts identical to a sequential scan.
+     * @param text The text the range belongs to.
+     * @param rangeStart The first index of the range that will be counted next.
+     */
+    void prime(CharSequence text, int rangeStart) {
+        prefix = -1;
+        previous = -1;
+        int k = table.size();
+        for (int i = Math.max(0, rangeStart - (length - 1)); i < rangeStart; i++) {
+            int slot = table.slotOf(text.charAt(i));
+            if (slot < 0) {
+                prefix = -1;
+                previous = -1;
+            } else if (length == 2) {
+                prefix = slot;
+            } else {
+                prefix = previous >= 0 ? previous * k + slot : -1;
+                previous = slot;
+            }
+        }
+    }
+
+    /**
+     * Ends the current run of letters, so that no n-gram spans the end of one input and the start of the next.
+     */
+    void finish() {
+        prefix = -1;
+        previous = -1;
+    }
+
+    /**
+     * Adds the counts of another histogram built over the same letter table and n-gram length.
+     * The run of letters at the end of the other histogram's input is not carried over.
+     * @param other The histogram to merge into this one.
+     * @throws ArithmeticException if a merged count does not fit in an int.
+     */
+    void merge(NGramHistogram other) {
+        if (other.table != table || other.length != length) {
+            throw new IllegalArgumentException("Cannot merge n-gram histograms of different letter tables or lengths.");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = Math.addExact(counts[i], other.counts[i]);
+        }
+    }
+
+    /**
+     * Clears all counts and the current run so the histogram can be reused.
+     */
+    void reset() {
+        Arrays.fill(counts, 0);
+        prefix = -1;
+        previous = -1;
+    }
+
+    LetterTable getTable() {
+        return table;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * Builds the API-facing result: the most frequent n-grams as uppercase strings (e.g. "TH"), most frequent first.
+     * Ties keep the order of the letter table. Only n-grams that were seen are included, so the result stays small
+     * however large the matrix is.
+     * @param limit The maximum number of n-grams to return; 0 or less returns every n-gram seen.
+     * @return A new map in descending order of count, or an empty map if nothing was counted.
+     */
+    Map<String, Integer> toTopK(int limit) {
+        int seen = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                seen++;
+            }
+        }
+        if (seen == 0) {
+            return Collections.emptyMap();
+        }
+        // Sort (descending count, ascending index) as primitive longs instead of boxing an entry per n-gram.
+        long[] order = new long[seen];
+        int next = 0;
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] > 0) {
+                order[next++] = ((long) (Integer.MAX_VALUE - counts[index]) << 32) | index;
+            }
+        }
+        Arrays.sort(order);
+
+        int size = limit > 0 ? Math.min(limit, seen) : seen;
+        Map<String, Integer> result = new LinkedHashMap<>();
+        char[] letters = new char[length];
+        int k = table.size();
+        for (int i = 0; i < size; i++) {
+            int index = (int) order[i];
+            int rest = index;
+            for (int position = length - 1; position >= 0; position--) {
+                letters[position] = table.letterAt(rest % k);
+                rest /= k;
+            }
+            result.put(new String(letters), counts[index]);
+        }
+        return result;
+    }
+
+}
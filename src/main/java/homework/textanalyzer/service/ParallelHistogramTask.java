@@ -0,0 +1,45 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join task that counts a range of a text into its own histogram and merges the halves on the way back up.
+ * Ranges may be split anywhere, even between the two halves of a surrogate pair: surrogates never map to a letter
+ * slot, so the merged counts are identical to a sequential scan.
+ */
+final class ParallelHistogramTask extends RecursiveTask<LetterHistogram> {
+
+    private final CharSequence text;
+    private final LetterTable table;
+    private final LetterCounter counter;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+
+    ParallelHistogramTask(CharSequence text, LetterTable table, LetterCounter counter, int from, int to, int leafSize) {
+        this.text = text;
+        this.table = table;
+        this.counter = counter;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+    }
+
+    @Override
+    protected LetterHistogram compute() {
+        if (to - from <= leafSize) {
+            LetterHistogram histogram = new LetterHistogram(table);
+            counter.count(histogram, text, from, to);
+            return histogram;
+        }
+        int middle = (from + to) >>> 1;
+        ParallelHistogramTask left = new ParallelHistogramTask(text, table, counter, from, middle, leafSize);
+        left.fork();
+        LetterHistogram histogram = new ParallelHistogramTask(text, table, counter, middle, to, leafSize).compute();
+        histogram.merge(left.join());
+        return histogram;
+    }
+
+}
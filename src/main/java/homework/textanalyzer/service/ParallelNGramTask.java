@@ -0,0 +1,46 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork/join task that counts the n-grams ending in a range of a text and merges the halves on the way back up.
+ * Each leaf primes its histogram with the chars just before its range, so n-grams that straddle a split point
+ * are counted exactly once and the merged counts are identical to a sequential scan.
+ */
+final class ParallelNGramTask extends RecursiveTask<NGramHistogram> {
+
+    private final CharSequence text;
+    private final LetterTable table;
+    private final int length;
+    private final int from;
+    private final int to;
+    private final int leafSize;
+
+    ParallelNGramTask(CharSequence text, LetterTable table, int length, int from, int to, int leafSize) {
+        this.text = text;
+        this.table = table;
+        this.length = length;
+        this.from = from;
+        this.to = to;
+        this.leafSize = leafSize;
+    }
+
+    @Override
+    protected NGramHistogram compute() {
+        if (to - from <= leafSize) {
+            NGramHistogram histogram = new NGramHistogram(table, length);
+            histogram.prime(text, from);
+            histogram.count(text, from, to);
+            return histogram;
+        }
+        int middle = (from + to) >>> 1;
+        ParallelNGramTask left = new ParallelNGramTask(text, table, length, from, middle, leafSize);
+        left.fork();
+        NGramHistogram histogram = new ParallelNGramTask(text, table, length, middle, to, leafSize).compute();
+        histogram.merge(left.join());
+        return histogram;
+    }
+
+}
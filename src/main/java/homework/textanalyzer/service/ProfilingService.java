@@ -0,0 +1,170 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.model.ProfilingRecordingResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts, dumps and stops a Java Flight Recorder recording of this instance, holding the {@link AnalysisEvents}
+ * together with the JVM's own events (GC, allocation, locks, CPU samples). Recordings are written to files in
+ * text.analyzer.profiling.dir, which is empty by default, disabling recording control; events are still emitted
+ * to recordings started otherwise, e.g. with -XX:StartFlightRecording or jcmd JFR.start.
+ * <p>
+ * One recording runs at a time. It keeps the last max-age of events, at most max-size bytes, so it can be left
+ * running and dumped when latency spikes. With record-on-startup, a recording starts with the application and is
+ * dumped when it shuts down.
+ */
+@Slf4j
+@Service
+public class ProfilingService {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    // Directory recordings are dumped to; empty disables recording control.
+    @Value("${text.analyzer.profiling.dir:}")
+    private String dir = "";
+
+    // JFR settings: "default" (about 1% overhead) or "profile" (more detail, about 2%), or the path of a .jfc file.
+    @Value("${text.analyzer.profiling.settings:default}")
+    private String settings = "default";
+
+    @Value("${text.analyzer.profiling.max-age:30m}")
+    private Duration maxAge = Duration.ofMinutes(30);
+
+    @Value("${text.analyzer.profiling.max-size:268435456}")
+    private long maxSize = 256L * 1024 * 1024;
+
+    @Value("${text.analyzer.profiling.record-on-startup:false}")
+    private boolean recordOnStartup;
+
+    private Recording recording;
+    private Path lastDump;
+
+    @PostConstruct
+    void startOnStartup() throws IOException {
+        if (recordOnStartup && !dir.isBlank()) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    synchronized void stopOnShutdown() throws IOException {
+        if (recording != null) {
+            stop();
+        }
+    }
+
+    /**
+     * Starts a recording.
+     * @return The state of the new recording.
+     * @throws InvalidRequestException if recording control is disabled or a recording is already running.
+     * @throws IllegalStateException if the configured settings cannot be read.
+     * @throws IOException if the recording directory cannot be created.
+     */
+    public synchronized ProfilingRecordingResponse start() throws IOException {
+        requireEnabled();
+        if (recording != null) {
+            throw new InvalidRequestException("A recording is already running; stop it first.");
+        }
+        Files.createDirectories(Path.of(dir));
+        Recording started = new Recording(configuration());
+        started.setName("textanalyzer");
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSize);
+        started.start();
+        recording = started;
+        log.info("Started flight recording with {} settings", settings);
+        return status();
+    }
+
+    /**
+     * Writes the events recorded so far to a new file, leaving the recording running.
+     * @return The state of the recording, with the file written.
+     * @throws InvalidRequestException if recording control is disabled or no recording is running.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized ProfilingRecordingResponse dump() throws IOException {
+        requireRunning();
+        lastDump = dumpTo(recording);
+        return status();
+    }
+
+    /**
+     * Stops the recording and writes its events to a new file.
+     * @return The state after stopping, with the file written.
+     * @throws InvalidRequestException if recording control is disabled or no recording is running.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized ProfilingRecordingResponse stop() throws IOException {
+        requireRunning();
+        try {
+            recording.stop();
+            lastDump = dumpTo(recording);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+        return status();
+    }
+
+    /**
+     * @return Whether a recording is running, since when, and the file of the last dump.
+     */
+    public synchronized ProfilingRecordingResponse status() throws IOException {
+        ProfilingRecordingResponse response = new ProfilingRecordingResponse();
+        response.setRunning(recording != null);
+        if (recording != null) {
+            response.setStartedAt(recording.getStartTime());
+            response.setSettings(settings);
+        }
+        if (lastDump != null) {
+            response.setFile(lastDump.toString());
+            response.setFileSize(Files.size(lastDump));
+        }
+        return response;
+    }
+
+    private Path dumpTo(Recording source) throws IOException {
+        Path file = Path.of(dir).resolve("textanalyzer-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr").toAbsolutePath();
+        source.dump(file);
+        log.info("Dumped flight recording to {}", file);
+        return file;
+    }
+
+    private Configuration configuration() throws IOException {
+        try {
+            return settings.endsWith(".jfc") ? Configuration.create(Path.of(settings)) : Configuration.getConfiguration(settings);
+        } catch (ParseException | IOException ex) {
+            throw new IllegalStateException("Cannot read the flight recorder settings '" + settings + "': " + ex.getMessage(), ex);
+        }
+    }
+
+    private void requireEnabled() {
+        if (dir.isBlank()) {
+            throw new InvalidRequestException("Flight recording is disabled; set text.analyzer.profiling.dir to enable it.");
+        }
+    }
+
+    private void requireRunning() {
+        requireEnabled();
+        if (recording == null) {
+            throw new InvalidRequestException("No recording is running.");
+        }
+    }
+
+}
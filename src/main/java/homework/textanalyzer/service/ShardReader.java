@@ -0,0 +1,94 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.TextLengthExceededException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Cuts a stream of text into shards of about shardSize chars for sharded analysis.
+ * A shard ends right after a char that can neither be part of a word nor of a letter n-gram (whitespace, punctuation),
+ * so counting the shards separately and adding up the counts gives the same result as counting the whole text.
+ * Only a run of more than shardSize word chars is cut inside; even then a surrogate pair is never split.
+ * <p>
+ * At most shardSize + {@link TextAnalyzerService#STREAM_CHUNK_SIZE} chars are buffered at a time. Instances are not thread-safe.
+ */
+final class ShardReader {
+
+    private final Reader reader;
+    private final int shardSize;
+    private final long maxLength;
+    private final char[] buffer = new char[TextAnalyzerService.STREAM_CHUNK_SIZE];
+    private final StringBuilder pending = new StringBuilder();
+    private long totalLength;
+    private boolean endOfInput;
+
+    /**
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param shardSize The target shard length in chars; at least 2.
+     * @param maxLength The maximum number of characters accepted from the stream.
+     */
+    ShardReader(Reader reader, int shardSize, long maxLength) {
+        if (shardSize < 2) {
+            throw new IllegalArgumentException("The shard size must be at least 2 chars.");
+        }
+        this.reader = reader;
+        this.shardSize = shardSize;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return The next shard, at most shardSize chars long, or null at the end of the input.
+     * @throws TextLengthExceededException as soon as more than maxLength chars have been read.
+     */
+    String next() throws IOException {
+        while (!endOfInput && pending.length() < shardSize) {
+            int read = reader.read(buffer);
+            if (read == -1) {
+                endOfInput = true;
+            } else {
+                totalLength += read;
+                if (totalLength > maxLength) {
+                    throw new TextLengthExceededException("Input text exceeds maximum allowed length of " + maxLength + " characters.");
+                }
+                pending.append(buffer, 0, read);
+            }
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        int end = pending.length() <= shardSize ? pending.length() : cutPoint(pending, shardSize);
+        String shard = pending.substring(0, end);
+        pending.delete(0, end);
+        return shard;
+    }
+
+    /**
+     * @return The number of chars read so far.
+     */
+    long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * @return The end of the first shard of a text longer than limit: just after the last separator within the limit,
+     * or, without one, at the limit unless that would split a surrogate pair.
+     */
+    static int cutPoint(CharSequence text, int limit) {
+        for (int end = limit; end > 0; end--) {
+            if (isSeparator(text.charAt(end - 1))) {
+                return end;
+            }
+        }
+        return Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+    }
+
+    /**
+     * Word chars are letters, digits and the apostrophes that may join them (see {@link WordHistogram});
+     * every letter of an alphabet is a letter, and surrogates may belong to a supplementary letter.
+     */
+    private static boolean isSeparator(char ch) {
+        return !Character.isLetterOrDigit(ch) && !Character.isSurrogate(ch) && ch != '\'' && ch != '’';
+    }
+
+}
@@ -0,0 +1,440 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.ShardAnalysisException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.MultiAnalysisResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.LetterTable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Coordinator of sharded (scatter/gather) analysis for inputs too large for one instance.
+ * The input is cut into shards at word boundaries ({@link ShardReader}) and every shard is sent to one of the configured
+ * workers, other instances of this service, as a POST /analyze/multi request. The workers' counts are added up as they
+ * come back, so the merged result equals a single-instance analysis of the whole input.
+ * <p>
+ * Shards are assigned round-robin. A shard whose worker cannot be reached, answers with a server error or 429 Too Many
+ * Requests, or does not answer within the timeout is reassigned to the next worker; any other client error means the
+ * request itself is wrong, so it fails the analysis at once. A shard still running after hedge-after is also sent to the
+ * next worker, and the first answer wins. A shard that fails max-attempts times fails the whole analysis. At most
+ * max-in-flight shards of a request are out at a time, which bounds the coordinator's memory to a few shards whatever
+ * the size of the input.
+ * <p>
+ * Words and n-grams are bounded by max-words: each worker returns only the max-words most frequent ones of its shard,
+ * and the merged counts are cut back to the max-words most frequent whenever they grow to twice that. This makes the
+ * merge approximate once a shard or the merge holds more distinct words than that: a word loses the counts of the shards
+ * where it was not among the most frequent, so merged counts are lower bounds, and words near the limit may be missed.
+ * Frequent words, the ones a limited result is made of, are exact as long as they make each shard's cut. Results hold
+ * at most max-words entries; a max-words of 0 keeps every word, which is exact but unbounded.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ShardedAnalysisService implements MeterBinder {
+
+    private static final MediaType TEXT_PLAIN_UTF8 = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+    private final RestClient.Builder restClientBuilder;
+
+    // Base URLs of the worker instances, e.g. http://10.0.0.2:8080; empty disables sharded analysis.
+    @Value("${text.analyzer.cluster.workers:}")
+    private List<String> workers = List.of();
+
+    // Target shard length in chars; shards end at the last word boundary before it.
+    @Value("${text.analyzer.cluster.shard-size:4194304}")
+    private int shardSize = 4 * 1024 * 1024;
+
+    // Shards of one analysis sent out but not yet merged; 0 allows two per worker.
+    @Value("${text.analyzer.cluster.max-in-flight:0}")
+    private int maxInFlight;
+
+    // How long a worker may take to answer for a shard before the shard is reassigned.
+    @Value("${text.analyzer.cluster.timeout:60s}")
+    private Duration timeout = Duration.ofSeconds(60);
+
+    // A shard without an answer after this long is also sent to the next worker; 0 disables hedging.
+    @Value("${text.analyzer.cluster.hedge-after:10s}")
+    private Duration hedgeAfter = Duration.ofSeconds(10);
+
+    // Number of workers a shard is sent to, at most, before the analysis fails.
+    @Value("${text.analyzer.cluster.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    @Value("${text.analyzer.cluster.max-length:10737418240}")
+    private long maxLength = 10L * 1024 * 1024 * 1024;
+
+    // Directory that files may be analyzed from by path, shared with background jobs.
+    @Value("${text.analyzer.jobs.allowed-dir:}")
+    private String allowedDir = "";
+
+    @Value("${text.analyzer.word.default-limit:100}")
+    private int defaultWordLimit = 100;
+
+    // Words and n-grams returned per shard and kept in the merged counts per type; 0 keeps all of them.
+    @Value("${text.analyzer.cluster.max-words:100000}")
+    private int maxWords = 100_000;
+
+    private final LongAdder shardsCompleted = new LongAdder();
+    private final LongAdder shardsRetried = new LongAdder();
+    private final LongAdder shardsHedged = new LongAdder();
+    private final LongAdder shardsFailed = new LongAdder();
+
+    private RestClient restClient;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(HttpClient.newBuilder().connectTimeout(timeout).build());
+        requestFactory.setReadTimeout(timeout);
+        restClient = restClientBuilder.clone().requestFactory(requestFactory).build();
+        // Worker calls spend their time waiting on the network, so each one gets its own virtual thread.
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("shard-", 0).factory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Analyzes a stream of text across the workers.
+     *
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; null for the default.
+     * @return One result per requested type, merged from all shards; the text is not echoed back.
+     * @throws IOException if reading the input fails.
+     * @throws InvalidRequestException if no worker is configured or no analysis type is given.
+     * @throws TextLengthExceededException if the input exceeds the maximum length.
+     * @throws ShardAnalysisException if a shard could not be analyzed by any worker.
+     */
+    public MultiAnalysisResponse analyze(Reader reader, Set<AnalysisType> types, Alphabet alphabet, Integer wordLimit) throws IOException {
+        Gather gather = new Gather(requireTypes(types), alphabet != null ? alphabet : Alphabet.ENGLISH);
+        scatter(reader, gather, maxLength);
+        return gather.finish(wordLimit != null ? wordLimit : defaultWordLimit);
+    }
+
+    /**
+     * Analyzes files that are already on the server across the workers, as if they were one text.
+     * Shards never span two files, so no word or n-gram is formed across the end of one file and the start of the next.
+     *
+     * @param paths The files' paths, relative to the directory configured in text.analyzer.jobs.allowed-dir.
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit For WORD, BIGRAM and TRIGRAM, the number of most frequent words or n-grams to return; null for the default.
+     * @return One result per requested type, merged from all shards of all files.
+     * @throws IOException if reading a file fails.
+     * @throws InvalidRequestException if no worker is configured, no analysis type is given, or a path is not an allowed file.
+     * @throws TextLengthExceededException if the files together exceed the maximum length.
+     * @throws ShardAnalysisException if a shard could not be analyzed by any worker.
+     */
+    public MultiAnalysisResponse analyzeFiles(List<String> paths, Set<AnalysisType> types, Alphabet alphabet, Integer wordLimit) throws IOException {
+        Gather gather = new Gather(requireTypes(types), alphabet != null ? alphabet : Alphabet.ENGLISH);
+        // Validate every path before the first shard goes out.
+        List<Path> files = new ArrayList<>();
+        for (String path : paths) {
+            files.add(AnalysisJobService.resolveAllowedFile(allowedDir, path));
+        }
+        long remaining = maxLength;
+        for (Path file : files) {
+            try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+                remaining -= scatter(reader, gather, remaining);
+            }
+        }
+        return gather.finish(wordLimit != null ? wordLimit : defaultWordLimit);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("textanalyzer.cluster.shards", shardsCompleted, LongAdder::sum).tag("outcome", "completed").register(registry);
+        FunctionCounter.builder("textanalyzer.cluster.shards", shardsRetried, LongAdder::sum).tag("outcome", "retried").register(registry);
+        FunctionCounter.builder("textanalyzer.cluster.shards", shardsHedged, LongAdder::sum).tag("outcome", "hedged").register(registry);
+        FunctionCounter.builder("textanalyzer.cluster.shards", shardsFailed, LongAdder::sum).tag("outcome", "failed").register(registry);
+    }
+
+    /**
+     * Reads the input shard by shard and sends each shard out as soon as an in-flight slot is free.
+     * @return The number of chars read.
+     */
+    private long scatter(Reader reader, Gather gather, long lengthLimit) throws IOException {
+        ShardReader shards = new ShardReader(reader, shardSize, lengthLimit);
+        String shard;
+        while ((shard = shards.next()) != null) {
+            if (shard.isBlank()) {
+                continue; // Nothing to count.
+            }
+            gather.acquireSlot();
+            new ShardCall(gather.shardCount++, shard, gather).launch();
+        }
+        return shards.getTotalLength();
+    }
+
+    private Map<AnalysisType, Map<String, Integer>> callWorker(String worker, String shard, Gather gather) {
+        MultiAnalysisResponse response = restClient.post()
+                .uri(worker + "/analyze/multi?types={types}&alphabet={alphabet}&limit={limit}", gather.typesParameter, gather.alphabet.name(), maxWords)
+                .contentType(TEXT_PLAIN_UTF8)
+                .body(shard)
+                .retrieve()
+                .body(MultiAnalysisResponse.class);
+        if (response == null || response.getResults() == null) {
+            throw new IllegalStateException("empty response");
+        }
+        return response.getResults();
+    }
+
+    private Set<AnalysisType> requireTypes(Set<AnalysisType> types) {
+        if (workers.isEmpty()) {
+            throw new InvalidRequestException("Sharded analysis is disabled; set text.analyzer.cluster.workers to enable it.");
+        }
+        // An empty "types=" parameter binds to a set holding only null.
+        Set<AnalysisType> requested = EnumSet.noneOf(AnalysisType.class);
+        types.stream().filter(Objects::nonNull).forEach(requested::add);
+        if (requested.isEmpty()) {
+            throw new InvalidRequestException("At least one analysis type is required.");
+        }
+        return requested;
+    }
+
+    private static String describe(Throwable ex) {
+        Throwable cause = unwrap(ex);
+        return cause instanceof TimeoutException ? "no answer in time" : cause.getMessage();
+    }
+
+    /**
+     * @return Whether another worker may succeed where this attempt failed: the worker could not be reached, timed out,
+     * failed itself or was too busy. Other client errors would be returned by every worker.
+     */
+    private static boolean isRetryable(Throwable ex) {
+        Throwable cause = unwrap(ex);
+        if (cause instanceof HttpClientErrorException clientError) {
+            return clientError.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+        }
+        return cause instanceof ResourceAccessException || cause instanceof TimeoutException || cause instanceof HttpServerErrorException;
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private static Map<String, Integer> inTableOrder(Map<String, Integer> counts, LetterTable table) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int slot = 0; slot < table.size(); slot++) {
+            Integer count = counts.get(String.valueOf(table.letterAt(slot)));
+            if (count != null && count > 0) {
+                result.put(String.valueOf(table.letterAt(slot)), count);
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Integer> mostFrequent(Map<String, Integer> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    /**
+     * State of one sharded analysis: the in-flight slots, the merged counts and the first shard failure.
+     */
+    private final class Gather {
+
+        private final Set<AnalysisType> types;
+        private final Alphabet alphabet;
+        private final String typesParameter;
+        private final int slots = maxInFlight > 0 ? maxInFlight : 2 * workers.size();
+        private final Semaphore inFlight = new Semaphore(slots);
+        private final Map<AnalysisType, Map<String, Integer>> counts = new EnumMap<>(AnalysisType.class);
+        private volatile ShardAnalysisException failure;
+        private int shardCount; // Only used by the reading thread
+
+        Gather(Set<AnalysisType> types, Alphabet alphabet) {
+            this.types = types;
+            this.alphabet = alphabet;
+            this.typesParameter = types.stream().map(AnalysisType::name).collect(Collectors.joining(","));
+        }
+
+        void acquireSlot() throws InterruptedIOException {
+            acquire(1);
+        }
+
+        synchronized void add(Map<AnalysisType, Map<String, Integer>> shardCounts) {
+            shardCounts.forEach((type, typeCounts) -> {
+                Map<String, Integer> merged = counts.computeIfAbsent(type, t -> new HashMap<>());
+                typeCounts.forEach((key, count) -> merged.merge(key, count, Integer::sum));
+                // Letter counts are bounded by the alphabet; words and n-grams are cut back to the most frequent.
+                if (maxWords > 0 && merged.size() > 2 * maxWords && alphabet.tableFor(type) == null) {
+                    counts.put(type, new HashMap<>(mostFrequent(merged, maxWords)));
+                }
+            });
+        }
+
+        void fail(ShardAnalysisException ex) {
+            if (failure == null) {
+                failure = ex;
+            }
+        }
+
+        void release() {
+            inFlight.release();
+        }
+
+        /**
+         * Waits for every shard, then builds the results: letters in table order, words and n-grams most frequent first.
+         * Words and n-grams with the same count are ordered alphabetically, so at the limit a tie may be resolved
+         * differently than by a single-instance analysis.
+         */
+        MultiAnalysisResponse finish(int limit) throws InterruptedIOException {
+            acquire(slots);
+            Map<AnalysisType, Map<String, Integer>> results = new EnumMap<>(AnalysisType.class);
+            synchronized (this) {
+                for (AnalysisType type : types) {
+                    Map<String, Integer> merged = counts.getOrDefault(type, Map.of());
+                    LetterTable table = alphabet.tableFor(type);
+                    results.put(type, table != null ? inTableOrder(merged, table) : mostFrequent(merged, limit));
+                }
+            }
+            return new MultiAnalysisResponse(results, null, alphabet);
+        }
+
+        private void acquire(int permits) throws InterruptedIOException {
+            try {
+                inFlight.acquire(permits);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the workers.");
+            }
+            if (failure != null) {
+                inFlight.release(permits);
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * One shard on its way through the workers: the attempts sent out, how many are still running, and whether it is done.
+     */
+    private final class ShardCall {
+
+        private final int index;
+        private final String text;
+        private final Gather gather;
+        private int attempts;
+        private int running;
+        private boolean done;
+        private String lastError;
+
+        ShardCall(int index, String text, Gather gather) {
+            this.index = index;
+            this.text = text;
+            this.gather = gather;
+        }
+
+        /**
+         * Sends the shard to the next worker in line, starting at the shard's own position in the worker list.
+         */
+        synchronized void launch() {
+            String worker = workers.get((index + attempts) % workers.size());
+            int attempt = ++attempts;
+            running++;
+            CompletableFuture.supplyAsync(() -> callWorker(worker, text, gather), executor)
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((counts, ex) -> finished(worker, counts, ex));
+            if (hedgeAfter.isPositive() && attempts < maxAttempts) {
+                CompletableFuture.delayedExecutor(hedgeAfter.toMillis(), TimeUnit.MILLISECONDS, executor).execute(() -> hedge(attempt));
+            }
+        }
+
+        /**
+         * Sends the shard to another worker as well if the given attempt is still the latest one and has not answered.
+         */
+        private synchronized void hedge(int attempt) {
+            if (!done && attempt == attempts && attempts < maxAttempts) {
+                shardsHedged.increment();
+                launch();
+            }
+        }
+
+        private void finished(String worker, Map<AnalysisType, Map<String, Integer>> counts, Throwable ex) {
+            synchronized (this) {
+                running--;
+                if (done) {
+                    return; // Another attempt answered first.
+                }
+                if (ex != null) {
+                    lastError = worker + ": " + describe(ex);
+                    log.warn("Shard {} failed on attempt {}, {}", index, attempts, lastError);
+                    if (isRetryable(ex)) {
+                        if (attempts < maxAttempts) {
+                            shardsRetried.increment();
+                            launch();
+                            return;
+                        }
+                        if (running > 0) {
+                            return; // A hedged attempt may still answer.
+                        }
+                    }
+                }
+                done = true;
+            }
+            if (ex == null) {
+                gather.add(counts);
+                shardsCompleted.increment();
+            } else {
+                shardsFailed.increment();
+                gather.fail(new ShardAnalysisException("Shard " + index + " could not be analyzed after " + attempts
+                        + " attempts; last error from " + lastError));
+            }
+            gather.release();
+        }
+    }
+
+}
@@ -0,0 +1,264 @@
+package homework.textanalyzer.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Space-Saving heavy hitters: tracks at most capacity words, so memory stays fixed however many distinct words the
+ * stream holds. A word that is not tracked while the summary is full replaces the word with the smallest count,
+ * inheriting that count as its error. Every tracked count overestimates the true count by at most its error, which is
+ * at most {@link #minCount()} (never more than N / capacity for N words), and every word that occurred more than
+ * minCount times is tracked.
+ * <p>
+ * Words are identified by their 64-bit hash; a String is created only when a word enters the summary. Entries sit
+ * in a min-heap by count, with an open-addressing index from hash to entry, so an update costs O(log capacity).
+ * <p>
+ * Summaries of the same capacity are merged as in parallel Space-Saving: a word missing from one summary is assumed to
+ * have occurred that summary's minCount times, which keeps the merged error within N / capacity for the combined N.
+ * Instances are not thread-safe.
+ */
+final class SpaceSaving {
+
+    /**
+     * A tracked word: its estimated count, which is at least the true count, and the most it may exceed it by.
+     */
+    record Entry(String word, long hash, long count, long error) {
+    }
+
+    // Highest count first; ties in alphabetical order.
+    static final Comparator<Entry> BY_COUNT = Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::word);
+
+    private final int capacity;
+    private final long[] hashes;
+    private final String[] words;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap; // Entries ordered as a min-heap by count
+    private final int[] heapIndex; // Position of each entry in the heap
+    private final int[] slots; // Open-addressing index holding entry + 1; 0 marks an empty slot. At most half full.
+    private int size;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The heavy-hitter capacity must be at least 1.");
+        }
+        this.capacity = capacity;
+        this.hashes = new long[capacity];
+        this.words = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapIndex = new int[capacity];
+        this.slots = new int[Integer.highestOneBit(capacity) * 4];
+    }
+
+    /**
+     * Counts one occurrence of a word.
+     * @param hash The word's 64-bit hash.
+     * @param token A buffer holding the word's chars from index 0.
+     * @param length The number of chars in the word.
+     */
+    void add(long hash, char[] token, int length) {
+        int slot = find(hash);
+        if (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            counts[entry]++;
+            siftDown(heapIndex[entry]);
+        } else if (size < capacity) {
+            int entry = size++;
+            set(entry, hash, new String(token, 0, length), 1, 0);
+            slots[slot] = entry + 1;
+            heap[entry] = entry;
+            heapIndex[entry] = entry;
+            siftUp(entry);
+        } else {
+            int entry = heap[0];
+            remove(find(hashes[entry]));
+            set(entry, hash, new String(token, 0, length), counts[entry] + 1, counts[entry]);
+            slots[find(hash)] = entry + 1;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @return The count a word that is not tracked may at most have: the smallest tracked count if the summary is full,
+     * otherwise 0, since every word seen is tracked.
+     */
+    long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    /**
+     * @return The tracked words, highest count first; ties in alphabetical order.
+     */
+    List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int entry = 0; entry < size; entry++) {
+            entries.add(new Entry(words[entry], hashes[entry], counts[entry], errors[entry]));
+        }
+        entries.sort(BY_COUNT);
+        return entries;
+    }
+
+    /**
+     * Adds the words of another summary of the same capacity to this one.
+     */
+    void merge(SpaceSaving other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Cannot merge heavy-hitter summaries of different capacities ("
+                    + other.capacity + " into " + capacity + ").");
+        }
+        long minCount = minCount();
+        long otherMinCount = other.minCount();
+        List<Entry> merged = new ArrayList<>(size + other.size);
+        for (int entry = 0; entry < size; entry++) {
+            int otherSlot = other.find(hashes[entry]);
+            if (other.slots[otherSlot] != 0) {
+                int otherEntry = other.slots[otherSlot] - 1;
+                merged.add(new Entry(words[entry], hashes[entry], counts[entry] + other.counts[otherEntry],
+                        errors[entry] + other.errors[otherEntry]));
+            } else {
+                merged.add(new Entry(words[entry], hashes[entry], counts[entry] + otherMinCount, errors[entry] + otherMinCount));
+            }
+        }
+        for (int entry = 0; entry < other.size; entry++) {
+            if (slots[find(other.hashes[entry])] == 0) {
+                merged.add(new Entry(other.words[entry], other.hashes[entry], other.counts[entry] + minCount,
+                        other.errors[entry] + minCount));
+            }
+        }
+        merged.sort(BY_COUNT);
+        replace(merged.subList(0, Math.min(capacity, merged.size())));
+    }
+
+    long memoryBytes() {
+        // Per entry: hash, count and error, two heap ints, about two index slots, and the word (about 40 bytes + 2 per char).
+        return (long) capacity * (3 * Long.BYTES + 2 * Integer.BYTES) + (long) slots.length * Integer.BYTES
+                + Arrays.stream(words, 0, size).mapToLong(word -> 40 + 2L * word.length()).sum();
+    }
+
+    /**
+     * Writes the tracked words; the capacity is part of the enclosing format.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int entry = 0; entry < size; entry++) {
+            out.writeUTF(words[entry]);
+            out.writeLong(hashes[entry]);
+            out.writeLong(counts[entry]);
+            out.writeLong(errors[entry]);
+        }
+    }
+
+    /**
+     * Reads words written by {@link #write(DataOutput)} from a summary of the same capacity, replacing this summary's.
+     */
+    void read(DataInput in) throws IOException {
+        int entries = in.readInt();
+        if (entries < 0 || entries > capacity) {
+            throw new IOException("Invalid heavy-hitter count " + entries + ".");
+        }
+        List<Entry> read = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            read.add(new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readLong()));
+        }
+        replace(read);
+    }
+
+    private void replace(List<Entry> entries) {
+        Arrays.fill(slots, 0);
+        size = 0;
+        for (Entry entry : entries) {
+            int slot = find(entry.hash());
+            if (slots[slot] == 0) {
+                set(size, entry.hash(), entry.word(), entry.count(), entry.error());
+                slots[slot] = size + 1;
+                heap[size] = size;
+                heapIndex[size] = size;
+                size++;
+            }
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void set(int entry, long hash, String word, long count, long error) {
+        hashes[entry] = hash;
+        words[entry] = word;
+        counts[entry] = count;
+        errors[entry] = error;
+    }
+
+    /**
+     * @return The slot holding the entry with the given hash, or the empty slot where it would be inserted.
+     */
+    private int find(long hash) {
+        int mask = slots.length - 1;
+        int slot = Long.hashCode(hash) & mask;
+        while (slots[slot] != 0 && hashes[slots[slot] - 1] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, moving later entries of the same probe run back so that every entry stays reachable.
+     */
+    private void remove(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        slots[hole] = 0;
+        for (int next = (hole + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+            int home = Long.hashCode(hashes[slots[next] - 1]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                slots[next] = 0;
+                hole = next;
+            }
+        }
+    }
+
+    private void siftUp(int position) {
+        int entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[entry]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(entry, position);
+    }
+
+    private void siftDown(int position) {
+        int entry = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+            if (counts[heap[child]] >= counts[entry]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(entry, position);
+    }
+
+    private void place(int entry, int position) {
+        heap[position] = entry;
+        heapIndex[entry] = position;
+    }
+
+}
@@ -1,57 +1,512 @@
 package homework.textanalyzer.service;
 
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.util.Alphabet;
 import homework.textanalyzer.util.AnalysisType;
-import homework.textanalyzer.util.CharacterSets;
+import homework.textanalyzer.util.LetterTable;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The program for calculating how many times letter in given sentence appears.
  * The analysis is case-insensitive for character counting.
  */
+@Slf4j
 @Service
 public class TextAnalyzerService {
 
+    // Number of chars read from a stream per step; bounds the memory used by streamed analysis.
+    static final int STREAM_CHUNK_SIZE = 8192;
+
+    // Smallest range a parallel analysis hands to a single task; below this the fork/join overhead dominates.
+    private static final int MIN_PARALLEL_LEAF_SIZE = 64 * 1024;
+
+    // Idle counting state per letter table, so most requests do not allocate it; released after each analysis.
+    // A pool rather than a ThreadLocal, as requests on virtual threads never run twice on the same thread.
+    private static final int POOLED_PER_TABLE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final HistogramPool<LetterHistogram> HISTOGRAMS = new HistogramPool<>(LetterHistogram::new, POOLED_PER_TABLE);
+    private static final HistogramPool<NGramHistogram> BIGRAMS = new HistogramPool<>(letters -> new NGramHistogram(letters, 2), POOLED_PER_TABLE);
+    private static final HistogramPool<NGramHistogram> TRIGRAMS = new HistogramPool<>(letters -> new NGramHistogram(letters, 3), POOLED_PER_TABLE);
+
+    // Texts at least this long are split across the fork/join pool; shorter ones are counted on the calling thread.
+    // The initializer is the default when the service is created outside of Spring.
+    @Value("${text.analyzer.parallel.threshold:1048576}")
+    private int parallelThreshold = 1024 * 1024;
+
+    // Size of a dedicated pool for parallel analysis; 0 shares the JVM's common ForkJoinPool.
+    @Value("${text.analyzer.parallel.pool-size:0}")
+    private int parallelPoolSize;
+
+    private ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+
+    // Counting kernel: "scalar" (table lookup per char) or "vector" (Vector API, needs --add-modules jdk.incubator.vector).
+    @Value("${text.analyzer.engine:scalar}")
+    private String engine = "scalar";
+
+    private LetterCounter letterCounter = LetterCounter.SCALAR;
+
+    // Latency, input size and allocation meters; an empty composite registry makes them no-ops outside of Spring.
+    private AnalyzerMetrics metrics = new AnalyzerMetrics(new CompositeMeterRegistry(), false);
+
+    @Autowired
+    void setMetrics(AnalyzerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void initParallelPool() {
+        if (parallelPoolSize > 0) {
+            parallelPool = new ForkJoinPool(parallelPoolSize);
+        }
+    }
+
+    @PostConstruct
+    void initLetterCounter() {
+        setEngine(engine);
+    }
+
+    /**
+     * Selects the counting kernel at runtime. Falls back to the scalar kernel if the Vector API is not available.
+     * @param engine "scalar" or "vector".
+     */
+    public void setEngine(String engine) {
+        this.engine = engine;
+        LetterCounter vector = "vector".equalsIgnoreCase(engine) ? LetterCounter.vector() : null;
+        if (vector != null) {
+            letterCounter = vector;
+        } else {
+            if ("vector".equalsIgnoreCase(engine)) {
+                log.warn("text.analyzer.engine=vector requires --add-modules jdk.incubator.vector; using the scalar engine.");
+            }
+            letterCounter = LetterCounter.SCALAR;
+        }
+    }
+
+    /**
+     * Sets the length from which texts are counted on the fork/join pool, e.g. to pin one path in benchmarks.
+     * @param parallelThreshold The threshold in chars; Integer.MAX_VALUE always counts on the calling thread.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    @PreDestroy
+    void shutdownParallelPool() {
+        if (parallelPool != ForkJoinPool.commonPool()) {
+            parallelPool.shutdown();
+        }
+    }
+
+    /**
+     * Analyzes the given text for the specified character type (vowels or consonants) in the English alphabet.
+     * @see #analyze(String, AnalysisType, Alphabet)
+     */
+    public Map<Character, Integer> analyze(String text, AnalysisType type) {
+        return analyze(text, type, Alphabet.ENGLISH);
+    }
+
     /**
      * Analyzes the given text for the specified character type (vowels or consonants).
+     * The text is scanned once, in place; counts are kept in a primitive histogram and only turned into a map on return.
+     * Texts longer than the configured parallel threshold are split into ranges that are counted concurrently and merged.
      *
      * @param text The input sentence to be analyzed.
      * @param type The type of analysis to perform: "vowels" or "consonants".
+     * @param alphabet The alphabet whose letters are counted; null for English.
      * @return A map where keys are uppercase characters and values are their counts.
      * Returns an empty map if the input text is null, empty, or if the type is invalid.
+     * WORD and n-gram analyses are not keyed by character; use {@link #analyzeWords(String, int)}
+     * and {@link #analyzeNGrams(String, AnalysisType, Alphabet, int)} for them.
      */
-    public Map<Character, Integer> analyze(String text, AnalysisType type) {
+    public Map<Character, Integer> analyze(String text, AnalysisType type, Alphabet alphabet) {
         if (text == null || text.isBlank() || type == null) {
             return Collections.emptyMap();
         }
 
-        // Use LinkedHashMap to maintain the insertion order of characters, if important for consistency.
-        Map<Character, Integer> charCounterMap = new LinkedHashMap<>();
-        String normalizedText = text.toUpperCase();
+        LetterTable table = letterTableFor(type, alphabet);
+        if (table == null) {
+            return Collections.emptyMap();
+        }
 
-        // Iterate over each character in the normalized text.
-        for (char ch : normalizedText.toCharArray()) {
-            // Only process if the character is an actual letter.
-            if (Character.isLetter(ch)) {
-                // Determine analysis based on the specified type.
-                switch (type) {
-                    case VOWELS:
-                        if (CharacterSets.VOWELS.contains(ch)) {
-                            charCounterMap.put(ch, charCounterMap.getOrDefault(ch, 0) + 1);
-                        }
-                        break;
-                    case CONSONANTS:
-                        if (CharacterSets.CONSONANTS.contains(ch)) {
-                            charCounterMap.put(ch, charCounterMap.getOrDefault(ch, 0) + 1);
-                        }
-                        break;
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            Map<Character, Integer> result;
+            if (text.length() >= parallelThreshold) {
+                result = analyzeInParallel(text, table).toMap();
+            } else {
+                LetterHistogram histogram = borrowHistogram(table);
+                try {
+                    letterCounter.count(histogram, text, 0, text.length());
+                    result = histogram.toMap();
+                } finally {
+                    HISTOGRAMS.release(table, histogram);
                 }
             }
+            sample.stop(type, text.length());
+            return result;
+        }
+    }
+
+    /**
+     * Counts the text on the parallel pool, one histogram per range, and merges the range histograms.
+     * The result is identical to a sequential scan.
+     */
+    private LetterHistogram analyzeInParallel(String text, LetterTable table) {
+        // Aim for a few tasks per worker so uneven ranges still balance out.
+        int leafSize = Math.max(MIN_PARALLEL_LEAF_SIZE, text.length() / (parallelPool.getParallelism() * 4));
+        return parallelPool.invoke(new ParallelHistogramTask(text, table, letterCounter, 0, text.length(), leafSize));
+    }
+
+    /**
+     * Analyzes text read from a stream for the specified character type in the English alphabet.
+     * @see #analyze(Reader, AnalysisType, Alphabet, long)
+     */
+    public Map<Character, Integer> analyze(Reader reader, AnalysisType type, long maxLength) throws IOException {
+        return analyze(reader, type, Alphabet.ENGLISH, maxLength);
+    }
+
+    /**
+     * Analyzes text read from a stream for the specified character type.
+     * The stream is consumed in bounded chunks that are counted as they arrive, so memory use
+     * stays constant whatever the size of the input.
+     *
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param type The type of analysis to perform: "vowels" or "consonants".
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param maxLength The maximum number of characters accepted from the stream.
+     * @return A map where keys are uppercase characters and values are their counts.
+     * Returns an empty map if the reader is null, empty, or if the type is invalid.
+     * WORD and n-gram analyses are not keyed by character; use {@link #analyzeWords(Reader, long, int)}
+     * and {@link #analyzeNGrams(Reader, AnalysisType, Alphabet, long, int)} for them.
+     * @throws IOException if reading from the stream fails.
+     * @throws TextLengthExceededException if the stream holds more than maxLength characters.
+     */
+    public Map<Character, Integer> analyze(Reader reader, AnalysisType type, Alphabet alphabet, long maxLength) throws IOException {
+        if (reader == null || type == null) {
+            return Collections.emptyMap();
+        }
+
+        LetterTable table = letterTableFor(type, alphabet);
+        if (table == null) {
+            return Collections.emptyMap();
+        }
+
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            LetterHistogram histogram = borrowHistogram(table);
+            try {
+                long totalLength = readInChunks(reader, maxLength, (chunk, from, to) -> letterCounter.count(histogram, chunk, from, to));
+                Map<Character, Integer> result = histogram.toMap();
+                sample.stop(type, totalLength);
+                return result;
+            } finally {
+                HISTOGRAMS.release(table, histogram);
+            }
         }
-        return charCounterMap;
     }
 
-}
\ No newline at end of file
+    /**
+     * Counts word frequencies in the given text (the WORD analysis type).
+     * Words are runs of letters and digits, counted case-insensitively and returned in lower case.
+     *
+     * @param text The input text to be analyzed.
+     * @param limit The maximum number of words to return, most frequent first; 0 or less returns every word.
+     * @return A map of words to their counts in descending order of count.
+     * Returns an empty map if the input text is null or empty.
+     */
+    public Map<String, Integer> analyzeWords(String text, int limit) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyMap();
+        }
+
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            WordHistogram histogram = new WordHistogram();
+            histogram.count(text, 0, text.length());
+            histogram.finish();
+            Map<String, Integer> result = histogram.toMap(limit);
+            sample.stop(AnalysisType.WORD, text.length());
+            return result;
+        }
+    }
+
+    /**
+     * Counts word frequencies in text read from a stream, chunk by chunk.
+     * Words split across chunk boundaries are counted once.
+     *
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param maxLength The maximum number of characters accepted from the stream.
+     * @param limit The maximum number of words to return, most frequent first; 0 or less returns every word.
+     * @return A map of words to their counts in descending order of count.
+     * @throws IOException if reading from the stream fails.
+     * @throws TextLengthExceededException if the stream holds more than maxLength characters.
+     */
+    public Map<String, Integer> analyzeWords(Reader reader, long maxLength, int limit) throws IOException {
+        if (reader == null) {
+            return Collections.emptyMap();
+        }
+
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            WordHistogram histogram = new WordHistogram();
+            long totalLength = readInChunks(reader, maxLength, histogram::count);
+            histogram.finish();
+            Map<String, Integer> result = histogram.toMap(limit);
+            sample.stop(AnalysisType.WORD, totalLength);
+            return result;
+        }
+    }
+
+    /**
+     * Counts letter n-grams in the given text (the BIGRAM and TRIGRAM analysis types).
+     * N-grams are runs of consecutive letters of the alphabet, counted case-insensitively into a dense matrix
+     * and returned in upper case; any other char ends the run. Texts longer than the configured parallel
+     * threshold are split into ranges that are counted concurrently and merged.
+     *
+     * @param text The input text to be analyzed.
+     * @param type BIGRAM or TRIGRAM.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param limit The maximum number of n-grams to return, most frequent first; 0 or less returns every n-gram seen.
+     * @return A map of n-grams to their counts in descending order of count.
+     * Returns an empty map if the input text is null or blank, or if the type is not an n-gram type.
+     */
+    public Map<String, Integer> analyzeNGrams(String text, AnalysisType type, Alphabet alphabet, int limit) {
+        if (text == null || text.isBlank() || type == null || type.ngramLength() == 0) {
+            return Collections.emptyMap();
+        }
+
+        LetterTable table = (alphabet != null ? alphabet : Alphabet.ENGLISH).getLetters();
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            Map<String, Integer> result;
+            if (text.length() >= parallelThreshold) {
+                int leafSize = Math.max(MIN_PARALLEL_LEAF_SIZE, text.length() / (parallelPool.getParallelism() * 4));
+                result = parallelPool.invoke(new ParallelNGramTask(text, table, type.ngramLength(), 0, text.length(), leafSize)).toTopK(limit);
+            } else {
+                NGramHistogram histogram = borrowNGrams(table, type.ngramLength());
+                try {
+                    histogram.count(text, 0, text.length());
+                    result = histogram.toTopK(limit);
+                } finally {
+                    releaseNGrams(table, type.ngramLength(), histogram);
+                }
+            }
+            sample.stop(type, text.length());
+            return result;
+        }
+    }
+
+    /**
+     * Counts letter n-grams in text read from a stream, chunk by chunk.
+     * N-grams split across chunk boundaries are counted once.
+     *
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param type BIGRAM or TRIGRAM.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param maxLength The maximum number of characters accepted from the stream.
+     * @param limit The maximum number of n-grams to return, most frequent first; 0 or less returns every n-gram seen.
+     * @return A map of n-grams to their counts in descending order of count.
+     * @throws IOException if reading from the stream fails.
+     * @throws TextLengthExceededException if the stream holds more than maxLength characters.
+     */
+    public Map<String, Integer> analyzeNGrams(Reader reader, AnalysisType type, Alphabet alphabet, long maxLength, int limit) throws IOException {
+        if (reader == null || type == null || type.ngramLength() == 0) {
+            return Collections.emptyMap();
+        }
+
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            LetterTable table = (alphabet != null ? alphabet : Alphabet.ENGLISH).getLetters();
+            NGramHistogram histogram = borrowNGrams(table, type.ngramLength());
+            try {
+                long totalLength = readInChunks(reader, maxLength, histogram::count);
+                Map<String, Integer> result = histogram.toTopK(limit);
+                sample.stop(type, totalLength);
+                return result;
+            } finally {
+                releaseNGrams(table, type.ngramLength(), histogram);
+            }
+        }
+    }
+
+    /**
+     * Computes several analysis types over the text in a single pass, e.g. vowels, consonants and words for a dashboard.
+     * The text is processed in blocks; each block is counted for every requested type while it is still in cache.
+     *
+     * @param text The input text to be analyzed.
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param wordLimit The number of most frequent words (WORD) or n-grams (BIGRAM, TRIGRAM) to return; 0 or less returns all of them.
+     * @return One map per requested type, in AnalysisType order: letter counts keyed by uppercase letter, word counts by word,
+     * n-gram counts by uppercase n-gram.
+     * Empty maps if the input text is null or blank.
+     */
+    public Map<AnalysisType, Map<String, Integer>> analyzeAll(String text, Set<AnalysisType> types, Alphabet alphabet, int wordLimit) {
+        MultiHistogram histogram = new MultiHistogram(types, alphabet != null ? alphabet : Alphabet.ENGLISH, letterCounter);
+        if (text == null || text.isBlank()) {
+            return histogram.toMaps(wordLimit);
+        }
+
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            for (int from = 0; from < text.length(); from += STREAM_CHUNK_SIZE) {
+                histogram.count(text, from, Math.min(text.length(), from + STREAM_CHUNK_SIZE));
+            }
+            histogram.finish();
+            Map<AnalysisType, Map<String, Integer>> result = histogram.toMaps(wordLimit);
+            sample.stopMulti(text.length());
+            return result;
+        }
+    }
+
+    /**
+     * Computes several analysis types over text read from a stream, in a single pass over the stream.
+     *
+     * @param reader The source of the text. It is read to the end but not closed.
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param maxLength The maximum number of characters accepted from the stream.
+     * @param wordLimit The number of most frequent words (WORD) or n-grams (BIGRAM, TRIGRAM) to return; 0 or less returns all of them.
+     * @return One map per requested type, in AnalysisType order.
+     * @throws IOException if reading from the stream fails.
+     * @throws TextLengthExceededException if the stream holds more than maxLength characters.
+     */
+    public Map<AnalysisType, Map<String, Integer>> analyzeAll(Reader reader, Set<AnalysisType> types, Alphabet alphabet,
+                                                              long maxLength, int wordLimit) throws IOException {
+        MultiHistogram histogram = new MultiHistogram(types, alphabet != null ? alphabet : Alphabet.ENGLISH, letterCounter);
+        if (reader == null) {
+            return histogram.toMaps(wordLimit);
+        }
+
+        try (AnalyzerMetrics.Sample sample = metrics.start()) {
+            long totalLength = readInChunks(reader, maxLength, histogram::count);
+            histogram.finish();
+            Map<AnalysisType, Map<String, Integer>> result = histogram.toMaps(wordLimit);
+            sample.stopMulti(totalLength);
+            return result;
+        }
+    }
+
+    /**
+     * Computes several analysis types over a non-blocking stream of UTF-8 buffers, such as a reactive request body.
+     * Each buffer is decoded and counted as soon as it arrives and released right after, so the input is never
+     * aggregated and no thread waits for the next buffer.
+     *
+     * @param body The source of the text; every buffer is released once counted.
+     * @param types The analysis types to compute.
+     * @param alphabet The alphabet whose letters are counted; null for English.
+     * @param maxLength The maximum number of characters accepted from the stream.
+     * @param wordLimit The number of most frequent words (WORD) or n-grams (BIGRAM, TRIGRAM) to return; 0 or less returns all of them.
+     * @return One map per requested type, in AnalysisType order, emitted when the stream completes.
+     * Fails with TextLengthExceededException, cancelling the stream, as soon as more than maxLength characters have arrived.
+     */
+    public Mono<Map<AnalysisType, Map<String, Integer>>> analyzeAll(Flux<DataBuffer> body, Set<AnalysisType> types, Alphabet alphabet,
+                                                                    long maxLength, int wordLimit) {
+        return Mono.defer(() -> {
+            MultiHistogram histogram = new MultiHistogram(types, alphabet != null ? alphabet : Alphabet.ENGLISH, letterCounter);
+            Utf8ChunkDecoder decoder = new Utf8ChunkDecoder(STREAM_CHUNK_SIZE);
+            // The buffers may be delivered on different threads, so allocation cannot be tracked.
+            AnalyzerMetrics.Sample sample = metrics.startDetached();
+            return body
+                    .doOnNext(buffer -> {
+                        // Reactive Streams signals are serialized, so the histogram needs no locking.
+                        try (DataBuffer.ByteBufferIterator byteBuffers = buffer.readableByteBuffers()) {
+                            while (byteBuffers.hasNext()) {
+                                decoder.decode(byteBuffers.next(), histogram::count);
+                            }
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                        checkLength(decoder.getDecodedLength(), maxLength);
+                    })
+                    .then(Mono.fromSupplier(() -> {
+                        decoder.finish(histogram::count);
+                        checkLength(decoder.getDecodedLength(), maxLength);
+                        histogram.finish();
+                        Map<AnalysisType, Map<String, Integer>> result = histogram.toMaps(wordLimit);
+                        if (types.size() == 1) {
+                            sample.stop(types.iterator().next(), decoder.getDecodedLength());
+                        } else {
+                            sample.stopMulti(decoder.getDecodedLength());
+                        }
+                        return result;
+                    }))
+                    .doOnError(error -> sample.close()); // Records the failure, e.g. a body over maxLength
+        });
+    }
+
+    /**
+     * Receives the chunks of a streamed input.
+     */
+    @FunctionalInterface
+    interface ChunkConsumer {
+        void accept(char[] chunk, int from, int to);
+    }
+
+    /**
+     * Reads the stream to the end in chunks of STREAM_CHUNK_SIZE chars, handing each chunk to the consumer.
+     * @return The total number of chars read.
+     * @throws TextLengthExceededException as soon as more than maxLength chars have been read.
+     */
+    static long readInChunks(Reader reader, long maxLength, ChunkConsumer consumer) throws IOException {
+        char[] buffer = new char[STREAM_CHUNK_SIZE];
+        long totalLength = 0;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            totalLength += read;
+            checkLength(totalLength, maxLength);
+            consumer.accept(buffer, 0, read);
+        }
+        return totalLength;
+    }
+
+    private static void checkLength(long length, long maxLength) {
+        if (length > maxLength) {
+            throw new TextLengthExceededException("Input text exceeds maximum allowed length of " + maxLength + " characters.");
+        }
+    }
+
+    /**
+     * Borrows a histogram for the given letter table from the pool, cleared for a new analysis.
+     * The caller releases it to {@link #HISTOGRAMS} once the result has been read.
+     */
+    private static LetterHistogram borrowHistogram(LetterTable table) {
+        LetterHistogram histogram = HISTOGRAMS.borrow(table);
+        histogram.reset();
+        return histogram;
+    }
+
+    /**
+     * Borrows an n-gram matrix for the given letter table and length from the pool, cleared for a new analysis.
+     * A trigram matrix is tens of kilobytes, so it is reused rather than allocated per request.
+     */
+    private static NGramHistogram borrowNGrams(LetterTable table, int length) {
+        NGramHistogram histogram = (length == 2 ? BIGRAMS : TRIGRAMS).borrow(table);
+        histogram.reset();
+        return histogram;
+    }
+
+    private static void releaseNGrams(LetterTable table, int length, NGramHistogram histogram) {
+        (length == 2 ? BIGRAMS : TRIGRAMS).release(table, histogram);
+    }
+
+    /**
+     * Resolves the letters counted by a letter-based analysis type.
+     * @param type The analysis type.
+     * @param alphabet The alphabet to count in; null for English.
+     * @return The matching lookup table, or null if the type does not count single letters.
+     */
+    static LetterTable letterTableFor(AnalysisType type, Alphabet alphabet) {
+        return (alphabet != null ? alphabet : Alphabet.ENGLISH).tableFor(type);
+    }
+
+}
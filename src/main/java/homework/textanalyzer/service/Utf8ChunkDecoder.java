@@ -0,0 +1,89 @@
+package homework.textanalyzer.service;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes UTF-8 input that arrives as a sequence of byte buffers, such as the body of a non-blocking request,
+ * into fixed-size char chunks that are handed to a {@link TextAnalyzerService.ChunkConsumer}.
+ * A multibyte sequence split across two buffers is carried over and decoded once; malformed bytes become U+FFFD.
+ * <p>
+ * Input buffers are decoded in place, never copied or aggregated. Instances are not thread-safe.
+ */
+final class Utf8ChunkDecoder {
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars;
+    // The bytes of a sequence cut off at the end of the previous buffer; a UTF-8 sequence has at most 4.
+    private final ByteBuffer carry = ByteBuffer.allocate(4);
+    private long decodedLength;
+
+    /**
+     * @param chunkSize The number of chars handed to the consumer at a time; at least 2, so a surrogate pair fits.
+     */
+    Utf8ChunkDecoder(int chunkSize) {
+        this.chars = CharBuffer.allocate(chunkSize);
+    }
+
+    /**
+     * Decodes all bytes between the buffer's position and limit, except a trailing incomplete sequence,
+     * which is kept until the next call.
+     * @param bytes The next part of the input; its position is moved to its limit.
+     * @param consumer Receives the decoded chars.
+     */
+    void decode(ByteBuffer bytes, TextAnalyzerService.ChunkConsumer consumer) {
+        // Complete the sequence left over from the previous buffer, one byte at a time.
+        while (carry.position() > 0 && bytes.hasRemaining()) {
+            carry.put(bytes.get()).flip();
+            decodeInto(carry, false, consumer);
+            carry.compact();
+        }
+        decodeInto(bytes, false, consumer);
+        // A cut-off sequence is left unconsumed; keep it for the next buffer.
+        carry.put(bytes);
+    }
+
+    /**
+     * Ends the input: a dangling incomplete sequence is decoded as U+FFFD and the last chunk is handed over.
+     * Afterwards the decoder is ready for a new input.
+     * @param consumer Receives the decoded chars.
+     */
+    void finish(TextAnalyzerService.ChunkConsumer consumer) {
+        carry.flip();
+        decodeInto(carry, true, consumer);
+        carry.clear();
+        while (decoder.flush(chars).isOverflow()) {
+            drain(consumer);
+        }
+        drain(consumer);
+        decoder.reset();
+    }
+
+    /**
+     * @return The number of chars decoded so far, including those not yet handed to the consumer.
+     */
+    long getDecodedLength() {
+        return decodedLength + chars.position();
+    }
+
+    private void decodeInto(ByteBuffer bytes, boolean endOfInput, TextAnalyzerService.ChunkConsumer consumer) {
+        // With REPLACE actions the decoder only stops on underflow (input used up) or overflow (output full).
+        while (decoder.decode(bytes, chars, endOfInput).isOverflow()) {
+            drain(consumer);
+        }
+    }
+
+    private void drain(TextAnalyzerService.ChunkConsumer consumer) {
+        if (chars.position() > 0) {
+            decodedLength += chars.position();
+            consumer.accept(chars.array(), 0, chars.position());
+            chars.clear();
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+package homework.textanalyzer.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Open-addressing hash table counting words, keyed by char slices rather than Strings.
+ * The chars of each distinct word are copied once into a shared arena; looking up a word that was
+ * already seen allocates nothing. Strings are only created for the words that are returned.
+ */
+final class WordFrequencyTable {
+
+    private static final int INITIAL_ENTRIES = 256;
+
+    // Open-addressing slots holding entry index + 1; 0 marks an empty slot. Kept at most half full.
+    private int[] slots = new int[INITIAL_ENTRIES * 2];
+
+    // Parallel arrays describing each distinct word, indexed by entry.
+    private int[] hashes = new int[INITIAL_ENTRIES];
+    private int[] offsets = new int[INITIAL_ENTRIES];
+    private int[] lengths = new int[INITIAL_ENTRIES];
+    private int[] counts = new int[INITIAL_ENTRIES];
+    private int size;
+
+    private char[] arena = new char[INITIAL_ENTRIES * 8];
+    private int arenaLength;
+
+    /**
+     * Adds occurrences of a word.
+     * @param word A buffer holding the word's chars, already case-folded.
+     * @param from The index of the word's first char.
+     * @param length The number of chars in the word.
+     * @param increment The number of occurrences to add.
+     */
+    void add(char[] word, int from, int length, int increment) {
+        int hash = hash(word, from, length);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            int entry = slots[slot] - 1;
+            if (hashes[entry] == hash && equalsEntry(entry, word, from, length)) {
+                counts[entry] += increment;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = insert(word, from, length, hash, increment) + 1;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * Adds every word of another table to this one.
+     * @param other The table to merge into this one.
+     */
+    void merge(WordFrequencyTable other) {
+        for (int entry = 0; entry < other.size; entry++) {
+            add(other.arena, other.offsets[entry], other.lengths[entry], other.counts[entry]);
+        }
+    }
+
+    /**
+     * Clears the table, keeping its capacity for reuse.
+     */
+    void reset() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        arenaLength = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Builds the API-facing result: the most frequent words mapped to their counts, in descending order of count.
+     * Words with the same count keep the order in which they were first seen.
+     * @param limit The maximum number of words to return; 0 or less returns all of them.
+     * @return A new map, or an empty map if no word was counted.
+     */
+    Map<String, Integer> toMap(int limit) {
+        if (size == 0) {
+            return Collections.emptyMap();
+        }
+        int k = limit <= 0 ? size : Math.min(limit, size);
+        int[] top = topEntries(k);
+        Map<String, Integer> result = LinkedHashMap.newLinkedHashMap(k);
+        for (int entry : top) {
+            result.put(new String(arena, offsets[entry], lengths[entry]), counts[entry]);
+        }
+        return result;
+    }
+
+    /**
+     * Selects the k most frequent entries with a primitive min-heap, then sorts them from most to least frequent.
+     */
+    private int[] topEntries(int k) {
+        int[] heap = new int[k];
+        int heapSize = 0;
+        for (int entry = 0; entry < size; entry++) {
+            if (heapSize < k) {
+                heap[heapSize] = entry;
+                siftUp(heap, heapSize++);
+            } else if (ranksBelow(heap[0], entry)) {
+                heap[0] = entry;
+                siftDown(heap, 0, heapSize);
+            }
+        }
+        // Repeatedly move the lowest-ranked entry to the end, leaving the array sorted from highest to lowest rank.
+        for (int end = heapSize - 1; end > 0; end--) {
+            int lowest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = lowest;
+            siftDown(heap, 0, end);
+        }
+        return heap;
+    }
+
+    // An entry ranks below another if it has a lower count, or the same count but was seen later.
+    private boolean ranksBelow(int entry, int other) {
+        return counts[entry] < counts[other] || (counts[entry] == counts[other] && entry > other);
+    }
+
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksBelow(heap[index], heap[parent])) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int index, int heapSize) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                return;
+            }
+            if (child + 1 < heapSize && ranksBelow(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!ranksBelow(heap[child], heap[index])) {
+                return;
+            }
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+
+    private int insert(char[] word, int from, int length, int hash, int count) {
+        if (size == hashes.length) {
+            int capacity = size * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (arenaLength + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + length));
+        }
+        System.arraycopy(word, from, arena, arenaLength, length);
+        int entry = size++;
+        hashes[entry] = hash;
+        offsets[entry] = arenaLength;
+        lengths[entry] = length;
+        counts[entry] = count;
+        arenaLength += length;
+        return entry;
+    }
+
+    private void rehash() {
+        int[] newSlots = new int[slots.length * 2];
+        int mask = newSlots.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = hashes[entry] & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = entry + 1;
+        }
+        slots = newSlots;
+    }
+
+    private boolean equalsEntry(int entry, char[] word, int from, int length) {
+        return lengths[entry] == length
+                && Arrays.equals(arena, offsets[entry], offsets[entry] + length, word, from, from + length);
+    }
+
+    private static int hash(char[] word, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + word[i];
+        }
+        // Spread the bits so that the low bits used for slot selection are well mixed.
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
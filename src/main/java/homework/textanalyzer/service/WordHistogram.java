@@ -0,0 +1,58 @@
+package homework.textanalyzer.service;
+
+import java.util.Map;
+
+/**
+ * Single-pass word frequency counter.
+ * Words are maximal runs of letters and digits, optionally joined by apostrophes (so "don't" is one word),
+ * and are counted case-insensitively in lower case. The {@link WordTokenizer} uses no regex, no String.split and no
+ * per-token String; each word is counted from its reusable token buffer in a {@link WordFrequencyTable}.
+ * <p>
+ * Input can be fed in any number of chunks, split anywhere; call {@link #finish()} after the last one.
+ * Instances are not thread-safe.
+ */
+public final class WordHistogram extends WordTokenizer {
+
+    /** Words longer than this are truncated to their first MAX_WORD_LENGTH chars. */
+    public static final int MAX_WORD_LENGTH = 256;
+
+    private final WordFrequencyTable table = new WordFrequencyTable();
+
+    @Override
+    protected void word(char[] token, int length) {
+        table.add(token, 0, length, 1);
+    }
+
+    /**
+     * Adds the counts of another histogram to this one. Both should be finished.
+     * @param other The histogram to merge into this one.
+     */
+    public void merge(WordHistogram other) {
+        table.merge(other.table);
+    }
+
+    /**
+     * Clears all counts so the histogram can be reused.
+     */
+    public void reset() {
+        table.reset();
+        clearToken();
+    }
+
+    /**
+     * @return The number of distinct words counted so far.
+     */
+    public int distinctWords() {
+        return table.size();
+    }
+
+    /**
+     * Builds the API-facing result: the most frequent words mapped to their counts, in descending order of count.
+     * @param limit The maximum number of words to return (top-K); 0 or less returns all of them.
+     * @return A new map, or an empty map if no word was counted.
+     */
+    public Map<String, Integer> toMap(int limit) {
+        return table.toMap(limit);
+    }
+
+}
@@ -0,0 +1,198 @@
+package homework.textanalyzer.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Approximate word analysis in fixed memory, for streams too long to count every distinct word exactly:
+ * a {@link CountMinSketch} estimates frequencies, a {@link SpaceSaving} summary keeps the candidates for the most
+ * frequent words, and a {@link HyperLogLog} estimates the number of distinct words. Words are tokenized like
+ * {@link WordHistogram} does.
+ * <p>
+ * Sketches built with the same {@link Parameters} can be merged, and serialized with {@link #toBytes()} to be merged
+ * in another request or on another instance. Instances are not thread-safe.
+ */
+final class WordSketch extends WordTokenizer {
+
+    // "WSK" and a format version.
+    private static final int MAGIC = 0x57534B01;
+
+    /**
+     * The dimensions of a sketch; only sketches with equal parameters can be merged.
+     *
+     * @param width The Count-Min Sketch width; frequencies overestimate by at most e / width of the total.
+     * @param depth The Count-Min Sketch depth; that bound holds with probability 1 - e^-depth.
+     * @param heavyHitters The number of words tracked as top-K candidates.
+     * @param precision The HyperLogLog precision; the distinct count has a relative standard error of 1.04 / sqrt(2^precision).
+     */
+    record Parameters(int width, int depth, int heavyHitters, int precision) {
+
+        /**
+         * @param epsilon The relative frequency error, as a fraction of the total number of words.
+         * @param confidence The probability that the frequency error bound holds.
+         */
+        static Parameters of(double epsilon, double confidence, int heavyHitters, int precision) {
+            return new Parameters(CountMinSketch.widthFor(epsilon), CountMinSketch.depthFor(1 - confidence), heavyHitters, precision);
+        }
+    }
+
+    private final Parameters parameters;
+    private final CountMinSketch frequencies;
+    private final SpaceSaving heavyHitters;
+    private final HyperLogLog distinctWords;
+    private long totalWords;
+
+    WordSketch(Parameters parameters) {
+        this.parameters = parameters;
+        this.frequencies = new CountMinSketch(parameters.width(), parameters.depth());
+        this.heavyHitters = new SpaceSaving(parameters.heavyHitters());
+        this.distinctWords = new HyperLogLog(parameters.precision());
+    }
+
+    @Override
+    protected void word(char[] token, int length) {
+        long hash = hash(token, length);
+        frequencies.add(hash, 1);
+        heavyHitters.add(hash, token, length);
+        distinctWords.add(hash);
+        totalWords++;
+    }
+
+    /**
+     * Adds the counts of another finished sketch with the same parameters.
+     */
+    void merge(WordSketch other) {
+        requireSameParameters(other.parameters, parameters);
+        frequencies.merge(other.frequencies);
+        heavyHitters.merge(other.heavyHitters);
+        distinctWords.merge(other.distinctWords);
+        totalWords += other.totalWords;
+    }
+
+    /**
+     * @param limit The maximum number of words to return (top-K); 0 or less returns every tracked word.
+     * @return The most frequent words mapped to their estimated counts, most frequent first. Each estimate is the
+     * smaller of the heavy-hitter count and the Count-Min estimate, both of which never underestimate.
+     */
+    Map<String, Long> topWords(int limit) {
+        List<SpaceSaving.Entry> entries = heavyHitters.entries();
+        int count = limit > 0 ? Math.min(limit, entries.size()) : entries.size();
+        List<SpaceSaving.Entry> estimated = entries.stream()
+                .map(entry -> new SpaceSaving.Entry(entry.word(), entry.hash(),
+                        Math.min(entry.count(), frequencies.estimate(entry.hash())), entry.error()))
+                .sorted(SpaceSaving.BY_COUNT)
+                .toList();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (SpaceSaving.Entry entry : estimated.subList(0, count)) {
+            result.put(entry.word(), entry.count());
+        }
+        return result;
+    }
+
+    long getTotalWords() {
+        return totalWords;
+    }
+
+    long estimateDistinctWords() {
+        return distinctWords.estimate();
+    }
+
+    double distinctWordsRelativeError() {
+        return distinctWords.relativeStandardError();
+    }
+
+    /**
+     * @return The most a word count from {@link #topWords(int)} may exceed the true count by: the heavy-hitter bound,
+     * which always holds, if it is tighter than the Count-Min bound of e / width of the total, which holds with
+     * probability {@link #frequencyErrorConfidence()}.
+     */
+    long frequencyErrorBound() {
+        return Math.min(heavyHitters.minCount(), countMinErrorBound());
+    }
+
+    double frequencyErrorConfidence() {
+        return heavyHitters.minCount() <= countMinErrorBound() ? 1.0 : 1 - Math.exp(-parameters.depth());
+    }
+
+    long memoryBytes() {
+        return frequencies.memoryBytes() + heavyHitters.memoryBytes() + distinctWords.memoryBytes();
+    }
+
+    /**
+     * @return The sketch in a compressed binary form that {@link #fromBytes(byte[], Parameters)} reads back.
+     */
+    byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeInt(parameters.width());
+            out.writeInt(parameters.depth());
+            out.writeInt(parameters.heavyHitters());
+            out.writeByte(parameters.precision());
+            out.writeLong(totalWords);
+            frequencies.write(out);
+            heavyHitters.write(out);
+            distinctWords.write(out);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // A byte array stream does not fail.
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a sketch written by {@link #toBytes()}.
+     * @param expected The parameters the sketch must have been built with; checked before anything is allocated.
+     * @throws IllegalArgumentException if the bytes are not a sketch or the sketch has other parameters.
+     */
+    static WordSketch fromBytes(byte[] bytes, Parameters expected) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a word sketch.");
+            }
+            requireSameParameters(new Parameters(in.readInt(), in.readInt(), in.readInt(), in.readByte()), expected);
+            WordSketch sketch = new WordSketch(expected);
+            sketch.totalWords = in.readLong();
+            sketch.frequencies.read(in);
+            sketch.heavyHitters.read(in);
+            sketch.distinctWords.read(in);
+            return sketch;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Not a valid word sketch: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @return A well-mixed 64-bit hash of the word: FNV-1a over its chars, then the MurmurHash3 finalizer.
+     */
+    static long hash(char[] token, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ token[i]) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private long countMinErrorBound() {
+        return (long) Math.ceil(Math.E / parameters.width() * totalWords);
+    }
+
+    private static void requireSameParameters(Parameters other, Parameters parameters) {
+        if (!other.equals(parameters)) {
+            throw new IllegalArgumentException("Cannot merge a sketch built with " + other + " into one built with " + parameters
+                    + "; sketches must come from instances with the same text.analyzer.approximate settings.");
+        }
+    }
+
+}
@@ -0,0 +1,94 @@
+package homework.textanalyzer.service;
+
+/**
+ * Single-pass word tokenizer shared by the exact and the approximate word counters.
+ * Words are maximal runs of letters and digits, optionally joined by apostrophes (so "don't" is one word),
+ * folded to lower case. No regex, no String.split and no per-token String: chars are folded into a reusable
+ * token buffer that is handed to {@link #word(char[], int)} when the word ends.
+ * <p>
+ * Input can be fed in any number of chunks, split anywhere; call {@link #finish()} after the last one.
+ * Instances are not thread-safe.
+ */
+abstract class WordTokenizer {
+
+    private final char[] token = new char[WordHistogram.MAX_WORD_LENGTH];
+    private int tokenLength;
+    // Length of the current run, which may exceed MAX_WORD_LENGTH when a word is truncated.
+    private int runLength;
+
+    /**
+     * Receives a complete word.
+     * @param token A buffer holding the word's lower-case chars from index 0; reused for the next word.
+     * @param length The number of chars in the word, at least 1.
+     */
+    protected abstract void word(char[] token, int length);
+
+    /**
+     * Counts the words in the range [from, to) of the given text.
+     */
+    public void count(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    /**
+     * Counts the words in the range [from, to) of the given buffer.
+     */
+    public void count(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            accept(chars[i]);
+        }
+    }
+
+    /**
+     * Feeds a single character into the tokenizer.
+     * @param ch The next character of the input.
+     */
+    public void accept(char ch) {
+        if (Character.isLetterOrDigit(ch)) {
+            append(Character.toLowerCase(ch));
+        } else if ((ch == '\'' || ch == '’') && runLength > 0) {
+            append('\''); // Trailing apostrophes are trimmed when the word ends.
+        } else if (runLength > 0) {
+            endWord();
+        }
+    }
+
+    /**
+     * Counts the word still pending at the end of the input, if any.
+     */
+    public void finish() {
+        if (runLength > 0) {
+            endWord();
+        }
+    }
+
+    /**
+     * Drops the word still pending, if any.
+     */
+    void clearToken() {
+        tokenLength = 0;
+        runLength = 0;
+    }
+
+    private void append(char ch) {
+        if (tokenLength < WordHistogram.MAX_WORD_LENGTH) {
+            token[tokenLength++] = ch;
+        }
+        runLength++;
+    }
+
+    private void endWord() {
+        int length = tokenLength;
+        while (length > 0 && token[length - 1] == '\'') {
+            length--;
+        }
+        if (length > 0) {
+            word(token, length);
+        }
+        tokenLength = 0;
+        runLength = 0;
+    }
+
+}
@@ -0,0 +1,56 @@
+package homework.textanalyzer.util;
+
+import homework.textanalyzer.exception.TooManyRequestsException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Admission control for the reactive endpoints, sharing the rate-limit buckets and in-flight character budget of the
+ * Spring MVC endpoints' {@link AdmissionControlInterceptor}, so a client cannot get around either by switching routes.
+ * <p>
+ * A request is charged its Content-Length, or the unknown-length estimate for a chunked body, and releases the charge
+ * once its handler has produced the response, i.e. after the body has been analyzed. Rejected requests are answered
+ * 429 Too Many Requests with a Retry-After header, like the GlobalExceptionHandler answers them.
+ */
+public class AdmissionControlFilterFunction implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    private final AdmissionControlInterceptor admissionControl;
+
+    public AdmissionControlFilterFunction(AdmissionControlInterceptor admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        String remoteAddress = request.remoteAddress()
+                .map(InetSocketAddress::getAddress)
+                .map(InetAddress::getHostAddress)
+                .orElse("");
+        long charge;
+        try {
+            charge = admissionControl.admit(admissionControl.clientKey(name -> request.headers().firstHeader(name), remoteAddress),
+                    request.headers().contentLength().orElse(-1));
+        } catch (TooManyRequestsException ex) {
+            ServerResponse.BodyBuilder response = ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS).contentType(MediaType.TEXT_PLAIN);
+            if (ex.getRetryAfter() != null) {
+                // Round up so clients never retry before the server expects capacity.
+                response.header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000)));
+            }
+            return response.bodyValue(ex.getMessage());
+        }
+        if (charge == 0) {
+            return next.handle(request);
+        }
+        return Mono.defer(() -> next.handle(request)).doFinally(signal -> admissionControl.release(charge));
+    }
+
+}
@@ -0,0 +1,197 @@
+package homework.textanalyzer.util;
+
+import homework.textanalyzer.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Admission control for the analysis endpoints, applied before a request reaches its controller:
+ * <ul>
+ *     <li>a token-bucket rate limit per client, keyed by the configured client header or else the remote address;</li>
+ *     <li>a global cap on the characters being analyzed at once, so a few huge texts cannot take every CPU.</li>
+ * </ul>
+ * Rejected requests fail fast with a TooManyRequestsException, which the GlobalExceptionHandler turns into
+ * 429 Too Many Requests with a Retry-After header.
+ * <p>
+ * A request's size is the length of its text parameter or its Content-Length, whichever is larger; bodies of
+ * unknown length are charged a fixed estimate. Requests of at most exempt-chars characters are only rate limited,
+ * which keeps small requests fast while large ones wait for budget. A request larger than the whole budget
+ * is charged the whole budget, so it is admitted only when nothing else large is in flight.
+ * <p>
+ * The reactive endpoints share the same buckets and budget through {@link AdmissionControlFilterFunction}.
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor, MeterBinder {
+
+    // Request attribute holding the characters charged to the in-flight budget, released after completion.
+    private static final String CHARGED_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".charged";
+    // Shared by clients seen once max-clients buckets are tracked, so unknown keys cannot grow the map without bound.
+    private static final String OVERFLOW_CLIENT = "";
+
+    @Value("${text.analyzer.admission.enabled:true}")
+    private boolean enabled = true;
+
+    // Sustained requests per second per client, and how many may arrive at once after an idle period.
+    @Value("${text.analyzer.admission.rate:100}")
+    private double rate = 100;
+
+    @Value("${text.analyzer.admission.burst:200}")
+    private int burst = 200;
+
+    // Header identifying the client, e.g. set by a trusted gateway; empty keys clients by remote address.
+    @Value("${text.analyzer.admission.client-header:}")
+    private String clientHeader = "";
+
+    @Value("${text.analyzer.admission.max-clients:100000}")
+    private int maxClients = 100_000;
+
+    @Value("${text.analyzer.admission.max-inflight-chars:16777216}")
+    private long maxInFlightChars = 16 * 1024 * 1024;
+
+    @Value("${text.analyzer.admission.exempt-chars:4096}")
+    private long exemptChars = 4096;
+
+    @Value("${text.analyzer.admission.unknown-length-chars:1048576}")
+    private long unknownLengthChars = 1024 * 1024;
+
+    // Suggested wait when the character budget is exhausted.
+    @Value("${text.analyzer.admission.retry-after:1s}")
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong inFlightChars = new AtomicLong();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long charge = admit(clientKey(request::getHeader, request.getRemoteAddr()), requestSize(request));
+        if (charge > 0) {
+            request.setAttribute(CHARGED_ATTRIBUTE, charge);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(CHARGED_ATTRIBUTE) instanceof Long charge) {
+            release(charge);
+        }
+    }
+
+    /**
+     * Applies the client's rate limit and charges the request to the in-flight budget.
+     * @param client The client's key, see {@link #clientKey(Function, String)}.
+     * @param size The request's size in chars, or -1 if its body has no declared length.
+     * @return The characters charged, to be released with {@link #release(long)} once the request completes;
+     * 0 for requests that are exempt or when admission control is disabled.
+     * @throws TooManyRequestsException if the client exceeds its rate or the budget is exhausted.
+     */
+    public long admit(String client, long size) {
+        if (!enabled) {
+            return 0;
+        }
+        long waitNanos = bucketFor(client).tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            throw new TooManyRequestsException("Rate limit of " + rate + " requests per second exceeded.", Duration.ofNanos(waitNanos));
+        }
+
+        long chars = size >= 0 ? size : unknownLengthChars;
+        if (chars <= exemptChars) {
+            return 0;
+        }
+        long charge = Math.min(chars, maxInFlightChars);
+        if (!tryCharge(charge)) {
+            throw new TooManyRequestsException("Server is analyzing too much text at once; retry later.", retryAfter);
+        }
+        return charge;
+    }
+
+    /**
+     * Returns characters charged by {@link #admit(String, long)} to the in-flight budget.
+     */
+    public void release(long charge) {
+        inFlightChars.addAndGet(-charge);
+    }
+
+    /**
+     * @return The characters currently charged to the in-flight budget.
+     */
+    public long getInFlightChars() {
+        return inFlightChars.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("textanalyzer.admission.inflight.chars", inFlightChars, AtomicLong::get).register(registry);
+        Gauge.builder("textanalyzer.admission.clients", buckets, Map::size).register(registry);
+    }
+
+    /**
+     * Forgets clients whose bucket has refilled completely; a returning client simply starts with a full bucket again.
+     */
+    @Scheduled(fixedDelayString = "${text.analyzer.admission.sweep-interval:60000}")
+    public void forgetIdleClients() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private boolean tryCharge(long charge) {
+        long current;
+        do {
+            current = inFlightChars.get();
+            if (current + charge > maxInFlightChars) {
+                return false;
+            }
+        } while (!inFlightChars.compareAndSet(current, current + charge));
+        return true;
+    }
+
+    private TokenBucket bucketFor(String client) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        String key = buckets.size() < maxClients ? client : OVERFLOW_CLIENT;
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(burst, rate, System.nanoTime()));
+    }
+
+    /**
+     * @param headers The request's headers, by name.
+     * @param remoteAddress The client's IP address.
+     * @return The value of the configured client header, or else the remote address.
+     */
+    String clientKey(Function<String, String> headers, String remoteAddress) {
+        if (!clientHeader.isEmpty()) {
+            String client = headers.apply(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return client;
+            }
+        }
+        return remoteAddress;
+    }
+
+    private long requestSize(HttpServletRequest request) {
+        String text = request.getParameter("text");
+        long size = text != null ? text.length() : 0;
+        long contentLength = request.getContentLengthLong();
+        if (contentLength >= 0) {
+            return Math.max(size, contentLength);
+        }
+        // A chunked body gives no length up front.
+        return request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null ? Math.max(size, unknownLengthChars) : size;
+    }
+
+}
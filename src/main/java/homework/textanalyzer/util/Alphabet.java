@@ -0,0 +1,81 @@
+package homework.textanalyzer.util;
+
+import lombok.Getter;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Alphabets the letter analyses can count in, selected per request with the {@code alphabet} parameter.
+ * Each alphabet compiles its vowels and consonants into {@link LetterTable}s in its constructor, which runs in the
+ * enum's static initializer: the first use of any alphabet builds the tables of all of them, once, and counting stays
+ * a single array read per char whichever alphabet is used.
+ * <p>
+ * ENGLISH is the default and counts exactly the {@link CharacterSets} letters; accented letters are not counted.
+ * The other alphabets add their own letters, upper-case with their locale's rules, and fold any other accented
+ * letter into its base letter (e.g. 'Å' counts as 'A').
+ * <p>
+ * Like {@link AnalysisType}, each alphabet has a fixed code for binary encodings that is never changed or reused.
+ */
+@Getter
+public enum Alphabet {
+    ENGLISH(0, CharacterSets.VOWELS, CharacterSets.CONSONANTS),
+    // Umlauts are letters of their own; 'ß' is counted as the capital 'ẞ'.
+    GERMAN(1, Locale.GERMAN, "AEIOUÄÖÜ", "BCDFGHJKLMNPQRSTVWXYZẞ", Map.of('ß', 'ẞ')),
+    // Accents only mark pronunciation, so 'É', 'À', 'Ç', ... count as their base letter; 'Y' is a vowel.
+    FRENCH(2, Locale.FRENCH, "AEIOUY", "BCDFGHJKLMNPQRSTVWXZ", Map.of()),
+    // The legacy cedilla forms 'Ş' and 'Ţ' count as the correct comma-below letters.
+    ROMANIAN(3, Locale.forLanguageTag("ro"), "AĂÂEIÎOU", "BCDFGHJKLMNPQRSȘTȚVWXYZ", Map.of('Ş', 'Ș', 'Ţ', 'Ț')),
+    // Dotted 'İ' and dotless 'I' are distinct letters: 'i' counts as 'İ', 'ı' as 'I'. Q, W and X are not Turkish letters.
+    TURKISH(4, Locale.forLanguageTag("tr"), "AEIİOÖUÜ", "BCÇDFGĞHJKLMNPRSŞTVYZ", Map.of());
+
+    // Stable code in binary encodings.
+    private final int code;
+
+    private final LetterTable vowels;
+    private final LetterTable consonants;
+
+    // Vowels followed by consonants, so a single lookup per char serves a combined (multi-type) analysis.
+    private final LetterTable letters;
+
+    Alphabet(int code, CharacterSets vowels, CharacterSets consonants) {
+        this.code = code;
+        this.vowels = vowels.getLookupTable();
+        this.consonants = consonants.getLookupTable();
+        this.letters = LetterTable.of(vowels.getCharacters() + consonants.getCharacters());
+    }
+
+    Alphabet(int code, Locale locale, String vowels, String consonants, Map<Character, Character> aliases) {
+        this.code = code;
+        this.vowels = LetterTable.of(vowels, locale, true, aliases);
+        this.consonants = LetterTable.of(consonants, locale, true, aliases);
+        this.letters = LetterTable.of(vowels + consonants, locale, true, aliases);
+    }
+
+    /**
+     * Resolves the letters counted by a letter-based analysis type.
+     * @param type The analysis type.
+     * @return The lookup table of this alphabet's letters for the type, or null if the type does not count single letters.
+     */
+    public LetterTable tableFor(AnalysisType type) {
+        return switch (type) {
+            case VOWELS -> vowels;
+            case CONSONANTS -> consonants;
+            default -> null;
+        };
+    }
+
+    /**
+     * @param code A code returned by {@link #getCode()}.
+     * @return The alphabet with that code, or null if there is none.
+     */
+    public static Alphabet fromCode(int code) {
+        for (Alphabet alphabet : values()) {
+            if (alphabet.code == code) {
+                return alphabet;
+            }
+        }
+        return null;
+    }
+
+}
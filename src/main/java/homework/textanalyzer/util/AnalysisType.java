@@ -2,9 +2,52 @@ package homework.textanalyzer.util;
 
 /**
  * Defines the types of text analysis that can be performed.
+ * <p>
+ * Each type has a fixed code that is persisted instead of its name or ordinal (compact binary responses, the result
+ * store), so constants can be reordered freely; a code is never changed or reused.
  */
 public enum AnalysisType {
-    VOWELS,
-    CONSONANTS,
-    WORD
-}
\ No newline at end of file
+    VOWELS(0),
+    CONSONANTS(1),
+    WORD(2),
+    // Letter pairs and triples within words, e.g. "TH" and "THE"; counted in the alphabet's letters.
+    BIGRAM(3),
+    TRIGRAM(4);
+
+    private final int code;
+
+    AnalysisType(int code) {
+        this.code = code;
+    }
+
+    /**
+     * @return The type's stable code in binary encodings.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @param code A code returned by {@link #getCode()}.
+     * @return The type with that code, or null if there is none.
+     */
+    public static AnalysisType fromCode(int code) {
+        for (AnalysisType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The number of letters per n-gram for BIGRAM and TRIGRAM, or 0 for the other types.
+     */
+    public int ngramLength() {
+        return switch (this) {
+            case BIGRAM -> 2;
+            case TRIGRAM -> 3;
+            default -> 0;
+        };
+    }
+}
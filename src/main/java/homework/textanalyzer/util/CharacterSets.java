@@ -15,12 +15,16 @@ public enum CharacterSets {
 
     private final Set<Character> characterSet;
 
+    // Case-folding lookup table used by the counting engine; compiled once per enum constant.
+    private final LetterTable lookupTable;
+
     CharacterSets(String characters) {
         this.characters = characters;
         // Initialize the HashSet once per enum constant
         // Creates an IntStream from the characters in the strings & converts them to a Character object.
         this.characterSet = characters.chars()
                 .mapToObj(c -> (char) c).collect(Collectors.toUnmodifiableSet());
+        this.lookupTable = LetterTable.of(characters);
     }
 
     /**
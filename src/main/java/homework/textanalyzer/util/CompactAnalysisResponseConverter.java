@@ -0,0 +1,126 @@
+package homework.textanalyzer.util;
+
+import homework.textanalyzer.model.AnalysisResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of {@link AnalysisResponse}, negotiated with {@code Accept: application/x-textanalyzer-counts}.
+ * All integers are unsigned LEB128 {@link Varints}, so small counts take a single byte:
+ * <pre>
+ * varint  {@link AnalysisType#getCode() analysis type code}
+ * varint  original text: UTF-8 byte length + 1, followed by the bytes; 0 when the text is not echoed
+ * VOWELS, CONSONANTS:
+ *   varint  {@link Alphabet#getCode() alphabet code} (ENGLISH when the response has none)
+ *   varint  one count per letter of the alphabet's set, in table order (zeros included, no keys)
+ * WORD:
+ *   varint  number of words, then per word: varint UTF-8 byte length, the bytes, varint count
+ * BIGRAM, TRIGRAM:
+ *   varint  {@link Alphabet#getCode() alphabet code} (ENGLISH when the response has none)
+ *   varint  number of n-grams, then per n-gram: varint UTF-8 byte length, the bytes, varint count
+ * </pre>
+ * Registered by {@link homework.textanalyzer.config.CompactResponseConfig} after the JSON (and CBOR/Smile) converters,
+ * so it is only chosen when a client asks for it, never for a wildcard or missing Accept header.
+ */
+public class CompactAnalysisResponseConverter extends AbstractHttpMessageConverter<AnalysisResponse> {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-textanalyzer-counts";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    public CompactAnalysisResponseConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return AnalysisResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(AnalysisResponse response, HttpOutputMessage outputMessage) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        AnalysisType type = response.getAnalysisType();
+        Map<String, Integer> counts = response.getCharacterCounts() != null ? response.getCharacterCounts() : Map.of();
+        Varints.write(out, type.getCode());
+        if (response.getOriginalText() == null) {
+            Varints.write(out, 0);
+        } else {
+            byte[] text = response.getOriginalText().getBytes(StandardCharsets.UTF_8);
+            Varints.write(out, text.length + 1);
+            out.write(text);
+        }
+
+        Alphabet alphabet = response.getAlphabet() != null ? response.getAlphabet() : Alphabet.ENGLISH;
+        LetterTable table = alphabet.tableFor(type);
+        if (type != AnalysisType.WORD) {
+            Varints.write(out, alphabet.getCode());
+        }
+        if (table != null) {
+            for (int slot = 0; slot < table.size(); slot++) {
+                Varints.write(out, counts.getOrDefault(String.valueOf(table.letterAt(slot)), 0));
+            }
+        } else {
+            Varints.write(out, counts.size());
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                byte[] word = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                Varints.write(out, word.length);
+                out.write(word);
+                Varints.write(out, entry.getValue());
+            }
+        }
+
+        outputMessage.getHeaders().setContentLength(out.size());
+        out.writeTo(outputMessage.getBody());
+    }
+
+    @Override
+    protected AnalysisResponse readInternal(Class<? extends AnalysisResponse> clazz, HttpInputMessage inputMessage) throws IOException {
+        DataInputStream in = new DataInputStream(inputMessage.getBody());
+        int typeCode = Varints.read(in);
+        AnalysisType type = AnalysisType.fromCode(typeCode);
+        if (type == null) {
+            throw new HttpMessageNotReadableException("Unknown analysis type code: " + typeCode, inputMessage);
+        }
+        int textLength = Varints.read(in);
+        String originalText = textLength == 0 ? null : new String(in.readNBytes(textLength - 1), StandardCharsets.UTF_8);
+
+        // Same shape as the JSON form: letters that were never seen are left out.
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        Alphabet alphabet = null;
+        if (type != AnalysisType.WORD) {
+            int alphabetCode = Varints.read(in);
+            alphabet = Alphabet.fromCode(alphabetCode);
+            if (alphabet == null) {
+                throw new HttpMessageNotReadableException("Unknown alphabet code: " + alphabetCode, inputMessage);
+            }
+        }
+        LetterTable table = alphabet != null ? alphabet.tableFor(type) : null;
+        if (table != null) {
+            for (int slot = 0; slot < table.size(); slot++) {
+                int count = Varints.read(in);
+                if (count > 0) {
+                    counts.put(String.valueOf(table.letterAt(slot)), count);
+                }
+            }
+        } else {
+            int words = Varints.read(in);
+            for (int i = 0; i < words; i++) {
+                byte[] word = new byte[Varints.read(in)];
+                in.readFully(word);
+                counts.put(new String(word, StandardCharsets.UTF_8), Varints.read(in));
+            }
+        }
+        return new AnalysisResponse(counts, originalText, type, alphabet);
+    }
+
+}
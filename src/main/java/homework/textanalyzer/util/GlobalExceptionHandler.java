@@ -1,6 +1,16 @@
 package homework.textanalyzer.util;
 
+import homework.textanalyzer.exception.BatchSizeExceededException;
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.JobNotFoundException;
+import homework.textanalyzer.exception.SessionNotFoundException;
+import homework.textanalyzer.exception.ShardAnalysisException;
 import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.service.AnalyzerMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -15,8 +25,12 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
  * Annotation @ControllerAdvice provides centralized exception handling across all @Controller classes, ensuring consistent error responses.
  */
 @ControllerAdvice // Makes this class a global handler for exceptions
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    // Counts every handled error as textanalyzer.errors; resolved lazily so web slice tests need no metrics setup.
+    private final ObjectProvider<AnalyzerMetrics> metrics;
+
     /**
      * Handles cases where required request parameters are missing from the URL.
      * Returns an HTTP 400 Bad Request status with a descriptive message.
@@ -26,6 +40,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MissingServletRequestParameterException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<String> handleMissingParams(MissingServletRequestParameterException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
         String error = ex.getParameterName() + " parameter is missing.";
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
@@ -40,6 +55,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<String> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
         String error = String.format("Parameter '%s' has an invalid value: '%s'. Expected type: %s",
                 ex.getName(), ex.getValue(), ex.getRequiredType() != null ? ex.getRequiredType().getSimpleName() : "unknown");
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
@@ -54,6 +70,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<String> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
         String error = "Validation error: " + ex.getMessage();
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
@@ -67,7 +84,82 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(TextLengthExceededException.class)
     // No @ResponseStatus needed here because it's defined on the exception class itself.
     public ResponseEntity<String> handleTextLengthExceeded(TextLengthExceededException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    /**
+     * Catches and handles the custom BatchSizeExceededException.
+     * @param ex The BatchSizeExceededException.
+     * @return ResponseEntity containing the exception's message in the response body.
+     */
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<String> handleBatchSizeExceeded(BatchSizeExceededException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
     }
 
+    /**
+     * Catches and handles the custom InvalidRequestException, raised for request content that cannot be applied,
+     * e.g. merging sessions of different analysis types. Other IllegalArgumentExceptions are server errors.
+     * @param ex The InvalidRequestException.
+     * @return ResponseEntity containing the exception's message in the response body.
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleInvalidRequest(InvalidRequestException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Catches and handles the custom SessionNotFoundException.
+     * @param ex The SessionNotFoundException.
+     * @return ResponseEntity containing the exception's message in the response body.
+     */
+    @ExceptionHandler(SessionNotFoundException.class)
+    public ResponseEntity<String> handleSessionNotFound(SessionNotFoundException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Catches and handles the custom JobNotFoundException.
+     * @param ex The JobNotFoundException.
+     * @return ResponseEntity containing the exception's message in the response body.
+     */
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<String> handleJobNotFound(JobNotFoundException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Catches and handles the custom TooManyRequestsException.
+     * Adds a Retry-After header (in whole seconds) when the exception carries a retry delay.
+     * @param ex The TooManyRequestsException.
+     * @return ResponseEntity containing the exception's message in the response body.
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<String> handleTooManyRequests(TooManyRequestsException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+        if (ex.getRetryAfter() != null) {
+            // Round up so clients never retry before the server expects capacity.
+            long seconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+            response.header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+        return response.body(ex.getMessage());
+    }
+
+    /**
+     * Catches and handles the custom ShardAnalysisException, raised when a sharded analysis runs out of workers for a shard.
+     * @param ex The ShardAnalysisException.
+     * @return ResponseEntity containing the exception's message in the response body.
+     */
+    @ExceptionHandler(ShardAnalysisException.class)
+    public ResponseEntity<String> handleShardAnalysis(ShardAnalysisException ex) {
+        metrics.ifAvailable(m -> m.recordError(ex));
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_GATEWAY);
+    }
+
 }
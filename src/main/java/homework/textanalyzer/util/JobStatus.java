@@ -0,0 +1,19 @@
+package homework.textanalyzer.util;
+
+/**
+ * Lifecycle states of an asynchronous analysis job.
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * @return true if the job will not change state any more.
+     */
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
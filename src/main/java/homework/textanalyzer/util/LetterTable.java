@@ -0,0 +1,117 @@
+package homework.textanalyzer.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Precomputed lookup table that maps every UTF-16 code unit to its slot in a fixed set of letters.
+ * The table folds case up front, so counting a character is a single array read instead of
+ * upper-casing the text and probing a boxed Set.
+ */
+public final class LetterTable {
+
+    /** Slot value returned for code units that are not part of the letter set. */
+    public static final int NO_SLOT = -1;
+
+    private static final int CODE_UNITS = Character.MAX_VALUE + 1;
+
+    private final char[] letters;
+
+    // One entry per possible char; holds the letter's slot or NO_SLOT.
+    private final byte[] slots;
+
+    private LetterTable(char[] letters, byte[] slots) {
+        this.letters = letters;
+        this.slots = slots;
+    }
+
+    /**
+     * Builds a table for the given uppercase letters.
+     * A character maps to a slot when its uppercase form (as returned by {@link Character#toUpperCase(char)}) is one of the letters.
+     * @param letters The uppercase letters of the set, in the order their slots should be numbered.
+     * @return The compiled lookup table.
+     */
+    public static LetterTable of(String letters) {
+        if (letters.length() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A letter table supports at most " + Byte.MAX_VALUE + " letters.");
+        }
+        byte[] slots = new byte[CODE_UNITS];
+        for (int c = 0; c < CODE_UNITS; c++) {
+            slots[c] = (byte) letters.indexOf(Character.toUpperCase((char) c));
+        }
+        return new LetterTable(letters.toCharArray(), slots);
+    }
+
+    /**
+     * Builds a table for the uppercase letters of a locale-specific alphabet.
+     * A character is upper-cased with the locale's rules (so in Turkish 'i' maps to 'İ' and 'ı' to 'I'),
+     * then replaced by its alias, if any. If the result is not one of the letters and diacritic folding is enabled,
+     * the accents are stripped (canonical decomposition) and the base letter is tried, so 'É' counts as 'E'
+     * unless the alphabet lists 'É' itself.
+     * <p>
+     * All of this runs once per code unit while the table is built; lookups stay a single array read.
+     * @param letters The uppercase letters of the set, in the order their slots should be numbered.
+     * @param locale The locale whose case mapping is used.
+     * @param foldDiacritics Whether accented letters missing from the set count as their base letter.
+     * @param aliases Uppercase characters that count as another letter of the set, e.g. 'Ş' (cedilla) as 'Ș' (comma) in Romanian.
+     * @return The compiled lookup table.
+     */
+    public static LetterTable of(String letters, Locale locale, boolean foldDiacritics, Map<Character, Character> aliases) {
+        if (letters.length() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("A letter table supports at most " + Byte.MAX_VALUE + " letters.");
+        }
+        byte[] slots = new byte[CODE_UNITS];
+        for (int c = 0; c < CODE_UNITS; c++) {
+            slots[c] = NO_SLOT;
+            if (!Character.isLetter(c)) {
+                continue;
+            }
+            // Locale-specific case rules and canonical decompositions onto Latin letters only concern chars below U+3000;
+            // the CJK and Hangul ranges above it take the cheap path, which keeps building a table fast.
+            boolean latinRange = c < 0x3000;
+            char upper = latinRange ? upperCase((char) c, locale) : Character.toUpperCase((char) c);
+            int slot = letters.indexOf(aliases.getOrDefault(upper, upper));
+            if (slot == NO_SLOT && foldDiacritics && latinRange && upper > 0x7F) {
+                char base = Normalizer.normalize(String.valueOf(upper), Normalizer.Form.NFD).charAt(0);
+                slot = letters.indexOf(aliases.getOrDefault(base, base));
+            }
+            slots[c] = (byte) slot;
+        }
+        return new LetterTable(letters.toCharArray(), slots);
+    }
+
+    /**
+     * Upper-cases a single char with the locale's rules; mappings that expand into several chars (such as 'ß' to "SS")
+     * fall back to the locale-independent single-char mapping.
+     */
+    private static char upperCase(char c, Locale locale) {
+        String upper = String.valueOf(c).toUpperCase(locale);
+        return upper.length() == 1 ? upper.charAt(0) : Character.toUpperCase(c);
+    }
+
+    /**
+     * Returns the slot of the given character, folding case.
+     * @param ch The character to look up.
+     * @return The slot index, or {@link #NO_SLOT} if the character is not in the set.
+     */
+    public int slotOf(char ch) {
+        return slots[ch];
+    }
+
+    /**
+     * @param slot A slot index between 0 and {@link #size()} - 1.
+     * @return The uppercase letter stored in that slot.
+     */
+    public char letterAt(int slot) {
+        return letters[slot];
+    }
+
+    /**
+     * @return The number of letters (and therefore slots) in this table.
+     */
+    public int size() {
+        return letters.length;
+    }
+
+}
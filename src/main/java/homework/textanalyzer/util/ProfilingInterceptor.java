@@ -0,0 +1,48 @@
+package homework.textanalyzer.util;
+
+import homework.textanalyzer.service.AnalysisEvents;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks the request stages of the analysis endpoints for the flight recorder events in {@link AnalysisEvents}:
+ * as an interceptor it starts a request (and its parameter binding) and finishes it after completion, and as
+ * response body advice it starts the serialization of the response body, which ends when the request completes.
+ * Without a running recording this only checks whether the events are enabled.
+ */
+@ControllerAdvice
+public class ProfilingInterceptor implements HandlerInterceptor, ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AnalysisEvents.requestStarted(request.getRequestURI());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        AnalysisEvents.requestFinished(response.getStatus());
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        AnalysisEvents.serializationStarted(selectedContentType.toString());
+        return body;
+    }
+
+}
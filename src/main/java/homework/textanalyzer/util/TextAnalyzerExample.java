@@ -1,6 +1,20 @@
 package homework.textanalyzer.util;
 
+import homework.textanalyzer.service.CorpusScanner;
+import homework.textanalyzer.service.LetterHistogram;
+import homework.textanalyzer.service.MappedFileAnalyzer;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * The program for calculating how many times letter in given sentence appears.
@@ -9,12 +23,36 @@ import java.util.HashMap;
  * The first parameter can be 'vowels' or 'consonants'
  * The second parameter is the sentence to be analyzed.
  * <p>
+ * File mode: {@code <vowels|consonants> --file <path> [UTF-8|ISO-8859-1]}.
+ * The file is memory-mapped and counted from its encoded bytes, so it is never loaded into a String;
+ * files larger than 2 GB are mapped window by window. The charset defaults to UTF-8.
+ * <p>
+ * Corpus mode: {@code <types> --scan <directory> [--per-file]}, where types is a comma-separated list such as
+ * {@code vowels,word,bigram}. Every UTF-8 file under the directory is analyzed by a {@link CorpusScanner};
+ * the aggregate result and the throughput are printed, and with --per-file also one line per file.
+ * <p>
  * Task: Refactor this code to be production ready and create appropriate unit tests.
  */
 
 public class TextAnalyzerExample {
 
-  public static void main(String[] args) {
+  // Number of most frequent words and n-grams printed in corpus mode.
+  private static final int SCAN_LIMIT = 20;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    try {
+      if (args.length >= 3 && args[1].equals("--file")) {
+        analyzeFile(args);
+        return;
+      }
+      if (args.length >= 3 && args[1].equals("--scan")) {
+        scanCorpus(args);
+        return;
+      }
+    } catch (IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.exit(2);
+    }
     String input = "";
     int numA = 0;
     int numE = 0;
@@ -73,4 +111,56 @@ public class TextAnalyzerExample {
       });
     }
   }
+
+  /**
+   * Analyzes a file given as {@code <vowels|consonants> --file <path> [charset]} and prints one line per letter.
+   */
+  private static void analyzeFile(String[] args) throws IOException {
+    AnalysisType type = parseType(args[0]);
+    if (type != AnalysisType.VOWELS && type != AnalysisType.CONSONANTS) {
+      throw new IllegalArgumentException("File mode counts VOWELS or CONSONANTS, not " + type + ".");
+    }
+    CharacterSets characterSet = CharacterSets.valueOf(type.name());
+    Charset charset = args.length >= 4 ? Charset.forName(args[3]) : StandardCharsets.UTF_8;
+
+    LetterHistogram histogram = new MappedFileAnalyzer().analyze(Path.of(args[2]), characterSet.getLookupTable(), charset);
+
+    LetterTable table = histogram.getTable();
+    for (int slot = 0; slot < table.size(); slot++) {
+      System.out.println("Letter '" + table.letterAt(slot) + "' appears " + histogram.get(slot) + " times");
+    }
+  }
+
+  /**
+   * Scans a directory given as {@code <types> --scan <directory> [--per-file]} and prints the results and throughput.
+   */
+  private static void scanCorpus(String[] args) throws IOException, InterruptedException {
+    Set<AnalysisType> types = Arrays.stream(args[0].split(","))
+      .map(TextAnalyzerExample::parseType)
+      .collect(Collectors.toCollection(() -> EnumSet.noneOf(AnalysisType.class)));
+    boolean perFile = args.length >= 4 && args[3].equals("--per-file");
+
+    CorpusScanner.ScanResult result = new CorpusScanner().scan(Path.of(args[2]), types, Alphabet.ENGLISH, SCAN_LIMIT,
+      perFile ? (file, results) -> System.out.println(file + ": " + results) : null);
+
+    for (Map.Entry<AnalysisType, Map<String, Integer>> entry : result.results().entrySet()) {
+      System.out.println(entry.getKey() + ": " + entry.getValue());
+    }
+    System.out.printf(Locale.ROOT, "Scanned %d files (%d bytes) in %.2f s: %.0f files/s, %.1f MB/s; %d files could not be read%n",
+      result.files(), result.bytes(), result.elapsed().toNanos() / 1e9,
+      result.filesPerSecond(), result.megabytesPerSecond(), result.failedFiles());
+  }
+
+  /**
+   * @return The analysis type named by a command-line argument, ignoring case.
+   * @throws IllegalArgumentException naming the known types if there is no type by that name.
+   */
+  private static AnalysisType parseType(String name) {
+    try {
+      return AnalysisType.valueOf(name.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("Unknown analysis type '" + name + "'; expected one of "
+        + Arrays.toString(AnalysisType.values()) + ".");
+    }
+  }
 }
@@ -0,0 +1,61 @@
+package homework.textanalyzer.util;
+
+/**
+ * Token bucket rate limiter: holds up to {@code capacity} tokens, refilled continuously at a fixed rate.
+ * Each admitted request takes one token, so a client may burst up to the capacity and then sustain the refill rate.
+ * <p>
+ * Time is passed in by the caller (System.nanoTime() values), which keeps the bucket deterministic in tests.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a full bucket.
+     * @param capacity The maximum number of tokens, i.e. the burst size.
+     * @param tokensPerSecond The refill rate.
+     * @param nowNanos The current time.
+     */
+    TokenBucket(double capacity, double tokensPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1e9;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Takes one token if one is available.
+     * @param nowNanos The current time.
+     * @return 0 if a token was taken, otherwise the nanoseconds until the next token is available.
+     */
+    synchronized long tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    /**
+     * @param nowNanos The current time.
+     * @return Whether the bucket has refilled completely, i.e. its client has been idle long enough to be forgotten.
+     */
+    synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        // Compare by difference, since System.nanoTime() may overflow.
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = nowNanos;
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+package homework.textanalyzer.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Unsigned LEB128 varints, as used by the compact binary formats: 7 bits per byte, high bit set on every byte but the last,
+ * so values below 128 take a single byte.
+ */
+public final class Varints {
+
+    private Varints() {
+    }
+
+    /**
+     * Writes a non-negative int as a varint of 1 to 5 bytes.
+     * @param out The stream to write to.
+     * @param value The value; negative values are written as their unsigned 32-bit form.
+     */
+    public static void write(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Reads a varint written by {@link #write(OutputStream, int)}.
+     * @param in The stream to read from.
+     * @return The value.
+     * @throws EOFException if the stream ends inside the varint.
+     * @throws IOException if the varint is longer than 5 bytes.
+     */
+    public static int read(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated varint.");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+
+}
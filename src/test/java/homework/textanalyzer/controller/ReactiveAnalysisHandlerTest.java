@@ -0,0 +1,77 @@
+package homework.textanalyzer.controller;
+
+import homework.textanalyzer.service.TextAnalyzerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * Tests for the non-blocking POST /analyze handler, bound to a router function without starting a server.
+ */
+class ReactiveAnalysisHandlerTest {
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        ReactiveAnalysisHandler handler = new ReactiveAnalysisHandler(new TextAnalyzerService());
+        ReflectionTestUtils.setField(handler, "maxStreamLength", 20L);
+        webTestClient = WebTestClient.bindToRouterFunction(RouterFunctions.route(POST("/analyze"), handler::analyze)).build();
+    }
+
+    @Test
+    @DisplayName("Should count the letters of the request body")
+    void analyze_countsBody() {
+        webTestClient.post().uri("/analyze?type=VOWELS")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("Hello World")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.characterCounts.E").isEqualTo(1)
+                .jsonPath("$.characterCounts.O").isEqualTo(2)
+                .jsonPath("$.analysisType").isEqualTo("VOWELS")
+                .jsonPath("$.alphabet").isEqualTo("ENGLISH")
+                .jsonPath("$.originalText").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should count words when type is WORD")
+    void analyze_words() {
+        webTestClient.post().uri("/analyze?type=WORD&limit=1")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("to be or not to be")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.characterCounts.length()").isEqualTo(1)
+                .jsonPath("$.alphabet").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should return 400 Bad Request for a missing or invalid type")
+    void analyze_invalidType() {
+        webTestClient.post().uri("/analyze").bodyValue("text").exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("type parameter is missing.");
+        webTestClient.post().uri("/analyze?type=INVALID").bodyValue("text").exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Should return 413 Payload Too Large for a body longer than the stream limit")
+    void analyze_tooLong() {
+        webTestClient.post().uri("/analyze?type=VOWELS")
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("a".repeat(21))
+                .exchange()
+                .expectStatus().isEqualTo(413);
+    }
+
+}
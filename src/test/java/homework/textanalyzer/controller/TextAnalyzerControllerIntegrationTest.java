@@ -1,24 +1,38 @@
 package homework.textanalyzer.controller;
 
+import homework.textanalyzer.service.AnalysisResultCache;
 import homework.textanalyzer.service.TextAnalyzerService;
+import homework.textanalyzer.util.Alphabet;
 import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.CompactAnalysisResponseConverter;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
@@ -28,12 +42,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * and JSON serialization. The TextAnalyzerService dependency is mocked.
  */
 @WebMvcTest(TextAnalyzerController.class) // Focuses on Spring MVC components
-@TestPropertySource(properties = "text.analyzer.max-length=100")
+@Import(AnalysisResultCache.class) // Disabled below, so every request reaches the mocked service
+@TestPropertySource(properties = {"text.analyzer.max-length=100", "text.analyzer.stream.max-length=1000", "text.analyzer.cache.enabled=false"})
 class TextAnalyzerControllerIntegrationTest {
 
     @Autowired
     private MockMvc mockMvc; // Autowired to simulate HTTP requests in tests
 
+    @Autowired
+    private AnalysisResultCache resultCache;
+
     @MockitoBean
     private TextAnalyzerService textAnalyzerService;
 
@@ -45,7 +63,7 @@ class TextAnalyzerControllerIntegrationTest {
         serviceResult.put('A', 2);
         serviceResult.put('E', 1);
         // Configure the mock service to return 'serviceResult' when its analyze method is called
-        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class)))
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
                 .thenReturn(serviceResult);
 
         // Perform a GET request to /analyze with specific parameters
@@ -67,7 +85,7 @@ class TextAnalyzerControllerIntegrationTest {
         Map<Character, Integer> serviceResult = new HashMap<>();
         serviceResult.put('H', 1);
         serviceResult.put('L', 3);
-        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class)))
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
                 .thenReturn(serviceResult);
 
         mockMvc.perform(get("/analyze")
@@ -86,7 +104,7 @@ class TextAnalyzerControllerIntegrationTest {
     void analyzeText_emptyText() throws Exception {
         // Even though the controller has an explicit check for empty text,
         // we mock the service behavior for consistency in isolation testing.
-        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class)))
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
                 .thenReturn(Collections.emptyMap());
 
         mockMvc.perform(get("/analyze")
@@ -141,4 +159,165 @@ class TextAnalyzerControllerIntegrationTest {
                 // Verify that the response body contains part of the expected error message.
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Input text exceeds maximum allowed length of")));
     }
+
+    @Test
+    @DisplayName("Should analyze a plain-text request body longer than the GET limit")
+    void analyzeStream_textPlain_success() throws Exception {
+        Map<Character, Integer> serviceResult = new HashMap<>();
+        serviceResult.put('A', 200);
+        when(textAnalyzerService.analyze(any(Reader.class), any(AnalysisType.class), any(Alphabet.class), anyLong()))
+                .thenReturn(serviceResult);
+
+        mockMvc.perform(post("/analyze")
+                        .param("type", "VOWELS")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("a".repeat(200))) // 200 characters > GET max length
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.characterCounts.A").value(200))
+                .andExpect(jsonPath("$.originalText").doesNotExist())
+                .andExpect(jsonPath("$.analysisType").value("VOWELS"));
+    }
+
+    @Test
+    @DisplayName("Should analyze an uploaded multipart file")
+    void analyzeFile_multipart_success() throws Exception {
+        Map<Character, Integer> serviceResult = new HashMap<>();
+        serviceResult.put('L', 3);
+        when(textAnalyzerService.analyze(any(Reader.class), any(AnalysisType.class), any(Alphabet.class), anyLong()))
+                .thenReturn(serviceResult);
+
+        MockMultipartFile file = new MockMultipartFile("file", "hello.txt", MediaType.TEXT_PLAIN_VALUE,
+                "Hello World".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/analyze")
+                        .file(file)
+                        .param("type", "CONSONANTS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.characterCounts.L").value(3))
+                .andExpect(jsonPath("$.analysisType").value("CONSONANTS"));
+    }
+
+    @Test
+    @DisplayName("Should return word counts for WORD analysis, honouring the limit parameter")
+    void analyzeText_words_success() throws Exception {
+        Map<String, Integer> serviceResult = new LinkedHashMap<>();
+        serviceResult.put("hello", 2);
+        when(textAnalyzerService.analyzeWords(anyString(), eq(1)))
+                .thenReturn(serviceResult);
+
+        mockMvc.perform(get("/analyze")
+                        .param("type", "WORD")
+                        .param("text", "Hello hello world")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.characterCounts.hello").value(2))
+                .andExpect(jsonPath("$.characterCounts.world").doesNotExist())
+                .andExpect(jsonPath("$.analysisType").value("WORD"));
+    }
+
+    @Test
+    @DisplayName("Should return the top n-grams for BIGRAM analysis, together with the alphabet")
+    void analyzeText_bigrams_success() throws Exception {
+        Map<String, Integer> serviceResult = new LinkedHashMap<>();
+        serviceResult.put("TH", 2);
+        when(textAnalyzerService.analyzeNGrams(anyString(), eq(AnalysisType.BIGRAM), eq(Alphabet.FRENCH), eq(1)))
+                .thenReturn(serviceResult);
+
+        mockMvc.perform(get("/analyze")
+                        .param("type", "BIGRAM")
+                        .param("text", "The thé")
+                        .param("alphabet", "FRENCH")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.characterCounts.TH").value(2))
+                .andExpect(jsonPath("$.characterCounts.length()").value(1))
+                .andExpect(jsonPath("$.analysisType").value("BIGRAM"))
+                .andExpect(jsonPath("$.alphabet").value("FRENCH"));
+    }
+
+    @Test
+    @DisplayName("Should leave out the original text when echo is false")
+    void analyzeText_noEcho() throws Exception {
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
+                .thenReturn(Map.of('E', 1, 'O', 2));
+
+        mockMvc.perform(get("/analyze")
+                        .param("type", "VOWELS")
+                        .param("text", "Hello World")
+                        .param("echo", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.characterCounts.O").value(2))
+                .andExpect(jsonPath("$.originalText").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should return the compact binary encoding when requested")
+    void analyzeText_compactBinary() throws Exception {
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
+                .thenReturn(Map.of('A', 2, 'E', 1));
+
+        mockMvc.perform(get("/analyze")
+                        .param("type", "VOWELS")
+                        .param("text", "Abrakade")
+                        .param("echo", "false")
+                        .accept(CompactAnalysisResponseConverter.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CompactAnalysisResponseConverter.MEDIA_TYPE))
+                // Type VOWELS, no text, alphabet ENGLISH, then the counts of A, E, I, O and U.
+                .andExpect(content().bytes(new byte[]{0, 0, 0, 2, 1, 0, 0, 0}));
+    }
+
+    @Test
+    @DisplayName("Should return JSON rather than the compact encoding when any media type is accepted")
+    void analyzeText_wildcardAccept_json() throws Exception {
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
+                .thenReturn(Map.of('A', 2));
+
+        mockMvc.perform(get("/analyze")
+                        .param("type", "VOWELS")
+                        .param("text", "Banana")
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.characterCounts.A").value(2));
+    }
+
+    @Test
+    @DisplayName("Cached JSON bytes should only be returned when JSON has the highest q-value")
+    void analyzeText_cachedJson_respectsQualityValues() throws Exception {
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
+                .thenReturn(Map.of('A', 2, 'E', 1));
+        ReflectionTestUtils.setField(resultCache, "enabled", true);
+        ReflectionTestUtils.setField(resultCache, "serialized", true);
+        try {
+            mockMvc.perform(get("/analyze").param("type", "VOWELS").param("text", "Abrakade")
+                            .header(HttpHeaders.ACCEPT, "application/json;q=0.1, " + CompactAnalysisResponseConverter.MEDIA_TYPE_VALUE))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(CompactAnalysisResponseConverter.MEDIA_TYPE));
+            mockMvc.perform(get("/analyze").param("type", "VOWELS").param("text", "Abrakade")
+                            .header(HttpHeaders.ACCEPT, CompactAnalysisResponseConverter.MEDIA_TYPE_VALUE + ";q=0.5, application/json"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.characterCounts.A").value(2));
+        } finally {
+            ReflectionTestUtils.setField(resultCache, "enabled", false);
+            ReflectionTestUtils.setField(resultCache, "serialized", false);
+            resultCache.clear();
+        }
+    }
+
+    @Test
+    @DisplayName("Should return CBOR when requested")
+    void analyzeText_cbor() throws Exception {
+        when(textAnalyzerService.analyze(anyString(), any(AnalysisType.class), any(Alphabet.class)))
+                .thenReturn(Map.of('A', 2));
+
+        mockMvc.perform(get("/analyze")
+                        .param("type", "VOWELS")
+                        .param("text", "Banana")
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"));
+    }
 }
@@ -0,0 +1,278 @@
+package homework.textanalyzer.load;
+
+import homework.textanalyzer.TextAnalyzerApplication;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test of the analysis endpoints: starts the application on a random port and drives it over HTTP
+ * for a fixed duration, then prints the throughput and the HdrHistogram latency distribution per endpoint.
+ * The full percentile distributions are also written to load.report-dir as .hgrm files, so two releases
+ * can be compared on the same machine (e.g. with the HdrHistogram plotter).
+ * <p>
+ * Tagged "load", so it only runs with ./gradlew loadTest. Every setting is a system property, passed through
+ * from Gradle properties of the same name, e.g. ./gradlew loadTest -Pload.concurrency=64 -Pload.endpoints=ANALYZE:
+ * <ul>
+ *     <li>load.concurrency - number of clients, each sending its next request when the previous one returns (default 16).</li>
+ *     <li>load.duration - measured run time as an ISO-8601 duration (default PT20S).</li>
+ *     <li>load.warmup - unmeasured run time before that, so the JIT and the caches settle (default PT5S).</li>
+ *     <li>load.sizes - input size mix as comma-separated length:weight pairs (default 16:2,64:3,250:1).</li>
+ *     <li>load.endpoints - comma-separated {@link Endpoint} names to drive (default all).</li>
+ *     <li>load.batch-items - number of texts per POST /analyze/batch request (default 100).</li>
+ *     <li>load.cache - whether the result cache stays enabled (default false, so every request is analyzed).</li>
+ *     <li>load.admission - whether admission control stays enabled (default false, since all clients share one address).</li>
+ * </ul>
+ * Clients run a closed loop, so latencies are measured from the actual send time; a stalled server lowers the request rate
+ * instead of showing up in the percentiles. Compare the throughput column as well as the latencies.
+ */
+@Tag("load")
+class AnalyzeEndpointLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT20S"));
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+    private static final String SIZES = System.getProperty("load.sizes", "16:2,64:3,250:1");
+    private static final String ENDPOINTS = System.getProperty("load.endpoints", "ANALYZE,MULTI,BATCH");
+    private static final int BATCH_ITEMS = Integer.getInteger("load.batch-items", 100);
+    private static final boolean CACHE = Boolean.parseBoolean(System.getProperty("load.cache", "false"));
+    private static final boolean ADMISSION = Boolean.parseBoolean(System.getProperty("load.admission", "false"));
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "build/reports/load"));
+
+    // Latencies are recorded in microseconds, up to one minute, with three significant digits.
+    private static final long HIGHEST_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    // Distinct texts per size, so the result cache (when enabled) sees a realistic mix of hits and misses.
+    private static final int TEXTS_PER_SIZE = 1_000;
+    private static final String WORDS = "the quick brown fox jumps over a lazy dog while seven wizards quietly hex every jolly box";
+
+    /**
+     * The endpoints the test can drive; each request picks its text length from the size mix.
+     */
+    enum Endpoint {
+        ANALYZE {
+            @Override
+            HttpRequest request(URI base, Workload workload, SplittableRandom random) {
+                String type = random.nextBoolean() ? "VOWELS" : "CONSONANTS";
+                return HttpRequest.newBuilder(base.resolve("/analyze?type=" + type + "&text=" + encode(workload.nextText(random))))
+                        .GET().build();
+            }
+        },
+        MULTI {
+            @Override
+            HttpRequest request(URI base, Workload workload, SplittableRandom random) {
+                return HttpRequest.newBuilder(base.resolve("/analyze/multi?types=VOWELS,CONSONANTS,WORD&text="
+                        + encode(workload.nextText(random)))).GET().build();
+            }
+        },
+        BATCH {
+            @Override
+            HttpRequest request(URI base, Workload workload, SplittableRandom random) {
+                StringBuilder body = new StringBuilder("[");
+                for (int item = 0; item < BATCH_ITEMS; item++) {
+                    if (item > 0) {
+                        body.append(',');
+                    }
+                    // The generated texts hold only letters and spaces, so they need no JSON escaping.
+                    body.append("{\"type\":\"").append(random.nextBoolean() ? "VOWELS" : "CONSONANTS")
+                            .append("\",\"text\":\"").append(workload.nextText(random)).append("\"}");
+                }
+                return HttpRequest.newBuilder(base.resolve("/analyze/batch"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                        .build();
+            }
+        };
+
+        abstract HttpRequest request(URI base, Workload workload, SplittableRandom random);
+
+        private static String encode(String text) {
+            return URLEncoder.encode(text, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Pre-generated input texts grouped by length, picked according to the weights of the size mix.
+     */
+    static final class Workload {
+
+        private final List<String[]> textsBySize = new ArrayList<>();
+        private final int[] cumulativeWeights;
+
+        Workload(String sizes) {
+            String[] pairs = sizes.split(",");
+            cumulativeWeights = new int[pairs.length];
+            SplittableRandom random = new SplittableRandom(42);
+            int total = 0;
+            for (int i = 0; i < pairs.length; i++) {
+                String[] pair = pairs[i].trim().split(":");
+                int length = Integer.parseInt(pair[0]);
+                total += pair.length > 1 ? Integer.parseInt(pair[1]) : 1;
+                cumulativeWeights[i] = total;
+                String[] texts = new String[TEXTS_PER_SIZE];
+                for (int t = 0; t < texts.length; t++) {
+                    texts[t] = text(length, random);
+                }
+                textsBySize.add(texts);
+            }
+        }
+
+        String nextText(SplittableRandom random) {
+            int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int size = 0;
+            while (pick >= cumulativeWeights[size]) {
+                size++;
+            }
+            String[] texts = textsBySize.get(size);
+            return texts[random.nextInt(texts.length)];
+        }
+
+        private static String text(int length, SplittableRandom random) {
+            StringBuilder text = new StringBuilder(length);
+            while (text.length() < length) {
+                text.append(WORDS, random.nextInt(WORDS.length() / 2), WORDS.length());
+            }
+            text.setLength(length);
+            return text.toString();
+        }
+    }
+
+    private record EndpointResult(Endpoint endpoint, long failures, Histogram latencies, long elapsedNanos) {
+
+        double throughput() {
+            return latencies.getTotalCount() * 1e9 / elapsedNanos;
+        }
+
+        double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    private record ClientResult(Histogram latencies, long failures) {
+    }
+
+    @Test
+    @DisplayName("Report throughput and latency percentiles of the analysis endpoints")
+    void reportThroughputAndLatency() throws Exception {
+        Workload workload = new Workload(SIZES);
+        List<EndpointResult> results = new ArrayList<>();
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TextAnalyzerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "text.analyzer.cache.enabled=" + CACHE,
+                        "text.analyzer.admission.enabled=" + ADMISSION,
+                        "text.analyzer.batch.max-items=" + Math.max(BATCH_ITEMS, 10_000))
+                .run()) {
+
+            URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            for (String name : ENDPOINTS.split(",")) {
+                results.add(runLoad(Endpoint.valueOf(name.trim()), base, workload));
+            }
+        }
+
+        report(results, System.out);
+        Files.createDirectories(REPORT_DIR);
+        for (EndpointResult result : results) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(REPORT_DIR.resolve(result.endpoint() + ".hgrm")))) {
+                // Values are recorded in microseconds; scaling by 1000 reports the distribution in milliseconds.
+                result.latencies().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        for (EndpointResult result : results) {
+            assertEquals(0, result.failures(), result.endpoint() + " requests should not fail");
+            assertTrue(result.latencies().getTotalCount() > 0, result.endpoint() + " should complete requests");
+        }
+    }
+
+    /**
+     * Runs CONCURRENCY closed-loop clients against one endpoint, first for the warmup, then for the measured duration.
+     */
+    private EndpointResult runLoad(Endpoint endpoint, URI base, Workload workload) throws Exception {
+        try (ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+             HttpClient httpClient = HttpClient.newBuilder().build()) {
+
+            long measureStart = System.nanoTime() + WARMUP.toNanos();
+            long end = measureStart + DURATION.toNanos();
+
+            List<Future<ClientResult>> futures = new ArrayList<>(CONCURRENCY);
+            for (int client = 0; client < CONCURRENCY; client++) {
+                SplittableRandom random = new SplittableRandom(client);
+                futures.add(clients.submit(() -> {
+                    Histogram latencies = new Histogram(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+                    long failures = 0;
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        HttpRequest request = endpoint.request(base, workload, random);
+                        int status;
+                        try {
+                            status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException ex) {
+                            status = -1;
+                        }
+                        long finished = System.nanoTime();
+                        if (now < measureStart) {
+                            continue;
+                        }
+                        if (status != 200) {
+                            failures++;
+                        }
+                        latencies.recordValue(Math.min(HIGHEST_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(finished - now)));
+                    }
+                    return new ClientResult(latencies, failures);
+                }));
+            }
+
+            Histogram latencies = new Histogram(HIGHEST_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+            long failures = 0;
+            for (Future<ClientResult> future : futures) {
+                ClientResult result = future.get();
+                latencies.add(result.latencies());
+                failures += result.failures();
+            }
+            return new EndpointResult(endpoint, failures, latencies, Math.max(1, System.nanoTime() - measureStart));
+        }
+    }
+
+    private static void report(List<EndpointResult> results, PrintStream out) {
+        out.printf("concurrency=%d duration=%s warmup=%s sizes=%s batch-items=%d cache=%b admission=%b%n",
+                CONCURRENCY, DURATION, WARMUP, SIZES, BATCH_ITEMS, CACHE, ADMISSION);
+        out.printf("%-8s %10s %9s %11s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "failures", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (EndpointResult result : results) {
+            out.printf("%-8s %10d %9d %11.1f %9.2f %9.2f %9.2f %9.2f%n", result.endpoint(),
+                    result.latencies().getTotalCount(), result.failures(), result.throughput(),
+                    result.percentileMillis(50), result.percentileMillis(99), result.percentileMillis(99.9),
+                    result.latencies().getMaxValue() / 1000.0);
+        }
+        out.println("Full distributions: " + REPORT_DIR.toAbsolutePath());
+    }
+
+}
@@ -0,0 +1,163 @@
+package homework.textanalyzer.load;
+
+import homework.textanalyzer.TextAnalyzerApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load comparison of the platform-thread and virtual-thread request modes.
+ * Many clients upload bodies slowly to POST /analyze, which pins one Tomcat worker per upload in platform mode.
+ * <p>
+ * Tagged "load", so it only runs with ./gradlew loadTest. The results are printed, not asserted,
+ * since absolute numbers depend on the machine.
+ */
+@Tag("load")
+class VirtualThreadLoadComparisonTest {
+
+    private static final int CLIENTS = 1_000;
+    private static final int REQUESTS_PER_CLIENT = 3;
+    // Each upload sends CHUNKS chunks of CHUNK_SIZE chars, pausing between them like a slow client.
+    private static final int CHUNKS = 10;
+    private static final int CHUNK_SIZE = 1024;
+    private static final long CHUNK_DELAY_MILLIS = 20;
+    // Kept at Tomcat's default, which is what platform mode exhausts.
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    private record LoadResult(String mode, int requests, int failures, long elapsedMillis, long[] latenciesMillis) {
+
+        double throughput() {
+            return requests * 1000.0 / elapsedMillis;
+        }
+
+        long percentile(double percentile) {
+            return latenciesMillis[(int) Math.min(latenciesMillis.length - 1, Math.ceil(percentile / 100 * latenciesMillis.length) - 1)];
+        }
+    }
+
+    @Test
+    @DisplayName("Compare slow-upload throughput of platform-thread and virtual-thread modes")
+    void compareThreadModes() throws Exception {
+        LoadResult platform = runLoad(false);
+        LoadResult virtual = runLoad(true);
+
+        System.out.printf("%-10s %10s %10s %12s %10s %10s%n", "mode", "requests", "failures", "req/s", "p50 ms", "p99 ms");
+        for (LoadResult result : List.of(platform, virtual)) {
+            System.out.printf("%-10s %10d %10d %12.1f %10d %10d%n", result.mode(), result.requests(), result.failures(),
+                    result.throughput(), result.percentile(50), result.percentile(99));
+        }
+
+        assertEquals(0, platform.failures(), "Platform mode should queue, not fail, requests");
+        assertEquals(0, virtual.failures(), "Virtual mode should not fail requests");
+    }
+
+    private LoadResult runLoad(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TextAnalyzerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.threads.max=" + TOMCAT_MAX_THREADS,
+                        "text.analyzer.cache.enabled=false",
+                        // Every client shares one address, so the per-client rate limit would reject most uploads.
+                        "text.analyzer.admission.enabled=false")
+                .run()) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/analyze?type=VOWELS");
+            String mode = virtualThreads ? "virtual" : "platform";
+
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient httpClient = HttpClient.newBuilder().executor(clients).build()) {
+
+                AtomicInteger failures = new AtomicInteger();
+                long start = System.nanoTime();
+                List<Future<long[]>> futures = new ArrayList<>(CLIENTS);
+                for (int client = 0; client < CLIENTS; client++) {
+                    futures.add(clients.submit(() -> {
+                        long[] latencies = new long[REQUESTS_PER_CLIENT];
+                        for (int request = 0; request < REQUESTS_PER_CLIENT; request++) {
+                            long requestStart = System.nanoTime();
+                            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(uri)
+                                    .header("Content-Type", "text/plain")
+                                    .POST(HttpRequest.BodyPublishers.ofInputStream(SlowBody::new))
+                                    .build(), HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                            latencies[request] = (System.nanoTime() - requestStart) / 1_000_000;
+                        }
+                        return latencies;
+                    }));
+                }
+
+                List<Long> latencies = new ArrayList<>(CLIENTS * REQUESTS_PER_CLIENT);
+                for (Future<long[]> future : futures) {
+                    for (long latency : future.get()) {
+                        latencies.add(latency);
+                    }
+                }
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+                long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+                Arrays.sort(sorted);
+                return new LoadResult(mode, sorted.length, failures.get(), elapsedMillis, sorted);
+            }
+        }
+    }
+
+    /**
+     * Request body that trickles out in chunks, pausing between them.
+     */
+    private static final class SlowBody extends InputStream {
+
+        private final byte[] chunk = "a".repeat(CHUNK_SIZE).getBytes();
+        private int chunksLeft = CHUNKS;
+        private int position = CHUNK_SIZE;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position == CHUNK_SIZE) {
+                if (chunksLeft == 0) {
+                    return -1;
+                }
+                chunksLeft--;
+                position = 0;
+                try {
+                    Thread.sleep(CHUNK_DELAY_MILLIS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(ex);
+                }
+            }
+            int count = Math.min(length, CHUNK_SIZE - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+    }
+}
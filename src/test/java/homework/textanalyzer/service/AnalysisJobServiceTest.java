@@ -0,0 +1,218 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.JobNotFoundException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.model.AnalysisJobResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.JobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for background analysis jobs: results, progress, backpressure, cancellation and retention.
+ */
+class AnalysisJobServiceTest {
+
+    private static final Set<AnalysisType> ALL_TYPES = EnumSet.allOf(AnalysisType.class);
+
+    @TempDir
+    Path directory;
+
+    private AnalysisJobService jobService;
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdownExecutor();
+    }
+
+    @Test
+    @DisplayName("A path-based job should produce the same result as a direct analysis")
+    void pathJob_succeeds() throws Exception {
+        TextAnalyzerService textAnalyzerService = new TextAnalyzerService();
+        jobService = jobService(textAnalyzerService, 1, 1);
+        String text = "The quick brown fox jumps over the lazy dog. ".repeat(5_000);
+        Files.writeString(directory.resolve("input.txt"), text);
+
+        AnalysisJobResponse submitted = jobService.submit(ALL_TYPES, Alphabet.ENGLISH, 10, "input.txt");
+        AnalysisJobResponse finished = awaitFinished(submitted.getJobId());
+
+        assertEquals(JobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(text.length(), finished.getTotalBytes());
+        assertEquals(text.length(), finished.getBytesProcessed());
+        assertEquals(1.0, finished.getProgress());
+        assertEquals(textAnalyzerService.analyzeAll(text, ALL_TYPES, Alphabet.ENGLISH, 10), finished.getResults());
+    }
+
+    @Test
+    @DisplayName("A body larger than the multipart upload limits should be accepted up to the maximum job file size")
+    void bodyJob_aboveMultipartLimit() throws Exception {
+        TextAnalyzerService textAnalyzerService = new TextAnalyzerService();
+        jobService = jobService(textAnalyzerService, 1, 1);
+        // Spring's default multipart limit is 1 MB.
+        String text = "The quick brown fox jumps over the lazy dog. ".repeat(50_000);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        assertTrue(bytes.length > 1024 * 1024);
+
+        AnalysisJobResponse submitted = jobService.submit(ALL_TYPES, Alphabet.ENGLISH, 10, new ByteArrayInputStream(bytes), -1);
+        AnalysisJobResponse finished = awaitFinished(submitted.getJobId());
+
+        assertEquals(JobStatus.SUCCEEDED, finished.getStatus());
+        assertEquals(bytes.length, finished.getTotalBytes());
+        assertEquals(textAnalyzerService.analyzeAll(text, ALL_TYPES, Alphabet.ENGLISH, 10), finished.getResults());
+
+        ReflectionTestUtils.setField(jobService, "maxFileSize", 1000L);
+        assertThrows(TextLengthExceededException.class,
+                () -> jobService.submit(ALL_TYPES, null, null, new ByteArrayInputStream(bytes), -1));
+        assertThrows(TextLengthExceededException.class,
+                () -> jobService.submit(ALL_TYPES, null, null, new ByteArrayInputStream(new byte[0]), bytes.length));
+    }
+
+    @Test
+    @DisplayName("Paths outside the allowed directory should be rejected")
+    void pathJob_outsideAllowedDirectory() {
+        jobService = jobService(new TextAnalyzerService(), 1, 1);
+
+        assertThrows(InvalidRequestException.class, () -> jobService.submit(ALL_TYPES, null, null, "../outside.txt"));
+        assertThrows(InvalidRequestException.class, () -> jobService.submit(ALL_TYPES, null, null, "missing.txt"));
+    }
+
+    @Test
+    @DisplayName("A full queue should reject jobs, and queued and running jobs should be cancellable")
+    void queueFull_andCancellation() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TextAnalyzerService blockingService = mock(TextAnalyzerService.class);
+        when(blockingService.analyzeAll(any(Reader.class), anySet(), any(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            Reader reader = invocation.getArgument(0);
+            while (reader.read() != -1) {
+                // Reading fails once cancellation has been requested.
+            }
+            return Map.of();
+        });
+        jobService = jobService(blockingService, 1, 1);
+        Files.writeString(directory.resolve("input.txt"), "Hello World");
+
+        String running = jobService.submit(ALL_TYPES, null, null, "input.txt").getJobId();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        String queued = jobService.submit(ALL_TYPES, null, null, "input.txt").getJobId();
+        assertThrows(TooManyRequestsException.class, () -> jobService.submit(ALL_TYPES, null, null, "input.txt"));
+
+        assertEquals(JobStatus.CANCELLED, jobService.cancel(queued).getStatus());
+        jobService.cancel(running);
+        release.countDown();
+        assertEquals(JobStatus.CANCELLED, awaitFinished(running).getStatus());
+    }
+
+    @Test
+    @DisplayName("Finished jobs should be removed after the retention time")
+    void finishedJobs_expire() throws Exception {
+        jobService = jobService(new TextAnalyzerService(), 1, 1);
+        ReflectionTestUtils.setField(jobService, "retention", Duration.ZERO);
+        Files.writeString(directory.resolve("input.txt"), "Hello World");
+
+        String jobId = jobService.submit(ALL_TYPES, null, null, "input.txt").getJobId();
+        awaitFinished(jobId);
+        Thread.sleep(5);
+        jobService.expireFinishedJobs();
+
+        assertThrows(JobNotFoundException.class, () -> jobService.get(jobId));
+    }
+
+    @Test
+    @DisplayName("With the result store enabled, a file analyzed before should be served from the store, also after a restart")
+    void resultStore_skipsRepeatedAnalysis() throws Exception {
+        TextAnalyzerService textAnalyzerService = spy(new TextAnalyzerService());
+        Path storeDir = Files.createDirectory(directory.resolve("store"));
+        String text = "The quick brown fox jumps over the lazy dog.";
+        Files.writeString(directory.resolve("input.txt"), text);
+        Files.writeString(directory.resolve("copy.txt"), text);
+        Map<AnalysisType, Map<String, Integer>> expected = new TextAnalyzerService().analyzeAll(text, ALL_TYPES, Alphabet.ENGLISH, 10);
+
+        AnalysisResultStore store = store(storeDir);
+        jobService = jobService(textAnalyzerService, 1, 1, store);
+        AnalysisJobResponse first = awaitFinished(jobService.submit(ALL_TYPES, Alphabet.ENGLISH, 10, "input.txt").getJobId());
+        assertEquals(expected, first.getResults());
+        // The file is hashed while it is counted, in a single pass.
+        assertEquals(text.length(), first.getBytesProcessed());
+        // The same content under another name is read again, since its fingerprint is not known yet.
+        assertEquals(expected, awaitFinished(jobService.submit(ALL_TYPES, Alphabet.ENGLISH, 10, "copy.txt").getJobId()).getResults());
+        jobService.shutdownExecutor();
+        store.close();
+
+        store = store(storeDir);
+        jobService = jobService(textAnalyzerService, 1, 1, store);
+        AnalysisJobResponse afterRestart = awaitFinished(jobService.submit(ALL_TYPES, Alphabet.ENGLISH, 10, "input.txt").getJobId());
+        AnalysisJobResponse copyAfterRestart = awaitFinished(jobService.submit(ALL_TYPES, Alphabet.ENGLISH, 10, "copy.txt").getJobId());
+        store.close();
+
+        assertEquals(expected, afterRestart.getResults());
+        assertEquals(expected, copyAfterRestart.getResults());
+        // Unchanged files are known by their fingerprint, so they are not even read.
+        assertEquals(0, afterRestart.getBytesProcessed());
+        assertEquals(0, copyAfterRestart.getBytesProcessed());
+        verify(textAnalyzerService, times(2)).analyzeAll(any(Reader.class), anySet(), any(), anyLong(), anyInt());
+    }
+
+    private static AnalysisResultStore store(Path storeDir) throws IOException {
+        AnalysisResultStore store = new AnalysisResultStore();
+        ReflectionTestUtils.setField(store, "dir", storeDir.toString());
+        store.open();
+        return store;
+    }
+
+    private AnalysisJobService jobService(TextAnalyzerService textAnalyzerService, int poolSize, int queueCapacity) {
+        return jobService(textAnalyzerService, poolSize, queueCapacity, new AnalysisResultStore());
+    }
+
+    private AnalysisJobService jobService(TextAnalyzerService textAnalyzerService, int poolSize, int queueCapacity, AnalysisResultStore store) {
+        AnalysisJobService service = new AnalysisJobService(textAnalyzerService, store);
+        ReflectionTestUtils.setField(service, "poolSize", poolSize);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "allowedDir", directory.toString());
+        service.initExecutor();
+        return service;
+    }
+
+    private AnalysisJobResponse awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        AnalysisJobResponse job = jobService.get(jobId);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            job = jobService.get(jobId);
+        }
+        return job;
+    }
+
+}
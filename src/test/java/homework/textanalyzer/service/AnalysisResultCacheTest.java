@@ -0,0 +1,117 @@
+package homework.textanalyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.model.CacheStatistics;
+import homework.textanalyzer.service.AnalysisResultCache.CachedAnalysis;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AnalysisResultCache bounds, expiry and counters.
+ */
+class AnalysisResultCacheTest {
+
+    private AnalysisResultCache resultCache;
+
+    @BeforeEach
+    void setUp() {
+        resultCache = new AnalysisResultCache(new ObjectMapper());
+        ReflectionTestUtils.setField(resultCache, "enabled", true);
+        ReflectionTestUtils.setField(resultCache, "maxEntries", 2);
+        ReflectionTestUtils.setField(resultCache, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(resultCache, "ttl", Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Should return a cached result for the same type and text only")
+    void get_hitAndMiss() {
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 100, "Hello", response("Hello"));
+
+        assertNotNull(resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 100, "Hello"));
+        assertNull(resultCache.get(AnalysisType.CONSONANTS, Alphabet.ENGLISH, 100, "Hello"));
+        assertNull(resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 100, "hello"));
+
+        CacheStatistics statistics = resultCache.getStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+    }
+
+    @Test
+    @DisplayName("Should not let callers change a cached result through the response they receive")
+    void get_responsesAreIsolated() {
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 100, "Hello", response("Hello"));
+
+        AnalysisResponse first = resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 100, "Hello").response();
+        first.setOriginalText(null);
+        assertThrows(UnsupportedOperationException.class, () -> first.getCharacterCounts().put("A", 1));
+
+        AnalysisResponse second = resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 100, "Hello").response();
+        assertEquals("Hello", second.getOriginalText());
+        assertEquals(Map.of("E", 1, "O", 1), second.getCharacterCounts());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when the entry bound is exceeded")
+    void put_evictsLeastRecentlyUsed() {
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "first", response("first"));
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "second", response("second"));
+        resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "first"); // "second" is now the least recently used
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "third", response("third"));
+
+        assertNotNull(resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "first"));
+        assertNull(resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "second"));
+        assertEquals(1, resultCache.getStatistics().getEvictions());
+        assertEquals(2, resultCache.getStatistics().getEntries());
+    }
+
+    @Test
+    @DisplayName("Should evict entries to stay within the byte bound")
+    void put_respectsByteBound() {
+        ReflectionTestUtils.setField(resultCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(resultCache, "maxBytes", 1_000L);
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "a".repeat(200), response("a"));
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "b".repeat(200), response("b"));
+
+        CacheStatistics statistics = resultCache.getStatistics();
+        assertEquals(1, statistics.getEntries());
+        assertTrue(statistics.getEstimatedBytes() <= 1_000L);
+    }
+
+    @Test
+    @DisplayName("Should drop entries whose TTL has elapsed")
+    void get_expired() throws InterruptedException {
+        ReflectionTestUtils.setField(resultCache, "ttl", Duration.ofMillis(1));
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "Hello", response("Hello"));
+        Thread.sleep(5);
+
+        assertNull(resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "Hello"));
+        assertEquals(1, resultCache.getStatistics().getExpirations());
+        assertEquals(0, resultCache.getStatistics().getEntries());
+    }
+
+    @Test
+    @DisplayName("Should keep the serialized JSON when serialized caching is enabled")
+    void put_serialized() {
+        ReflectionTestUtils.setField(resultCache, "serialized", true);
+        resultCache.put(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "Hello", response("Hello"));
+
+        CachedAnalysis cached = resultCache.get(AnalysisType.VOWELS, Alphabet.ENGLISH, 0, "Hello");
+        assertNotNull(cached.json());
+        assertTrue(new String(cached.json(), StandardCharsets.UTF_8).contains("\"originalText\":\"Hello\""));
+    }
+
+    private static AnalysisResponse response(String text) {
+        return new AnalysisResponse(Map.of("E", 1, "O", 1), text, AnalysisType.VOWELS);
+    }
+}
@@ -0,0 +1,153 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the persistent result store: round trips, reopening, and recovery from damaged files.
+ */
+class AnalysisResultStoreTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String OTHER_HASH = "cd".repeat(32);
+
+    @TempDir
+    Path directory;
+
+    private AnalysisResultStore store;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Stored letter and word results should be read back, also after reopening the store")
+    void putAndGet_survivesReopen() throws IOException {
+        Map<String, Integer> vowels = Map.of("A", 3, "Ü", 1);
+        Map<String, Integer> words = new LinkedHashMap<>(Map.of("größe", 2));
+        words.put("the", 1);
+        store = open();
+        store.put(HASH, AnalysisType.VOWELS, Alphabet.GERMAN, 100, vowels);
+        store.put(HASH, AnalysisType.WORD, Alphabet.GERMAN, 10, words);
+
+        assertEquals(vowels, store.get(HASH, AnalysisType.VOWELS, Alphabet.GERMAN, 5));
+        assertEquals(words, store.get(HASH, AnalysisType.WORD, null, 10));
+        assertNull(store.get(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 100));
+        assertNull(store.get(HASH, AnalysisType.WORD, null, 20));
+        assertNull(store.get(OTHER_HASH, AnalysisType.VOWELS, Alphabet.GERMAN, 100));
+
+        store.close();
+        store = open();
+        assertEquals(vowels, store.get(HASH, AnalysisType.VOWELS, Alphabet.GERMAN, 100));
+        assertEquals(words, store.get(HASH, AnalysisType.WORD, Alphabet.ENGLISH, 10));
+    }
+
+    @Test
+    @DisplayName("N-gram results should be keyed by both alphabet and limit")
+    void putAndGet_ngrams() throws IOException {
+        Map<String, Integer> bigrams = new LinkedHashMap<>(Map.of("TH", 5));
+        bigrams.put("HE", 2);
+        store = open();
+        store.put(HASH, AnalysisType.BIGRAM, Alphabet.ENGLISH, 2, bigrams);
+
+        assertEquals(bigrams, store.get(HASH, AnalysisType.BIGRAM, Alphabet.ENGLISH, 2));
+        assertNull(store.get(HASH, AnalysisType.BIGRAM, Alphabet.ENGLISH, 3));
+        assertNull(store.get(HASH, AnalysisType.BIGRAM, Alphabet.FRENCH, 2));
+        assertNull(store.get(HASH, AnalysisType.TRIGRAM, Alphabet.ENGLISH, 2));
+    }
+
+    @Test
+    @DisplayName("File fingerprints should map to their content hash until the file changes")
+    void contentHash_byFingerprint() throws IOException {
+        Path file = Files.writeString(directory.resolve("input.txt"), "Hello World");
+        store = open();
+        AnalysisResultStore.Fingerprint fingerprint = AnalysisResultStore.fingerprint(file);
+        store.putContentHash(fingerprint, HASH);
+
+        store.close();
+        store = open();
+        assertEquals(HASH, store.contentHashOf(fingerprint));
+
+        Files.writeString(file, "Hello World, again");
+        assertNull(store.contentHashOf(AnalysisResultStore.fingerprint(file)));
+    }
+
+    @Test
+    @DisplayName("A record torn at the end of the file should be cut off on open, keeping the records before it")
+    void open_truncatesTornRecord() throws IOException {
+        store = open();
+        store.put(HASH, AnalysisType.CONSONANTS, Alphabet.ENGLISH, 0, Map.of("B", 1));
+        store.close();
+        Path file = directory.resolve(AnalysisResultStore.FILE_NAME);
+        long intactSize = Files.size(file);
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+            out.write(new byte[]{0, 0, 1, 0, 1, 2, 3}); // Claims 256 bytes, holds 3.
+        }
+
+        store = open();
+        assertEquals(intactSize, Files.size(file));
+        assertEquals(Map.of("B", 1), store.get(HASH, AnalysisType.CONSONANTS, Alphabet.ENGLISH, 0));
+        store.put(OTHER_HASH, AnalysisType.CONSONANTS, Alphabet.ENGLISH, 0, Map.of("C", 2));
+        assertEquals(Map.of("C", 2), store.get(OTHER_HASH, AnalysisType.CONSONANTS, Alphabet.ENGLISH, 0));
+    }
+
+    @Test
+    @DisplayName("A record that fails its checksum should be treated as missing, and its result stored again")
+    void get_ignoresDamagedRecord() throws IOException {
+        store = open();
+        store.put(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0, Map.of("E", 7));
+        store.close();
+        Path file = directory.resolve(AnalysisResultStore.FILE_NAME);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Flip the first count, which follows the header, the record framing and the key.
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), 5 + 4 + 1 + 32 + 2 + 4);
+        }
+
+        store = open();
+        assertNull(store.get(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0));
+        store.put(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0, Map.of("E", 7));
+        assertEquals(Map.of("E", 7), store.get(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0));
+
+        // The record appended later replaces the damaged one in the index.
+        store.close();
+        store = open();
+        assertEquals(Map.of("E", 7), store.get(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0));
+    }
+
+    @Test
+    @DisplayName("Without a directory the store should be disabled")
+    void disabledWithoutDirectory() throws IOException {
+        store = new AnalysisResultStore();
+        store.open();
+
+        assertFalse(store.isEnabled());
+        store.put(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0, Map.of("A", 1));
+        assertNull(store.get(HASH, AnalysisType.VOWELS, Alphabet.ENGLISH, 0));
+    }
+
+    private AnalysisResultStore open() throws IOException {
+        AnalysisResultStore opened = new AnalysisResultStore();
+        ReflectionTestUtils.setField(opened, "dir", directory.toString());
+        opened.open();
+        return opened;
+    }
+
+}
@@ -0,0 +1,246 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.SessionNotFoundException;
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.exception.TooManyRequestsException;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.model.AnalysisSessionResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for incremental analysis sessions.
+ */
+class AnalysisSessionServiceTest {
+
+    private AnalysisSessionService sessionService;
+    private final TextAnalyzerService textAnalyzerService = new TextAnalyzerService();
+
+    @BeforeEach
+    void setUp() {
+        sessionService = new AnalysisSessionService();
+    }
+
+    @Test
+    @DisplayName("Appending chunks should give the same counts as analyzing the whole text")
+    void append_matchesWholeText() throws IOException {
+        String id = sessionService.create(AnalysisType.CONSONANTS).getSessionId();
+
+        sessionService.append(id, new StringReader("The quick brown fox "), null);
+        AnalysisSessionResponse response = sessionService.append(id, new StringReader("jumps over the lazy dog"), null);
+
+        String text = "The quick brown fox jumps over the lazy dog";
+        Map<String, Integer> expected = AnalysisResponse.of(
+                textAnalyzerService.analyze(text, AnalysisType.CONSONANTS), text, AnalysisType.CONSONANTS).getCharacterCounts();
+        assertEquals(expected, response.getCharacterCounts());
+        assertEquals(43, response.getCharactersAnalyzed());
+        assertEquals(expected, sessionService.get(id, null).getCharacterCounts());
+    }
+
+    @Test
+    @DisplayName("A word split across two appends should be counted once")
+    void append_wordAcrossChunks() throws IOException {
+        String id = sessionService.create(AnalysisType.WORD).getSessionId();
+
+        sessionService.append(id, new StringReader("hello wor"), null);
+        sessionService.append(id, new StringReader("ld hello "), null);
+        sessionService.append(id, new StringReader("world"), null);
+
+        assertEquals(Map.of("hello", 2, "world", 1), sessionService.get(id, null).getCharacterCounts());
+        // The trailing word is counted when the session is closed.
+        assertEquals(Map.of("hello", 2, "world", 2), sessionService.close(id, null).getCharacterCounts());
+    }
+
+    @Test
+    @DisplayName("Merging sessions should add their counts and leave the source unchanged")
+    void merge_addsCounts() throws IOException {
+        String first = sessionService.create(AnalysisType.VOWELS).getSessionId();
+        String second = sessionService.create(AnalysisType.VOWELS).getSessionId();
+        sessionService.append(first, new StringReader("banana"), null);
+        sessionService.append(second, new StringReader("kiwi"), null);
+
+        AnalysisSessionResponse merged = sessionService.merge(first, second, null);
+
+        assertEquals(Map.of("A", 3, "I", 2), merged.getCharacterCounts());
+        assertEquals(10, merged.getCharactersAnalyzed());
+        assertEquals(Map.of("I", 2), sessionService.get(second, null).getCharacterCounts());
+    }
+
+    @Test
+    @DisplayName("Merging sessions of different types should be rejected")
+    void merge_differentTypes() {
+        String vowels = sessionService.create(AnalysisType.VOWELS).getSessionId();
+        String words = sessionService.create(AnalysisType.WORD).getSessionId();
+
+        assertThrows(InvalidRequestException.class, () -> sessionService.merge(vowels, words, null));
+        assertThrows(InvalidRequestException.class, () -> sessionService.merge(vowels, vowels, null));
+    }
+
+    @Test
+    @DisplayName("Closed, unknown and expired sessions should not be found")
+    void sessionLifecycle() {
+        String closed = sessionService.create(AnalysisType.VOWELS).getSessionId();
+        sessionService.close(closed, null);
+        assertThrows(SessionNotFoundException.class, () -> sessionService.get(closed, null));
+        assertThrows(SessionNotFoundException.class, () -> sessionService.get("unknown", null));
+
+        ReflectionTestUtils.setField(sessionService, "idleTimeout", Duration.ZERO);
+        String idle = sessionService.create(AnalysisType.VOWELS).getSessionId();
+        sessionService.expireIdleSessions();
+        assertThrows(SessionNotFoundException.class, () -> sessionService.get(idle, null));
+    }
+
+    @Test
+    @DisplayName("Limits on open sessions and chunk length should be enforced")
+    void limits() {
+        ReflectionTestUtils.setField(sessionService, "maxSessions", 1);
+        ReflectionTestUtils.setField(sessionService, "maxChunkLength", 5L);
+        String id = sessionService.create(AnalysisType.VOWELS).getSessionId();
+
+        TooManyRequestsException refused = assertThrows(TooManyRequestsException.class, () -> sessionService.create(AnalysisType.VOWELS));
+        assertEquals(Duration.ofMinutes(1), refused.getRetryAfter(), "Clients should retry after the next sweep");
+        assertThrows(TextLengthExceededException.class, () -> sessionService.append(id, new StringReader("too long"), null));
+
+        // Closed and expired sessions free their slots.
+        sessionService.close(id, null);
+        sessionService.create(AnalysisType.VOWELS);
+        ReflectionTestUtils.setField(sessionService, "idleTimeout", Duration.ZERO);
+        sessionService.expireIdleSessions();
+        assertNotNull(sessionService.create(AnalysisType.VOWELS).getSessionId());
+    }
+
+    @Test
+    @DisplayName("N-gram sessions should be capped by the bytes of their count matrices")
+    void limits_ngramBytes() {
+        long trigramBytes = NGramHistogram.matrixBytes(Alphabet.ENGLISH.getLetters(), 3);
+        ReflectionTestUtils.setField(sessionService, "maxNGramBytes", 2 * trigramBytes);
+        sessionService.create(AnalysisType.TRIGRAM);
+        String id = sessionService.create(AnalysisType.TRIGRAM).getSessionId();
+
+        TooManyRequestsException refused = assertThrows(TooManyRequestsException.class, () -> sessionService.create(AnalysisType.TRIGRAM));
+        assertEquals(Duration.ofMinutes(1), refused.getRetryAfter(), "Clients should retry after the next sweep");
+        assertThrows(TooManyRequestsException.class, () -> sessionService.create(AnalysisType.BIGRAM));
+        assertNotNull(sessionService.create(AnalysisType.VOWELS).getSessionId(), "Letter sessions hold no matrix");
+
+        // Closed and expired sessions free their bytes.
+        sessionService.close(id, null);
+        sessionService.create(AnalysisType.TRIGRAM);
+        ReflectionTestUtils.setField(sessionService, "idleTimeout", Duration.ZERO);
+        sessionService.expireIdleSessions();
+        sessionService.create(AnalysisType.TRIGRAM);
+        assertNotNull(sessionService.create(AnalysisType.TRIGRAM).getSessionId());
+    }
+
+    @Test
+    @DisplayName("An append rejected as too long should leave the session unchanged")
+    void append_rejectedChunkIsNotCounted() throws IOException {
+        ReflectionTestUtils.setField(sessionService, "maxChunkLength", 5L);
+        for (AnalysisType type : new AnalysisType[]{AnalysisType.VOWELS, AnalysisType.BIGRAM, AnalysisType.WORD}) {
+            String id = sessionService.create(type).getSessionId();
+            sessionService.append(id, new StringReader("a to "), null);
+            AnalysisSessionResponse before = sessionService.get(id, null);
+
+            // Read two chars at a time, so the chars before the limit have been seen when the chunk is rejected.
+            assertThrows(TextLengthExceededException.class, () -> sessionService.append(id, trickle("aeiou and on"), null));
+
+            assertEquals(before, sessionService.get(id, null), type.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("A slow append should not hold up reading the session")
+    void append_slowUploadDoesNotBlockReads() throws Exception {
+        String id = sessionService.create(AnalysisType.VOWELS).getSessionId();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Reader slowUpload = new Reader() {
+            private boolean sent;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (sent) {
+                    return -1;
+                }
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+                buffer[offset] = 'a';
+                sent = true;
+                return 1;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<AnalysisSessionResponse> append = executor.submit(() -> sessionService.append(id, slowUpload, null));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+            // The upload is still being read; the session can be read meanwhile.
+            assertEquals(0, assertTimeoutPreemptively(Duration.ofSeconds(5), () -> sessionService.get(id, null)).getCharactersAnalyzed());
+            release.countDown();
+            assertEquals(Map.of("A", 1), append.get(5, TimeUnit.SECONDS).getCharacterCounts());
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent creates should never open more sessions than the limit")
+    void limits_concurrentCreates() {
+        ReflectionTestUtils.setField(sessionService, "maxSessions", 50);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 400; i++) {
+                executor.execute(() -> {
+                    try {
+                        sessionService.create(AnalysisType.VOWELS);
+                        created.incrementAndGet();
+                    } catch (TooManyRequestsException ex) {
+                        refused.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertEquals(50, created.get());
+        assertEquals(350, refused.get());
+    }
+
+    /**
+     * @return A reader that hands out the text two chars at a time.
+     */
+    private static Reader trickle(String text) {
+        return new StringReader(text) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 2));
+            }
+        };
+    }
+
+}
@@ -0,0 +1,126 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.model.ApproximateAnalysisResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for approximate word analysis on a Zipf-distributed stream of 20,000 distinct words, much more than the
+ * 200 heavy hitters tracked, so the sketches run in their approximate regime.
+ */
+class ApproximateAnalysisServiceTest {
+
+    private static final String TEXT = zipfText(300_000, 20_000, 42);
+
+    private ApproximateAnalysisService service;
+    private Map<String, Integer> exact;
+
+    @BeforeEach
+    void setUp() {
+        service = approximateService(200);
+        exact = new TextAnalyzerService().analyzeWords(TEXT, 0);
+    }
+
+    @Test
+    @DisplayName("Estimated counts should lie within the reported bound and find the true top words")
+    void analyze_withinErrorBounds() throws IOException {
+        ApproximateAnalysisResponse response = service.analyze(new StringReader(TEXT), 10, false);
+
+        assertEquals(300_000, response.getTotalWords());
+        assertEquals(List.copyOf(exact.keySet()).subList(0, 10), List.copyOf(response.getWordCounts().keySet()));
+        assertWithinBounds(response, exact);
+        assertEquals(0.99, response.getFrequencyErrorConfidence(), 0.01);
+        assertEquals(exact.size(), response.getDistinctWords(), 4 * response.getDistinctWordsRelativeError() * exact.size());
+        assertTrue(response.getMemoryBytes() < 200_000, "Memory is bounded by the settings: " + response.getMemoryBytes());
+        assertNull(response.getSketch());
+    }
+
+    @Test
+    @DisplayName("Merged sketches of two halves should give the same guarantees as the whole text")
+    void merge_halves() throws IOException {
+        int middle = TEXT.indexOf(' ', TEXT.length() / 2);
+        byte[] first = service.analyze(new StringReader(TEXT.substring(0, middle)), 10, true).getSketch();
+        byte[] second = service.analyze(new StringReader(TEXT.substring(middle)), 10, true).getSketch();
+
+        ApproximateAnalysisResponse merged = service.merge(List.of(first, second), 10, true);
+
+        assertEquals(300_000, merged.getTotalWords());
+        assertEquals(List.copyOf(exact.keySet()).subList(0, 10), List.copyOf(merged.getWordCounts().keySet()));
+        assertWithinBounds(merged, exact);
+        assertEquals(exact.size(), merged.getDistinctWords(), 4 * merged.getDistinctWordsRelativeError() * exact.size());
+
+        ApproximateAnalysisResponse roundTrip = service.merge(List.of(merged.getSketch()), 10, false);
+        assertEquals(merged.getWordCounts(), roundTrip.getWordCounts());
+        assertEquals(merged.getDistinctWords(), roundTrip.getDistinctWords());
+    }
+
+    @Test
+    @DisplayName("Small inputs are counted exactly: every word is tracked and the bound is 0")
+    void analyze_smallInputIsExact() throws IOException {
+        ApproximateAnalysisResponse response = service.analyze(new StringReader("The cat and the hat. THE END! Don't stop, don’t"), 0, false);
+
+        assertEquals(Map.of("the", 3L, "don't", 2L, "cat", 1L, "and", 1L, "hat", 1L, "end", 1L, "stop", 1L), response.getWordCounts());
+        assertEquals(List.of("the", "don't"), List.copyOf(response.getWordCounts().keySet()).subList(0, 2));
+        assertEquals(0, response.getFrequencyErrorBound());
+        assertEquals(1.0, response.getFrequencyErrorConfidence());
+        assertEquals(7, response.getDistinctWords());
+    }
+
+    @Test
+    @DisplayName("Merging should reject invalid sketches and sketches built with other settings")
+    void merge_invalidSketches() throws IOException {
+        byte[] other = approximateService(100).analyze(new StringReader("a b c"), 10, true).getSketch();
+
+        assertThrows(InvalidRequestException.class, () -> service.merge(List.of(other), 10, false));
+        assertThrows(InvalidRequestException.class, () -> service.merge(List.of("garbage".getBytes(StandardCharsets.UTF_8)), 10, false));
+        assertThrows(InvalidRequestException.class, () -> service.merge(List.of(), 10, false));
+    }
+
+    private static void assertWithinBounds(ApproximateAnalysisResponse response, Map<String, Integer> exact) {
+        response.getWordCounts().forEach((word, estimate) -> {
+            int count = exact.get(word);
+            assertTrue(estimate >= count && estimate <= count + response.getFrequencyErrorBound(),
+                    word + ": estimated " + estimate + ", counted " + count + ", bound " + response.getFrequencyErrorBound());
+        });
+    }
+
+    private static ApproximateAnalysisService approximateService(int heavyHitters) {
+        ApproximateAnalysisService service = new ApproximateAnalysisService();
+        ReflectionTestUtils.setField(service, "heavyHitters", heavyHitters);
+        service.initParameters();
+        return service;
+    }
+
+    /**
+     * @return Words "w0", "w1", ... drawn so that word i occurs with probability proportional to 1 / (i + 1).
+     */
+    private static String zipfText(int words, int distinct, long seed) {
+        double[] cumulative = new double[distinct];
+        double sum = 0;
+        for (int i = 0; i < distinct; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            text.append('w').append(index >= 0 ? index : -index - 1).append(' ');
+        }
+        return text.toString();
+    }
+
+}
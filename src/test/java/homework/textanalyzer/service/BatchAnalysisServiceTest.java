@@ -0,0 +1,162 @@
+package homework.textanalyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import homework.textanalyzer.exception.BatchSizeExceededException;
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.model.BatchAnalysisRequest;
+import homework.textanalyzer.model.BatchAnalysisResult;
+import homework.textanalyzer.util.AnalysisType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the BatchAnalysisService.
+ * Uses a real TextAnalyzerService, so the results are checked end to end.
+ */
+class BatchAnalysisServiceTest {
+
+    private BatchAnalysisService batchAnalysisService;
+
+    private ExecutorService analysisExecutor;
+
+    @BeforeEach
+    void setUp() {
+        analysisExecutor = Executors.newFixedThreadPool(4);
+        batchAnalysisService = new BatchAnalysisService(new TextAnalyzerService(), analysisExecutor, new ObjectMapper());
+        ReflectionTestUtils.setField(batchAnalysisService, "maxTextLength", 20);
+        ReflectionTestUtils.setField(batchAnalysisService, "maxBatchItems", 1000);
+        ReflectionTestUtils.setField(batchAnalysisService, "parallelThreshold", 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        analysisExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should analyze every item with its own type")
+    void analyze_mixedTypes() {
+        List<BatchAnalysisResult> results = batchAnalysisService.analyze(List.of(
+                new BatchAnalysisRequest("Hello World", "VOWELS"),
+                new BatchAnalysisRequest("Hello World", "CONSONANTS")));
+
+        assertEquals(2, results.size());
+        assertEquals(2, results.get(0).getResult().getCharacterCounts().get("O"));
+        assertEquals(3, results.get(1).getResult().getCharacterCounts().get("L"));
+        assertEquals(AnalysisType.CONSONANTS, results.get(1).getResult().getAnalysisType());
+    }
+
+    @Test
+    @DisplayName("Should report invalid items without failing the rest of the batch")
+    void analyze_perItemErrors() {
+        List<BatchAnalysisResult> results = batchAnalysisService.analyze(Arrays.asList(
+                new BatchAnalysisRequest("a".repeat(21), "VOWELS"),
+                new BatchAnalysisRequest("aeiou", null),
+                null,
+                new BatchAnalysisRequest("aeiou", "vowels"),
+                new BatchAnalysisRequest("aeiou", "SYLLABLES")));
+
+        assertEquals(413, results.get(0).getStatus());
+        assertTrue(results.get(0).getError().contains("Input text exceeds maximum allowed length of 20"));
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(400, results.get(2).getStatus());
+        assertNull(results.get(2).getResult());
+        assertEquals(200, results.get(3).getStatus());
+        assertEquals(5, results.get(3).getResult().getCharacterCounts().size());
+        assertEquals(400, results.get(4).getStatus());
+        assertTrue(results.get(4).getError().contains("'SYLLABLES'"));
+    }
+
+    @Test
+    @DisplayName("Should read a JSON batch item by item, keeping items with unknown types for per-item errors")
+    void readItems_unknownTypeKept() throws IOException {
+        List<BatchAnalysisRequest> items = batchAnalysisService.readItems(json(
+                "[{\"text\": \"aeiou\", \"type\": \"VOWELS\"}, null, {\"text\": \"aeiou\", \"type\": \"nope\"}]"));
+
+        List<BatchAnalysisResult> results = batchAnalysisService.analyze(items);
+
+        assertEquals(3, results.size());
+        assertEquals(200, results.get(0).getStatus());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(400, results.get(2).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should stop reading a JSON batch at the first item over the limit")
+    void readItems_tooManyItems() {
+        ReflectionTestUtils.setField(batchAnalysisService, "maxBatchItems", 2);
+        // The array is never closed, so reading past the third item would fail differently.
+        InputStream body = json("[{\"text\": \"a\", \"type\": \"VOWELS\"}, {\"text\": \"b\", \"type\": \"VOWELS\"}, {\"text\": \"c\", \"type\": \"VOWELS\"}, {");
+
+        assertThrows(BatchSizeExceededException.class, () -> batchAnalysisService.readItems(body));
+        assertThrows(InvalidRequestException.class, () -> batchAnalysisService.readItems(json("{\"text\": \"a\"}")));
+    }
+
+    @Test
+    @DisplayName("Should keep request order when a large batch is processed in parallel")
+    void analyze_parallelKeepsOrder() {
+        List<BatchAnalysisRequest> items = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            items.add(new BatchAnalysisRequest("a".repeat(i % 20 + 1), "VOWELS"));
+        }
+
+        List<BatchAnalysisResult> results = batchAnalysisService.analyze(items);
+
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals((i + 1) % 20 + 1, results.get(i).getResult().getCharacterCounts().get("A"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a batch with more items than allowed")
+    void analyze_tooManyItems() {
+        ReflectionTestUtils.setField(batchAnalysisService, "maxBatchItems", 2);
+        List<BatchAnalysisRequest> items = List.of(
+                new BatchAnalysisRequest("a", "VOWELS"),
+                new BatchAnalysisRequest("b", "VOWELS"),
+                new BatchAnalysisRequest("c", "VOWELS"));
+
+        assertThrows(BatchSizeExceededException.class, () -> batchAnalysisService.analyze(items));
+    }
+
+    @Test
+    @DisplayName("Should analyze a large batch on virtual threads")
+    void analyze_virtualThreads() {
+        List<BatchAnalysisRequest> items = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            items.add(new BatchAnalysisRequest("Hello World", "CONSONANTS"));
+        }
+
+        try (ExecutorService virtualExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            batchAnalysisService = new BatchAnalysisService(new TextAnalyzerService(), virtualExecutor, new ObjectMapper());
+            ReflectionTestUtils.setField(batchAnalysisService, "maxTextLength", 20);
+            ReflectionTestUtils.setField(batchAnalysisService, "maxBatchItems", 1000);
+            ReflectionTestUtils.setField(batchAnalysisService, "parallelThreshold", 8);
+
+            List<BatchAnalysisResult> results = batchAnalysisService.analyze(items);
+
+            assertEquals(500, results.size());
+            assertTrue(results.stream().allMatch(result -> result.getResult().getCharacterCounts().get("L") == 3));
+        }
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
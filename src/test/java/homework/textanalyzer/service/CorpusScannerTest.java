@@ -0,0 +1,98 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the CorpusScanner.
+ * A 64-byte buffer makes some files fit into a pooled buffer and streams the others; a pool of a few buffers and a
+ * short path queue keep every stage blocking on the next one.
+ */
+class CorpusScannerTest {
+
+    private static final Set<AnalysisType> TYPES = EnumSet.of(AnalysisType.VOWELS, AnalysisType.CONSONANTS,
+            AnalysisType.WORD, AnalysisType.BIGRAM, AnalysisType.TRIGRAM);
+
+    @TempDir
+    Path tempDir;
+
+    private final TextAnalyzerService textAnalyzerService = new TextAnalyzerService();
+
+    @Test
+    @DisplayName("Should aggregate every file in the tree like the files analyzed one after another")
+    void scan_matchesSequentialAnalysis() throws IOException, InterruptedException {
+        Map<Path, String> texts = writeCorpus(2_000);
+        StringBuilder all = new StringBuilder();
+        long bytes = 0;
+        for (String text : texts.values()) {
+            all.append(text).append('\n'); // Words and n-grams do not span two files.
+            bytes += text.getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        CorpusScanner.ScanResult result = new CorpusScanner(2, 3, 64).scan(tempDir, TYPES, Alphabet.GERMAN, 0, null);
+
+        assertEquals(textAnalyzerService.analyzeAll(all.toString(), TYPES, Alphabet.GERMAN, 0), result.results());
+        assertEquals(texts.size(), result.files());
+        assertEquals(0, result.failedFiles());
+        assertEquals(bytes, result.bytes());
+        assertTrue(result.filesPerSecond() > 0);
+        assertTrue(result.megabytesPerSecond() > 0);
+    }
+
+    @Test
+    @DisplayName("Should report each file's own result to the listener")
+    void scan_perFileResults() throws IOException, InterruptedException {
+        Map<Path, String> texts = writeCorpus(200);
+        Map<Path, Map<AnalysisType, Map<String, Integer>>> perFile = new ConcurrentHashMap<>();
+
+        CorpusScanner.ScanResult result = new CorpusScanner(1, 2, 64).scan(tempDir, TYPES, null, 0, perFile::put);
+
+        assertEquals(texts.keySet(), perFile.keySet());
+        texts.forEach((file, text) ->
+                assertEquals(textAnalyzerService.analyzeAll(text, TYPES, Alphabet.ENGLISH, 0), perFile.get(file), file.toString()));
+        assertEquals(200, result.files());
+    }
+
+    @Test
+    @DisplayName("Should return empty results for an empty tree and reject a path that is not a directory")
+    void scan_emptyTree() throws IOException, InterruptedException {
+        CorpusScanner.ScanResult result = new CorpusScanner().scan(tempDir, EnumSet.of(AnalysisType.WORD), null, 10, null);
+
+        assertEquals(Map.of(AnalysisType.WORD, Map.of()), result.results());
+        assertEquals(0, result.files());
+
+        Path file = Files.writeString(tempDir.resolve("file.txt"), "text");
+        assertThrows(IllegalArgumentException.class,
+                () -> new CorpusScanner().scan(file, EnumSet.of(AnalysisType.WORD), null, 10, null));
+    }
+
+    /**
+     * Writes files of 0 to about 200 bytes, some with multibyte chars, into nested directories.
+     */
+    private Map<Path, String> writeCorpus(int files) throws IOException {
+        String[] lines = {"The quick brown fox ", "jumps over the lazy dog. ", "Größe, Straße und Äpfel! ", "don't 😀 stop ", ""};
+        Map<Path, String> texts = new HashMap<>();
+        for (int i = 0; i < files; i++) {
+            Path directory = Files.createDirectories(tempDir.resolve("d" + i % 7).resolve("e" + i % 3));
+            String text = lines[i % lines.length].repeat(i % 9) + lines[(i + 1) % lines.length];
+            texts.put(Files.writeString(directory.resolve(i + ".txt"), text), text);
+        }
+        return texts;
+    }
+
+}
@@ -0,0 +1,113 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.CharacterSets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the MappedFileAnalyzer.
+ * Small window sizes force multibyte UTF-8 sequences to straddle window boundaries.
+ */
+class MappedFileAnalyzerTest {
+
+    private static final String TEXT = "Ünïcödé façade: ÎLE, île, Ärger über Öl. 😀 Plain ASCII too!\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should count a UTF-8 file like the same text analyzed as a String")
+    void analyze_utf8_matchesStringAnalysis() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("utf8.txt"), TEXT.repeat(100), StandardCharsets.UTF_8);
+        Map<Character, Integer> expected = new TextAnalyzerService().analyze(TEXT.repeat(100), AnalysisType.CONSONANTS);
+
+        // Every window size from 4 to 9 bytes splits some of the 2, 3 and 4 byte sequences.
+        for (long windowSize = 4; windowSize < 10; windowSize++) {
+            LetterHistogram histogram = new MappedFileAnalyzer(windowSize)
+                    .analyze(file, CharacterSets.CONSONANTS.getLookupTable(), StandardCharsets.UTF_8);
+            assertEquals(expected, histogram.toMap(), "Window size " + windowSize);
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip overlong and surrogate encodings like the JDK's UTF-8 decoder")
+    void analyze_utf8_rejectsInvalidEncodings() throws IOException {
+        byte[] bytes = {
+                'b',
+                (byte) 0xC1, (byte) 0x82, // Overlong 'B'
+                (byte) 0xE0, (byte) 0x81, (byte) 0x82, // Overlong 'B' in three bytes
+                (byte) 0xF0, (byte) 0x80, (byte) 0x81, (byte) 0x82, // Overlong 'B' in four bytes
+                (byte) 0xED, (byte) 0xA0, (byte) 0x80, // Encoded surrogate U+D800
+                (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80, // U+110000, above the Unicode range
+                (byte) 0xC3, (byte) 0x9F, // ß, valid but not a consonant
+                'c'};
+        Path file = Files.write(tempDir.resolve("invalid.txt"), bytes);
+        Map<Character, Integer> expected = new TextAnalyzerService()
+                .analyze(new String(bytes, StandardCharsets.UTF_8), AnalysisType.CONSONANTS);
+
+        LetterHistogram histogram = new MappedFileAnalyzer()
+                .analyze(file, CharacterSets.CONSONANTS.getLookupTable(), StandardCharsets.UTF_8);
+
+        assertEquals(Map.of('B', 1, 'C', 1), histogram.toMap());
+        assertEquals(expected, histogram.toMap());
+    }
+
+    @Test
+    @DisplayName("Should count a Latin-1 file byte by byte")
+    void analyze_latin1() throws IOException {
+        Path file = Files.write(tempDir.resolve("latin1.txt"), "Éclair AU lait, été".getBytes(StandardCharsets.ISO_8859_1));
+
+        LetterHistogram histogram = new MappedFileAnalyzer()
+                .analyze(file, CharacterSets.VOWELS.getLookupTable(), StandardCharsets.ISO_8859_1);
+
+        Map<Character, Integer> result = histogram.toMap();
+        assertEquals(3, result.get('A'));
+        assertEquals(2, result.get('I'));
+        assertEquals(1, result.get('U'));
+        assertNull(result.get('E'), "É and é are not plain vowels");
+    }
+
+    @Test
+    @DisplayName("Should return an empty histogram for an empty file")
+    void analyze_emptyFile() throws IOException {
+        Path file = Files.createFile(tempDir.resolve("empty.txt"));
+
+        LetterHistogram histogram = new MappedFileAnalyzer()
+                .analyze(file, CharacterSets.VOWELS.getLookupTable(), StandardCharsets.UTF_8);
+
+        assertTrue(histogram.toMap().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject encodings other than UTF-8 and ISO-8859-1")
+    void analyze_unsupportedCharset() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("utf16.txt"), "aeiou");
+
+        assertThrows(IllegalArgumentException.class, () -> new MappedFileAnalyzer()
+                .analyze(file, CharacterSets.VOWELS.getLookupTable(), StandardCharsets.UTF_16));
+    }
+
+    @Test
+    @DisplayName("Counts of multi-gigabyte inputs should not wrap around, and should fail rather than be truncated in a map")
+    void histogram_countsBeyondIntRange() {
+        LetterHistogram histogram = new LetterHistogram(CharacterSets.VOWELS.getLookupTable());
+        histogram.add(0, Integer.MAX_VALUE);
+        LetterHistogram other = new LetterHistogram(CharacterSets.VOWELS.getLookupTable());
+        other.add(0, Integer.MAX_VALUE);
+
+        histogram.merge(other);
+
+        assertEquals(2L * Integer.MAX_VALUE, histogram.get(0));
+        assertThrows(ArithmeticException.class, histogram::toMap);
+    }
+}
@@ -0,0 +1,104 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.model.ProfilingRecordingResponse;
+import homework.textanalyzer.util.AnalysisType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for starting, dumping and stopping flight recordings, and for the analysis events they hold.
+ */
+class ProfilingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ProfilingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProfilingService();
+        ReflectionTestUtils.setField(service, "dir", dir.toString());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.stopOnShutdown();
+    }
+
+    @Test
+    @DisplayName("A stopped recording should be dumped with the stage events recorded while it ran")
+    void startAndStop_recordsAnalysisEvents() throws IOException {
+        AnalyzerMetrics metrics = new AnalyzerMetrics(new SimpleMeterRegistry(), true);
+
+        ProfilingRecordingResponse started = service.start();
+        assertTrue(started.isRunning());
+        assertNotNull(started.getStartedAt());
+
+        AnalyzerMetrics.Sample sample = metrics.start();
+        sample.stop(AnalysisType.VOWELS, 11);
+        AnalysisEvents.MappingEvent mapping = AnalysisEvents.startMapping();
+        mapping.finish(AnalysisType.VOWELS, 11);
+
+        ProfilingRecordingResponse stopped = service.stop();
+        assertFalse(stopped.isRunning());
+        assertTrue(stopped.getFileSize() > 0);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(Path.of(stopped.getFile()));
+        RecordedEvent analysis = single(events, "homework.textanalyzer.Analyze");
+        assertEquals("VOWELS", analysis.getString("analysisType"));
+        assertEquals(11, analysis.getLong("inputLength"));
+        assertTrue(analysis.getDouble("charsPerSecond") > 0);
+        assertNull(analysis.getStackTrace());
+        single(events, "homework.textanalyzer.Mapping");
+    }
+
+    @Test
+    @DisplayName("A dump should leave the recording running")
+    void dump_keepsRecording() throws IOException {
+        service.start();
+
+        ProfilingRecordingResponse dumped = service.dump();
+
+        assertTrue(dumped.isRunning());
+        assertTrue(Path.of(dumped.getFile()).startsWith(dir));
+        assertThrows(InvalidRequestException.class, service::start);
+    }
+
+    @Test
+    @DisplayName("Recording control should be refused when no directory is set or nothing is recording")
+    void invalidStates() {
+        assertThrows(InvalidRequestException.class, service::stop);
+        assertThrows(InvalidRequestException.class, service::dump);
+
+        ReflectionTestUtils.setField(service, "dir", "");
+        assertThrows(InvalidRequestException.class, service::start);
+    }
+
+    /**
+     * @return The one event of that type recorded by this thread; analyses left running by other tests are ignored.
+     */
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .filter(event -> event.getThread().getJavaThreadId() == Thread.currentThread().threadId())
+                .toList();
+        assertEquals(1, matching.size(), name + " events");
+        return matching.get(0);
+    }
+
+}
@@ -0,0 +1,270 @@
+package homework.textanalyzer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import homework.textanalyzer.exception.InvalidRequestException;
+import homework.textanalyzer.exception.ShardAnalysisException;
+import homework.textanalyzer.model.MultiAnalysisResponse;
+import homework.textanalyzer.util.Alphabet;
+import homework.textanalyzer.util.AnalysisType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for sharded analysis against local fake workers (JDK HTTP servers) that count shards like POST /analyze/multi,
+ * fail, or answer slowly.
+ */
+class ShardedAnalysisServiceTest {
+
+    private static final Set<AnalysisType> TYPES = EnumSet.of(AnalysisType.VOWELS, AnalysisType.WORD, AnalysisType.TRIGRAM);
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog; don't panic, Zoë! ".repeat(2_000);
+
+    @TempDir
+    Path directory;
+
+    private final TextAnalyzerService textAnalyzerService = new TextAnalyzerService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<HttpServer> servers = new ArrayList<>();
+    private ShardedAnalysisService shardedService;
+
+    @AfterEach
+    void tearDown() {
+        if (shardedService != null) {
+            shardedService.shutdown();
+        }
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    @DisplayName("Merged shard results should equal a single-instance analysis, also when one worker always fails")
+    void analyze_mergesShardsAndRetriesFailedWorker() throws IOException {
+        AtomicInteger failures = new AtomicInteger();
+        shardedService = shardedService(List.of(countingWorker(), failingWorker(failures), countingWorker()), 1_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        shardedService.bindTo(registry);
+
+        MultiAnalysisResponse response = shardedService.analyze(new StringReader(TEXT), TYPES, Alphabet.ENGLISH, 0);
+
+        assertEquals(textAnalyzerService.analyzeAll(TEXT, TYPES, Alphabet.ENGLISH, 0), response.getResults());
+        assertEquals(Alphabet.ENGLISH, response.getAlphabet());
+        assertTrue(failures.get() > 0);
+        assertEquals(failures.get(), registry.get("textanalyzer.cluster.shards").tag("outcome", "retried").functionCounter().count());
+        assertEquals(0, registry.get("textanalyzer.cluster.shards").tag("outcome", "failed").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Files should be sharded separately and merged, keeping the top-K limit")
+    void analyzeFiles_mergesFiles() throws IOException {
+        Files.writeString(directory.resolve("a.txt"), TEXT);
+        Files.writeString(directory.resolve("b.txt"), "Größe dog dog");
+        shardedService = shardedService(List.of(countingWorker(), countingWorker()), 4_096);
+        ReflectionTestUtils.setField(shardedService, "allowedDir", directory.toString());
+
+        Map<AnalysisType, Map<String, Integer>> results = shardedService.analyzeFiles(List.of("a.txt", "b.txt"), TYPES, Alphabet.GERMAN, 0).getResults();
+        Map<AnalysisType, Map<String, Integer>> top = shardedService.analyzeFiles(List.of("a.txt", "b.txt"), TYPES, Alphabet.GERMAN, 2).getResults();
+
+        assertEquals(textAnalyzerService.analyzeAll(TEXT + " Größe dog dog", TYPES, Alphabet.GERMAN, 0), results);
+        assertEquals(List.of("the", "dog"), List.copyOf(top.get(AnalysisType.WORD).keySet()));
+        assertEquals(2_002, top.get(AnalysisType.WORD).get("dog"));
+        assertEquals(List.of("THE"), List.copyOf(top.get(AnalysisType.TRIGRAM).keySet()).subList(0, 1));
+        assertEquals(results.get(AnalysisType.VOWELS), top.get(AnalysisType.VOWELS));
+        assertThrows(InvalidRequestException.class,
+                () -> shardedService.analyzeFiles(List.of("../outside.txt"), TYPES, Alphabet.GERMAN, 2));
+    }
+
+    @Test
+    @DisplayName("A shard stuck on a slow worker should be hedged to another worker")
+    void analyze_hedgesSlowWorker() throws IOException {
+        shardedService = shardedService(List.of(slowWorker(Duration.ofSeconds(5)), countingWorker()), 100_000);
+        ReflectionTestUtils.setField(shardedService, "hedgeAfter", Duration.ofMillis(100));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        shardedService.bindTo(registry);
+
+        long start = System.nanoTime();
+        MultiAnalysisResponse response = shardedService.analyze(new StringReader(TEXT), TYPES, null, 0);
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(4)) < 0);
+        assertEquals(textAnalyzerService.analyzeAll(TEXT, TYPES, Alphabet.ENGLISH, 0), response.getResults());
+        assertTrue(registry.get("textanalyzer.cluster.shards").tag("outcome", "hedged").functionCounter().count() > 0);
+    }
+
+    @Test
+    @DisplayName("A shard that fails on every attempt should fail the analysis; without workers it is disabled")
+    void analyze_failsWithoutHealthyWorkers() {
+        shardedService = shardedService(List.of(failingWorker(new AtomicInteger())), 1_000);
+
+        ShardAnalysisException ex = assertThrows(ShardAnalysisException.class,
+                () -> shardedService.analyze(new StringReader(TEXT), TYPES, Alphabet.ENGLISH, 10));
+        assertTrue(ex.getMessage().contains("after 3 attempts"));
+
+        ShardedAnalysisService disabled = shardedService(List.of(), 1_000);
+        assertThrows(InvalidRequestException.class, () -> disabled.analyze(new StringReader(TEXT), TYPES, Alphabet.ENGLISH, 10));
+        disabled.shutdown();
+    }
+
+    @Test
+    @DisplayName("A client error should fail the analysis at once, while 429 Too Many Requests is retried on another worker")
+    void analyze_retriesOnlyTransientErrors() throws IOException {
+        AtomicInteger rejections = new AtomicInteger();
+        shardedService = shardedService(List.of(failingWorker(rejections, 400), countingWorker()), 1_000);
+
+        ShardAnalysisException ex = assertThrows(ShardAnalysisException.class,
+                () -> shardedService.analyze(new StringReader(TEXT), TYPES, Alphabet.ENGLISH, 10));
+        assertTrue(ex.getMessage().contains("after 1 attempts"));
+
+        AtomicInteger busy = new AtomicInteger();
+        shardedService.shutdown();
+        shardedService = shardedService(List.of(failingWorker(busy, 429), countingWorker()), 1_000);
+        MultiAnalysisResponse response = shardedService.analyze(new StringReader(TEXT), TYPES, Alphabet.ENGLISH, 0);
+        assertEquals(textAnalyzerService.analyzeAll(TEXT, TYPES, Alphabet.ENGLISH, 0), response.getResults());
+        assertTrue(busy.get() > 0);
+    }
+
+    @Test
+    @DisplayName("Words should be bounded by max-words per shard and in the merge, keeping the most frequent ones exact")
+    void analyze_boundsWords() throws IOException {
+        shardedService = shardedService(List.of(countingWorker(), countingWorker()), 1_000);
+        ReflectionTestUtils.setField(shardedService, "maxWords", 3);
+
+        Map<String, Integer> words = shardedService.analyze(new StringReader(TEXT), TYPES, Alphabet.ENGLISH, 0)
+                .getResults().get(AnalysisType.WORD);
+
+        assertEquals(3, words.size());
+        assertEquals(List.of("the"), List.copyOf(words.keySet()).subList(0, 1));
+        assertEquals(4_000, words.get("the"));
+    }
+
+    @Test
+    @DisplayName("Shards should end after a separator, stay within the shard size and add up to the input")
+    void shardReader_cutsAtSeparators() throws IOException {
+        String text = "don't stop-me now " + "x".repeat(25) + " 😀😀😀 end";
+        ShardReader reader = new ShardReader(new StringReader(text), 10, Long.MAX_VALUE);
+
+        List<String> shards = new ArrayList<>();
+        String shard;
+        while ((shard = reader.next()) != null) {
+            shards.add(shard);
+        }
+
+        assertEquals(text, String.join("", shards));
+        assertEquals(List.of("don't ", "stop-me ", "now "), shards.subList(0, 3));
+        assertTrue(shards.stream().allMatch(s -> s.length() <= 10));
+        assertTrue(shards.stream().noneMatch(s -> Character.isHighSurrogate(s.charAt(s.length() - 1))));
+        assertEquals(text.length(), reader.getTotalLength());
+    }
+
+    private ShardedAnalysisService shardedService(List<String> workers, int shardSize) {
+        ShardedAnalysisService service = new ShardedAnalysisService(RestClient.builder());
+        ReflectionTestUtils.setField(service, "workers", workers);
+        ReflectionTestUtils.setField(service, "shardSize", shardSize);
+        ReflectionTestUtils.setField(service, "timeout", Duration.ofSeconds(10));
+        service.init();
+        return service;
+    }
+
+    /**
+     * A worker that counts the shard like POST /analyze/multi does.
+     */
+    private String countingWorker() {
+        return worker(exchange -> {
+            Map<String, String> query = query(exchange);
+            Set<AnalysisType> types = Arrays.stream(query.get("types").split(","))
+                    .map(AnalysisType::valueOf)
+                    .collect(Collectors.toCollection(() -> EnumSet.noneOf(AnalysisType.class)));
+            Alphabet alphabet = Alphabet.valueOf(query.get("alphabet"));
+            String text = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            MultiAnalysisResponse response = new MultiAnalysisResponse(
+                    textAnalyzerService.analyzeAll(text, types, alphabet, Integer.parseInt(query.get("limit"))), null, alphabet);
+            respond(exchange, 200, objectMapper.writeValueAsBytes(response));
+        });
+    }
+
+    private String failingWorker(AtomicInteger failures) {
+        return failingWorker(failures, 500);
+    }
+
+    private String failingWorker(AtomicInteger failures, int status) {
+        return worker(exchange -> {
+            failures.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, status, "boom".getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    private String slowWorker(Duration delay) {
+        return worker(exchange -> {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, 503, "too late".getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    private String worker(Handler handler) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/analyze/multi", exchange -> {
+                try (exchange) {
+                    handler.handle(exchange);
+                }
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+            servers.add(server);
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] pair = parameter.split("=", 2);
+            parameters.put(pair[0], URLDecoder.decode(pair[1], StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+}
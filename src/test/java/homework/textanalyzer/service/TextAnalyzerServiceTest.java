@@ -1,10 +1,26 @@
 package homework.textanalyzer.service;
 
+import homework.textanalyzer.exception.TextLengthExceededException;
+import homework.textanalyzer.model.AnalysisResponse;
+import homework.textanalyzer.util.Alphabet;
 import homework.textanalyzer.util.AnalysisType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -117,4 +133,248 @@ class TextAnalyzerServiceTest {
         assertEquals(1, result.size());
         assertEquals(5, result.get('A'));
     }
+
+    @Test
+    @DisplayName("Should ignore accented letters that are not part of the character set")
+    void analyze_accentedLetters() {
+        String text = "Éclair über Ålesund";
+        AnalysisType type = AnalysisType.VOWELS;
+        Map<Character, Integer> result = textAnalyzerService.analyze(text, type);
+
+        assertEquals(4, result.size()); // A, E, I, U - É and Å are not plain vowels
+        assertEquals(2, result.get('E'));
+        assertEquals(1, result.get('A'));
+        assertEquals(1, result.get('I'));
+        assertEquals(1, result.get('U'));
+    }
+
+    @Test
+    @DisplayName("Should produce the same counts when called repeatedly on the same thread")
+    void analyze_reusesHistogramBetweenCalls() {
+        Map<Character, Integer> first = textAnalyzerService.analyze("banana", AnalysisType.VOWELS);
+        Map<Character, Integer> second = textAnalyzerService.analyze("banana", AnalysisType.VOWELS);
+
+        assertEquals(first, second, "Counts must not leak from one call into the next");
+        assertEquals(3, second.get('A'));
+    }
+
+    @Test
+    @DisplayName("Should count every letter of a long input")
+    void analyze_longInput() {
+        String text = "The quick brown fox jumps over the lazy dog. ".repeat(10_000);
+        Map<Character, Integer> result = textAnalyzerService.analyze(text, AnalysisType.CONSONANTS);
+
+        assertEquals(21, result.size(), "The pangram contains every consonant");
+        assertEquals(20_000, result.get('T'));
+        assertEquals(10_000, result.get('Z'));
+    }
+
+    @Test
+    @DisplayName("Should count a streamed text spanning several chunks like the same text given as a String")
+    void analyze_reader_matchesStringAnalysis() throws IOException {
+        String text = "Streaming keeps memory flat. ".repeat(1_000); // Larger than one read chunk
+        Map<Character, Integer> expected = textAnalyzerService.analyze(text, AnalysisType.CONSONANTS);
+
+        Map<Character, Integer> result = textAnalyzerService.analyze(new StringReader(text), AnalysisType.CONSONANTS, Long.MAX_VALUE);
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    @DisplayName("Should reject a streamed text longer than the given maximum")
+    void analyze_reader_exceedsMaxLength() {
+        StringReader reader = new StringReader("a".repeat(TextAnalyzerService.STREAM_CHUNK_SIZE * 2));
+
+        assertThrows(TextLengthExceededException.class,
+                () -> textAnalyzerService.analyze(reader, AnalysisType.VOWELS, TextAnalyzerService.STREAM_CHUNK_SIZE));
+    }
+
+    @Test
+    @DisplayName("Should produce identical counts on the parallel path and the sequential path")
+    void analyze_parallelMatchesSequential() {
+        String text = "Ärger über Öl, naïve façade; THE END. \uD83D\uDE00 ".repeat(50_000);
+        // The text is longer than the default threshold, so the reference service must not split it either.
+        TextAnalyzerService sequentialService = new TextAnalyzerService();
+        ReflectionTestUtils.setField(sequentialService, "parallelThreshold", Integer.MAX_VALUE);
+        Map<Character, Integer> sequential = sequentialService.analyze(text, AnalysisType.CONSONANTS);
+
+        TextAnalyzerService parallelService = new TextAnalyzerService();
+        ReflectionTestUtils.setField(parallelService, "parallelThreshold", 1);
+        Map<Character, Integer> parallel = parallelService.analyze(text, AnalysisType.CONSONANTS);
+
+        assertEquals(sequential, parallel);
+        assertEquals(150_000, parallel.get('R'));
+    }
+
+    @Test
+    @DisplayName("Should count word frequencies for WORD analysis")
+    void analyzeWords_topK() {
+        Map<String, Integer> result = textAnalyzerService.analyzeWords("To be, or not to be: that is the question.", 2);
+
+        assertEquals(2, result.size());
+        assertEquals(2, result.get("to"));
+        assertEquals(2, result.get("be"));
+    }
+
+    @Test
+    @DisplayName("Should count streamed words split across read chunks once")
+    void analyzeWords_reader() throws IOException {
+        String text = "lorem ipsum dolor ".repeat(2_000); // Larger than one read chunk
+        Map<String, Integer> result = textAnalyzerService.analyzeWords(new StringReader(text), Long.MAX_VALUE, 0);
+
+        assertEquals(Map.of("lorem", 2_000, "ipsum", 2_000, "dolor", 2_000), result);
+    }
+
+    @Test
+    @DisplayName("Should count letter bigrams within words, most frequent first")
+    void analyzeNGrams_bigrams() {
+        Map<String, Integer> result = textAnalyzerService.analyzeNGrams("The thin theme, a THAT-th", AnalysisType.BIGRAM, Alphabet.ENGLISH, 0);
+
+        assertEquals(List.of("TH", "HE", "AT", "EM", "IN", "HA", "HI", "ME"), List.copyOf(result.keySet()));
+        assertEquals(5, result.get("TH"));
+        assertEquals(2, result.get("HE"));
+        assertNull(result.get("EA")); // "theme, a" is split by the comma and the space
+        assertEquals(List.of("TH", "HE"), List.copyOf(textAnalyzerService.analyzeNGrams("The thin theme", AnalysisType.BIGRAM, null, 2).keySet()));
+    }
+
+    @Test
+    @DisplayName("Should count trigrams in the letters of the selected alphabet")
+    void analyzeNGrams_trigramsInAlphabet() {
+        Map<String, Integer> result = textAnalyzerService.analyzeNGrams("Größe größer", AnalysisType.TRIGRAM, Alphabet.GERMAN, 0);
+
+        assertEquals(Map.of("GRÖ", 2, "RÖẞ", 2, "ÖẞE", 2, "ẞER", 1), result);
+        // English does not know 'ö', so it ends the run of letters.
+        assertEquals(Map.of(), textAnalyzerService.analyzeNGrams("Größe", AnalysisType.TRIGRAM, Alphabet.ENGLISH, 0));
+        assertEquals(Map.of(), textAnalyzerService.analyzeNGrams("Größe", AnalysisType.VOWELS, Alphabet.GERMAN, 0));
+    }
+
+    @Test
+    @DisplayName("N-grams should be counted once across read chunks and parallel ranges")
+    void analyzeNGrams_chunksAndParallelMatchSequential() throws IOException {
+        // 7 chars per sentence, so n-grams straddle every chunk and range boundary.
+        String text = "abc de ".repeat(100_000) + "xyz";
+        Map<String, Integer> sequential = textAnalyzerService.analyzeNGrams(text, AnalysisType.TRIGRAM, Alphabet.ENGLISH, 0);
+        assertEquals(Map.of("ABC", 100_000, "XYZ", 1), sequential);
+
+        assertEquals(sequential, textAnalyzerService.analyzeNGrams(new StringReader(text), AnalysisType.TRIGRAM, Alphabet.ENGLISH, Long.MAX_VALUE, 0));
+        TextAnalyzerService parallelService = new TextAnalyzerService();
+        ReflectionTestUtils.setField(parallelService, "parallelThreshold", 1);
+        assertEquals(sequential, parallelService.analyzeNGrams(text, AnalysisType.TRIGRAM, Alphabet.ENGLISH, 0));
+
+        String letters = "abcdefghij".repeat(50_000);
+        assertEquals(textAnalyzerService.analyzeNGrams(letters, AnalysisType.BIGRAM, Alphabet.ENGLISH, 0),
+                parallelService.analyzeNGrams(letters, AnalysisType.BIGRAM, Alphabet.ENGLISH, 0));
+        assertEquals(50_000 - 1, parallelService.analyzeNGrams(letters, AnalysisType.BIGRAM, Alphabet.ENGLISH, 0).get("JA"));
+    }
+
+    @Test
+    @DisplayName("Should record latency and input length per analysis type")
+    void analyze_recordsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        textAnalyzerService.setMetrics(new AnalyzerMetrics(registry, true));
+
+        textAnalyzerService.analyze("Hello World", AnalysisType.VOWELS);
+        textAnalyzerService.analyze("Hello", AnalysisType.VOWELS);
+        textAnalyzerService.analyzeWords("Hello World", 10);
+
+        assertEquals(2, registry.get("textanalyzer.analyze").tag("type", "VOWELS").timer().count());
+        assertEquals(1, registry.get("textanalyzer.analyze").tag("type", "WORD").timer().count());
+        assertEquals(16, registry.get("textanalyzer.input.length").tag("type", "VOWELS").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should record an analysis that throws as failed rather than dropping it")
+    void analyze_recordsFailures() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        textAnalyzerService.setMetrics(new AnalyzerMetrics(registry, true));
+        StringReader reader = new StringReader("a".repeat(TextAnalyzerService.STREAM_CHUNK_SIZE * 2));
+
+        assertThrows(TextLengthExceededException.class,
+                () -> textAnalyzerService.analyze(reader, AnalysisType.VOWELS, TextAnalyzerService.STREAM_CHUNK_SIZE));
+
+        assertEquals(1, registry.get("textanalyzer.analyze.failed").timer().count());
+        assertEquals(0, registry.get("textanalyzer.analyze").tag("type", "VOWELS").timer().count());
+    }
+
+    @Test
+    @DisplayName("Turkish should keep dotted and dotless I apart")
+    void analyze_turkishAlphabet() {
+        Map<Character, Integer> result = textAnalyzerService.analyze("Işık İstanbul'da iyi", AnalysisType.VOWELS, Alphabet.TURKISH);
+
+        assertEquals(Map.of('A', 2, 'I', 2, 'İ', 3, 'U', 1), result);
+    }
+
+    @Test
+    @DisplayName("German should count umlauts and sharp s as letters of their own")
+    void analyze_germanAlphabet() {
+        assertEquals(Map.of('E', 3, 'U', 1, 'Ä', 1, 'Ö', 1, 'Ü', 1),
+                textAnalyzerService.analyze("Über Größe äußern", AnalysisType.VOWELS, Alphabet.GERMAN));
+        assertEquals(Map.of('R', 2, 'S', 4, 'T', 2, 'ẞ', 1),
+                textAnalyzerService.analyze("Straße STRASSE", AnalysisType.CONSONANTS, Alphabet.GERMAN));
+    }
+
+    @Test
+    @DisplayName("French should fold accented letters into their base letter")
+    void analyze_frenchAlphabet() {
+        assertEquals(Map.of('A', 3, 'E', 6, 'I', 1, 'O', 1),
+                textAnalyzerService.analyze("Élève à l'école, déjà naïf", AnalysisType.VOWELS, Alphabet.FRENCH));
+        // English, the default, leaves accented letters out.
+        assertEquals(Map.of('E', 2, 'O', 1),
+                textAnalyzerService.analyze("Élève à l'école", AnalysisType.VOWELS));
+    }
+
+    @Test
+    @DisplayName("Romanian should count the legacy cedilla letters as the comma-below letters")
+    void analyze_romanianAlphabet() {
+        assertEquals(Map.of('N', 1, 'R', 1, 'Ș', 2, 'T', 1, 'Ț', 2),
+                textAnalyzerService.analyze("Ştiinţă și țară", AnalysisType.CONSONANTS, Alphabet.ROMANIAN));
+    }
+
+    @Test
+    @DisplayName("A combined analysis should match the single-type analyses")
+    void analyzeAll_matchesSingleTypes() throws IOException {
+        String text = "The quick brown fox jumps over the lazy dog. The dog sleeps.";
+        Map<AnalysisType, Map<String, Integer>> results = textAnalyzerService.analyzeAll(
+                text, EnumSet.allOf(AnalysisType.class), Alphabet.ENGLISH, 100);
+
+        assertEquals(List.of(AnalysisType.VOWELS, AnalysisType.CONSONANTS, AnalysisType.WORD, AnalysisType.BIGRAM, AnalysisType.TRIGRAM),
+                List.copyOf(results.keySet()));
+        assertEquals(AnalysisResponse.of(textAnalyzerService.analyze(text, AnalysisType.VOWELS), text, AnalysisType.VOWELS).getCharacterCounts(),
+                results.get(AnalysisType.VOWELS));
+        assertEquals(AnalysisResponse.of(textAnalyzerService.analyze(text, AnalysisType.CONSONANTS), text, AnalysisType.CONSONANTS).getCharacterCounts(),
+                results.get(AnalysisType.CONSONANTS));
+        assertEquals(textAnalyzerService.analyzeWords(text, 100), results.get(AnalysisType.WORD));
+        assertEquals(textAnalyzerService.analyzeNGrams(text, AnalysisType.TRIGRAM, Alphabet.ENGLISH, 100), results.get(AnalysisType.TRIGRAM));
+
+        // Streamed input gives the same results; only the requested types are returned.
+        Map<AnalysisType, Map<String, Integer>> streamed = textAnalyzerService.analyzeAll(
+                new StringReader(text), EnumSet.of(AnalysisType.CONSONANTS), Alphabet.ENGLISH, 1000, 100);
+        assertEquals(Map.of(AnalysisType.CONSONANTS, results.get(AnalysisType.CONSONANTS)), streamed);
+    }
+
+    @Test
+    @DisplayName("Counting a stream of buffers should match the whole text, even with characters split across buffers")
+    void analyzeAll_dataBuffers_splitCharacters() {
+        String text = "Größe straße ÄÖÜ ẞ der Größe ";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+        // One byte per buffer splits every multibyte character.
+        Flux<DataBuffer> body = Flux.range(0, bytes.length).map(i -> bufferFactory.wrap(new byte[]{bytes[i]}));
+
+        Map<AnalysisType, Map<String, Integer>> streamed = textAnalyzerService.analyzeAll(
+                body, EnumSet.of(AnalysisType.VOWELS, AnalysisType.WORD), Alphabet.GERMAN, 1000, 100).block();
+
+        assertEquals(textAnalyzerService.analyzeAll(text, EnumSet.of(AnalysisType.VOWELS, AnalysisType.WORD), Alphabet.GERMAN, 100), streamed);
+    }
+
+    @Test
+    @DisplayName("A stream of buffers longer than the maximum should fail with TextLengthExceededException")
+    void analyzeAll_dataBuffers_tooLong() {
+        Flux<DataBuffer> body = Flux.just("aaaa", "bbbb").map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+
+        Mono<Map<AnalysisType, Map<String, Integer>>> result = textAnalyzerService.analyzeAll(
+                body, EnumSet.of(AnalysisType.VOWELS), Alphabet.ENGLISH, 6, 100);
+
+        assertThrows(TextLengthExceededException.class, result::block);
+    }
 }
@@ -0,0 +1,68 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.AnalysisType;
+import homework.textanalyzer.util.CharacterSets;
+import homework.textanalyzer.util.LetterTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Validates the vectorized counting kernel against the scalar one.
+ * The test JVM is started with --add-modules jdk.incubator.vector (see build.gradle).
+ */
+class VectorLetterCounterTest {
+
+    // Mostly ASCII letters, with some punctuation and non-ASCII chars that force the scalar fallback,
+    // including chars such as 'ı' and 'ſ' whose upper-case forms are ASCII letters.
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String EXTRAS = " ,.;!?`@[{\néÄıſK😀";
+
+    @Test
+    @DisplayName("Should produce the same counts as the scalar kernel for every character set and length")
+    void count_matchesScalar() {
+        LetterCounter vectorCounter = LetterCounter.vector();
+        assertNotNull(vectorCounter, "The Vector API module should be present in tests");
+        SplittableRandom random = new SplittableRandom(7);
+
+        for (CharacterSets characterSet : CharacterSets.values()) {
+            LetterTable table = characterSet.getLookupTable();
+            for (int length : new int[]{0, 1, 7, 31, 64, 1_000, 10_007, 100_000}) {
+                String text = randomText(random, length);
+
+                LetterHistogram scalar = new LetterHistogram(table);
+                LetterCounter.SCALAR.count(scalar, text, 0, text.length());
+                LetterHistogram vector = new LetterHistogram(table);
+                vectorCounter.count(vector, text, 0, text.length());
+
+                assertEquals(scalar.toMap(), vector.toMap(), characterSet + " over " + length + " chars");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should give the same service results with the vector engine selected at runtime")
+    void service_vectorEngine() {
+        TextAnalyzerService textAnalyzerService = new TextAnalyzerService();
+        String text = "Vectorized kernels classify sixteen chars per step. Ünïcödé falls back. ".repeat(500);
+        Map<?, Integer> scalarVowels = textAnalyzerService.analyze(text, AnalysisType.VOWELS);
+
+        textAnalyzerService.setEngine("vector");
+
+        assertEquals(scalarVowels, textAnalyzerService.analyze(text, AnalysisType.VOWELS));
+    }
+
+    private static String randomText(SplittableRandom random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(random.nextInt(10) < 8
+                    ? ALPHABET.charAt(random.nextInt(ALPHABET.length()))
+                    : EXTRAS.charAt(random.nextInt(EXTRAS.length())));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package homework.textanalyzer.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the WordHistogram tokenizer and its open-addressing frequency table.
+ */
+class WordHistogramTest {
+
+    @Test
+    @DisplayName("Should count words case-insensitively, keeping apostrophes inside words")
+    void count_tokenization() {
+        String text = "The cat and the hat. THE END! Don't stop, don’t 'quote' rock'n'roll''";
+        WordHistogram histogram = new WordHistogram();
+        histogram.count(text, 0, text.length());
+        histogram.finish();
+
+        Map<String, Integer> result = histogram.toMap(0);
+        assertEquals(3, result.get("the"));
+        assertEquals(2, result.get("don't"), "Typographic and ASCII apostrophes count as the same word");
+        assertEquals(1, result.get("quote"), "Enclosing quotes are not part of the word");
+        assertEquals(1, result.get("rock'n'roll"));
+        assertEquals(9, histogram.distinctWords());
+    }
+
+    @Test
+    @DisplayName("Should return the top-K words, most frequent first")
+    void toMap_topK() {
+        String text = "b a c a b a";
+        WordHistogram histogram = new WordHistogram();
+        histogram.count(text, 0, text.length());
+        histogram.finish();
+
+        Map<String, Integer> result = histogram.toMap(2);
+        assertEquals(List.of("a", "b"), List.copyOf(result.keySet()));
+        assertEquals(3, result.get("a"));
+        assertEquals(2, result.get("b"));
+    }
+
+    @Test
+    @DisplayName("Should count words split across chunks once, and grow past the initial table size")
+    void count_chunkedLargeVocabulary() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            builder.append("word").append(i % 50_000).append(' ');
+        }
+        String text = builder.toString();
+
+        WordHistogram histogram = new WordHistogram();
+        for (int from = 0; from < text.length(); from += 7) {
+            histogram.count(text, from, Math.min(text.length(), from + 7));
+        }
+        histogram.finish();
+
+        assertEquals(50_000, histogram.distinctWords());
+        assertEquals(4, histogram.toMap(1).get("word0"));
+    }
+
+    @Test
+    @DisplayName("Should add the counts of merged histograms")
+    void merge() {
+        WordHistogram first = new WordHistogram();
+        first.count("alpha beta", 0, 10);
+        first.finish();
+        WordHistogram second = new WordHistogram();
+        second.count("beta gamma", 0, 10);
+        second.finish();
+
+        first.merge(second);
+
+        assertEquals(Map.of("alpha", 1, "beta", 2, "gamma", 1), first.toMap(0));
+    }
+}
@@ -0,0 +1,93 @@
+package homework.textanalyzer.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+
+/**
+ * Tests for admission control on the reactive routes, bound to a router function without starting a server.
+ */
+class AdmissionControlFilterFunctionTest {
+
+    private AdmissionControlInterceptor interceptor;
+    private WebTestClient webTestClient;
+    // In-flight characters seen by the handler while it runs.
+    private final AtomicLong chargedWhileHandling = new AtomicLong(-1);
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(interceptor, "rate", 1.0);
+        ReflectionTestUtils.setField(interceptor, "burst", 2);
+        ReflectionTestUtils.setField(interceptor, "clientHeader", "X-Client-Id");
+        ReflectionTestUtils.setField(interceptor, "maxInFlightChars", 1000L);
+        ReflectionTestUtils.setField(interceptor, "exemptChars", 10L);
+        ReflectionTestUtils.setField(interceptor, "unknownLengthChars", 500L);
+
+        webTestClient = WebTestClient.bindToRouterFunction(RouterFunctions
+                        .route(POST("/analyze"), request -> request.bodyToMono(String.class)
+                                .flatMap(body -> {
+                                    chargedWhileHandling.set(interceptor.getInFlightChars());
+                                    return ServerResponse.ok().bodyValue(body.length());
+                                }))
+                        .filter(new AdmissionControlFilterFunction(interceptor)))
+                .build();
+    }
+
+    @Test
+    @DisplayName("A client should get 429 with a Retry-After header once its burst is used up, sharing buckets with the MVC endpoints")
+    void rateLimit_rejectsAfterBurst() {
+        // One of the client's two tokens is used by a Spring MVC request.
+        assertEquals(0, interceptor.admit("a", 0));
+        post("a", "text").expectStatus().isOk();
+
+        post("a", "text").expectStatus().isEqualTo(429)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1");
+        post("b", "text").expectStatus().isOk();
+    }
+
+    @Test
+    @DisplayName("Large requests should be charged to the shared budget while they are handled, and released afterwards")
+    void characterBudget_chargedWhileHandled() {
+        post("a", "a".repeat(600)).expectStatus().isOk().expectBody(Integer.class).isEqualTo(600);
+        assertEquals(600, chargedWhileHandling.get());
+        assertEquals(0, interceptor.getInFlightChars());
+
+        // While an MVC request holds most of the budget, large reactive requests are refused.
+        long held = interceptor.admit("c", 600);
+        post("b", "a".repeat(600)).expectStatus().isEqualTo(429);
+        interceptor.release(held);
+        post("b", "a".repeat(600)).expectStatus().isOk();
+        assertEquals(0, interceptor.getInFlightChars());
+    }
+
+    @Test
+    @DisplayName("Nothing should be charged when admission control is disabled")
+    void disabled_admitsEverything() {
+        ReflectionTestUtils.setField(interceptor, "enabled", false);
+        for (int i = 0; i < 5; i++) {
+            post("a", "a".repeat(2000)).expectStatus().isOk();
+        }
+        assertEquals(0, chargedWhileHandling.get());
+    }
+
+    private WebTestClient.ResponseSpec post(String client, String body) {
+        return webTestClient.post().uri("/analyze")
+                .header("X-Client-Id", client)
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue(body)
+                .exchange();
+    }
+
+}
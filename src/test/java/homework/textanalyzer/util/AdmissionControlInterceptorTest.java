@@ -0,0 +1,123 @@
+package homework.textanalyzer.util;
+
+import homework.textanalyzer.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-client rate limit and the in-flight character budget.
+ */
+class AdmissionControlInterceptorTest {
+
+    private AdmissionControlInterceptor interceptor;
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new AdmissionControlInterceptor();
+        ReflectionTestUtils.setField(interceptor, "rate", 1.0);
+        ReflectionTestUtils.setField(interceptor, "burst", 2);
+        ReflectionTestUtils.setField(interceptor, "clientHeader", "X-Client-Id");
+        ReflectionTestUtils.setField(interceptor, "maxInFlightChars", 1000L);
+        ReflectionTestUtils.setField(interceptor, "exemptChars", 10L);
+    }
+
+    @Test
+    @DisplayName("A client should be rejected with a retry delay once its burst is used up")
+    void rateLimit_rejectsAfterBurst() {
+        assertTrue(interceptor.preHandle(request("a", 0), response, null));
+        assertTrue(interceptor.preHandle(request("a", 0), response, null));
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("a", 0), response, null));
+        assertTrue(ex.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        assertTrue(ex.getRetryAfter().compareTo(Duration.ofSeconds(1)) <= 0);
+
+        // Other clients have their own bucket.
+        assertTrue(interceptor.preHandle(request("b", 0), response, null));
+    }
+
+    @Test
+    @DisplayName("Large requests should be rejected while the character budget is in use, and admitted once it is released")
+    void characterBudget_limitsLargeRequests() {
+        ReflectionTestUtils.setField(interceptor, "burst", 100);
+        MockHttpServletRequest first = request("a", 600);
+        assertTrue(interceptor.preHandle(first, response, null));
+        assertEquals(600, interceptor.getInFlightChars());
+
+        assertThrows(TooManyRequestsException.class, () -> interceptor.preHandle(request("b", 600), response, null));
+        // Small requests skip the budget.
+        assertTrue(interceptor.preHandle(request("b", 10), response, null));
+
+        interceptor.afterCompletion(first, response, null, null);
+        assertEquals(0, interceptor.getInFlightChars());
+        assertTrue(interceptor.preHandle(request("b", 600), response, null));
+    }
+
+    @Test
+    @DisplayName("A request larger than the whole budget should be admitted only when nothing else large is in flight")
+    void characterBudget_oversizedRequestTakesWholeBudget() {
+        MockHttpServletRequest huge = request("a", 5000);
+        assertTrue(interceptor.preHandle(huge, response, null));
+        assertEquals(1000, interceptor.getInFlightChars());
+
+        interceptor.afterCompletion(huge, response, null, null);
+        assertEquals(0, interceptor.getInFlightChars());
+    }
+
+    @Test
+    @DisplayName("The text parameter should count towards the request size")
+    void characterBudget_countsTextParameter() {
+        MockHttpServletRequest request = request("a", 0);
+        request.setParameter("text", "x".repeat(200));
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertEquals(200, interceptor.getInFlightChars());
+    }
+
+    @Test
+    @DisplayName("Disabled admission control should admit everything")
+    void disabled_admitsEverything() {
+        ReflectionTestUtils.setField(interceptor, "enabled", false);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(interceptor.preHandle(request("a", 5000), response, null));
+        }
+        assertEquals(0, interceptor.getInFlightChars());
+    }
+
+    @Test
+    @DisplayName("A bucket should refill at the configured rate, up to its capacity")
+    void tokenBucket_refills() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(second, bucket.tryAcquire(0));
+        assertEquals(second / 2, bucket.tryAcquire(second / 2));
+        assertEquals(0, bucket.tryAcquire(second));
+        assertFalse(bucket.isFull(second));
+        assertTrue(bucket.isFull(10 * second));
+        assertEquals(0, bucket.tryAcquire(10 * second));
+        assertEquals(0, bucket.tryAcquire(10 * second));
+        assertTrue(bucket.tryAcquire(10 * second) > 0);
+    }
+
+    private static MockHttpServletRequest request(String client, int contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/analyze");
+        request.addHeader("X-Client-Id", client);
+        if (contentLength > 0) {
+            request.setContent(new byte[contentLength]);
+        }
+        return request;
+    }
+
+}
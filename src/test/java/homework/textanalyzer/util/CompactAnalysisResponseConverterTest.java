@@ -0,0 +1,100 @@
+package homework.textanalyzer.util;
+
+import homework.textanalyzer.model.AnalysisResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compact binary AnalysisResponse encoding.
+ */
+class CompactAnalysisResponseConverterTest {
+
+    private final CompactAnalysisResponseConverter converter = new CompactAnalysisResponseConverter();
+
+    @Test
+    @DisplayName("Letter counts should round-trip in fixed order without keys")
+    void letters_roundTrip() throws IOException {
+        AnalysisResponse response = new AnalysisResponse(Map.of("B", 300, "Z", 1), "Élan", AnalysisType.CONSONANTS, Alphabet.ENGLISH);
+
+        byte[] encoded = write(response);
+        AnalysisResponse decoded = read(encoded);
+
+        // Type, text length + 1, 5 text bytes, alphabet, 21 counts of which B needs two bytes.
+        assertEquals(1 + 1 + 5 + 1 + 22, encoded.length);
+        assertEquals(response, decoded);
+    }
+
+    @Test
+    @DisplayName("Letter counts should keep their alphabet's letters and order")
+    void alphabet_roundTrip() throws IOException {
+        AnalysisResponse response = new AnalysisResponse(Map.of("İ", 2, "Ü", 1), null, AnalysisType.VOWELS, Alphabet.TURKISH);
+
+        assertEquals(response, read(write(response)));
+    }
+
+    @Test
+    @DisplayName("Word counts should round-trip in order, and a missing text should stay missing")
+    void words_roundTrip() throws IOException {
+        Map<String, Integer> words = new LinkedHashMap<>();
+        words.put("über", 3);
+        words.put("the", 2);
+        AnalysisResponse response = new AnalysisResponse(words, null, AnalysisType.WORD);
+
+        AnalysisResponse decoded = read(write(response));
+
+        assertEquals(response, decoded);
+        assertEquals(words.keySet().stream().toList(), decoded.getCharacterCounts().keySet().stream().toList());
+    }
+
+    @Test
+    @DisplayName("N-gram counts should round-trip in order together with their alphabet")
+    void ngrams_roundTrip() throws IOException {
+        Map<String, Integer> trigrams = new LinkedHashMap<>();
+        trigrams.put("SCH", 4);
+        trigrams.put("ÖẞE", 1);
+        AnalysisResponse response = new AnalysisResponse(trigrams, null, AnalysisType.TRIGRAM, Alphabet.GERMAN);
+
+        AnalysisResponse decoded = read(write(response));
+
+        assertEquals(response, decoded);
+        assertEquals(trigrams.keySet().stream().toList(), decoded.getCharacterCounts().keySet().stream().toList());
+    }
+
+    @Test
+    @DisplayName("Types and alphabets should be encoded by their stable codes")
+    void codes() throws IOException {
+        AnalysisResponse response = new AnalysisResponse(Map.of("SCH", 1), null, AnalysisType.TRIGRAM, Alphabet.GERMAN);
+
+        byte[] encoded = write(response);
+
+        assertEquals(AnalysisType.TRIGRAM.getCode(), encoded[0]);
+        assertEquals(Alphabet.GERMAN.getCode(), encoded[2]);
+        for (AnalysisType type : AnalysisType.values()) {
+            assertSame(type, AnalysisType.fromCode(type.getCode()));
+        }
+        for (Alphabet alphabet : Alphabet.values()) {
+            assertSame(alphabet, Alphabet.fromCode(alphabet.getCode()));
+        }
+        assertThrows(HttpMessageNotReadableException.class, () -> read(new byte[]{99, 0}));
+    }
+
+    private byte[] write(AnalysisResponse response) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(response, CompactAnalysisResponseConverter.MEDIA_TYPE, output);
+        return output.getBodyAsBytes();
+    }
+
+    private AnalysisResponse read(byte[] bytes) throws IOException {
+        return converter.read(AnalysisResponse.class, new MockHttpInputMessage(bytes));
+    }
+
+}
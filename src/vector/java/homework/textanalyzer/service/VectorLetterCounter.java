@@ -0,0 +1,129 @@
+package homework.textanalyzer.service;
+
+import homework.textanalyzer.util.LetterTable;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Vectorized counting kernel built on the incubating Java Vector API (jdk.incubator.vector).
+ * Classifies a whole vector of chars per step (8 to 32 chars, depending on the CPU's preferred vector width):
+ * blocks that are pure ASCII are folded to upper case and compared against every letter of the set at once,
+ * blocks containing any non-ASCII char fall back to the scalar table lookup, so results always match the scalar kernel.
+ * Since each letter costs one compare per vector, sets with many letters (such as the consonants) are left to the
+ * scalar kernel, which is as fast there.
+ * <p>
+ * Requires the JVM to be started with {@code --add-modules jdk.incubator.vector}: initializing this class without the
+ * module fails with NoClassDefFoundError. It lives in its own source set, the only one compiled against the module,
+ * and is loaded through {@link LetterCounter#vector()}, which checks for the module first.
+ */
+final class VectorLetterCounter implements LetterCounter {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    // Every key costs a compare per vector; beyond this many keys (e.g. the 21 consonants) the scalar lookup is as fast.
+    private static final int MAX_VECTOR_KEYS = 12;
+
+    // Strings are copied into this many chars at a time, since the Vector API can only load from arrays.
+    private static final int COPY_BUFFER_SIZE = 4096;
+    // Idle copy buffers, borrowed for one count and returned after it. A pool rather than a ThreadLocal,
+    // like the histograms, as requests on virtual threads never run twice on the same thread.
+    private static final Queue<char[]> COPY_BUFFERS = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Comparisons to run for a table: lane value keys[i] counts towards slots[i].
+     * With folding, lower-case ASCII letters are turned into upper case first, so each letter needs a single key.
+     */
+    private record Plan(boolean folded, int[] slots, short[] keys) {
+    }
+
+    private final Map<LetterTable, Plan> plans = new ConcurrentHashMap<>();
+
+    @Override
+    public void count(LetterHistogram histogram, CharSequence text, int from, int to) {
+        if (!(text instanceof String string)) {
+            histogram.count(text, from, to);
+            return;
+        }
+        char[] buffer = COPY_BUFFERS.poll();
+        if (buffer == null) {
+            buffer = new char[COPY_BUFFER_SIZE];
+        }
+        try {
+            for (int start = from; start < to; start += COPY_BUFFER_SIZE) {
+                int end = Math.min(to, start + COPY_BUFFER_SIZE);
+                string.getChars(start, end, buffer, 0);
+                count(histogram, buffer, 0, end - start);
+            }
+        } finally {
+            COPY_BUFFERS.offer(buffer); // Dropped if the pool is full.
+        }
+    }
+
+    @Override
+    public void count(LetterHistogram histogram, char[] chars, int from, int to) {
+        Plan plan = plans.computeIfAbsent(histogram.getTable(), VectorLetterCounter::plan);
+        int[] slots = plan.slots();
+        short[] keys = plan.keys();
+        if (slots.length > MAX_VECTOR_KEYS) {
+            histogram.count(chars, from, to);
+            return;
+        }
+        int lanes = SPECIES.length();
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += lanes) {
+            ShortVector block = ShortVector.fromCharArray(SPECIES, chars, i);
+            if (block.compare(VectorOperators.UNSIGNED_GT, (short) 0x7F).anyTrue()) {
+                histogram.count(chars, i, i + lanes); // Scalar fallback for blocks with non-ASCII chars.
+                continue;
+            }
+            if (plan.folded()) {
+                VectorMask<Short> lowerCase = block.compare(VectorOperators.GE, (short) 'a')
+                        .and(block.compare(VectorOperators.LE, (short) 'z'));
+                block = block.sub((short) ('a' - 'A'), lowerCase);
+            }
+            for (int k = 0; k < keys.length; k++) {
+                int matches = block.eq(keys[k]).trueCount();
+                if (matches != 0) {
+                    histogram.add(slots[k], matches);
+                }
+            }
+        }
+        histogram.count(chars, i, to); // Tail shorter than one vector.
+    }
+
+    /**
+     * Derives the comparisons that reproduce the table's mapping of ASCII chars.
+     * Folding is only used when every lower-case ASCII letter maps to the same slot as its upper-case form,
+     * which is not the case for e.g. a Turkish table where 'i' maps to 'İ'.
+     */
+    private static Plan plan(LetterTable table) {
+        boolean folded = true;
+        for (char c = 'a'; c <= 'z'; c++) {
+            if (table.slotOf(c) != table.slotOf((char) (c - ('a' - 'A')))) {
+                folded = false;
+                break;
+            }
+        }
+        int[] slots = new int[128];
+        short[] keys = new short[128];
+        int size = 0;
+        for (char c = 0; c < 128; c++) {
+            int slot = table.slotOf(c);
+            if (slot != LetterTable.NO_SLOT && !(folded && c >= 'a' && c <= 'z')) {
+                slots[size] = slot;
+                keys[size] = (short) c;
+                size++;
+            }
+        }
+        return new Plan(folded, Arrays.copyOf(slots, size), Arrays.copyOf(keys, size));
+    }
+
+}